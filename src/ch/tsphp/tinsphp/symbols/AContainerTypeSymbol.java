@@ -12,6 +12,8 @@ import ch.tsphp.tinsphp.common.symbols.IObservableTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IParametricTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IPolymorphicTypeSymbol;
 import ch.tsphp.tinsphp.common.utils.ITypeHelper;
+import ch.tsphp.tinsphp.symbols.utils.IMemoryFootprintProvider;
+import ch.tsphp.tinsphp.symbols.utils.MemoryFootprint;
 
 import java.util.ArrayDeque;
 import java.util.Collection;
@@ -26,7 +28,8 @@ import static ch.tsphp.tinsphp.symbols.AContainerTypeSymbol.EAdditionStatus.CAN_
 import static ch.tsphp.tinsphp.symbols.AContainerTypeSymbol.EAdditionStatus.DOES_NOT_ADD_NEW_INFORMATION;
 import static ch.tsphp.tinsphp.symbols.AContainerTypeSymbol.EAdditionStatus.REPLACES_EXISTING;
 
-public abstract class AContainerTypeSymbol extends APolymorphicTypeSymbol implements IContainerTypeSymbol
+public abstract class AContainerTypeSymbol extends APolymorphicTypeSymbol
+        implements IContainerTypeSymbol, IMemoryFootprintProvider
 {
 
     protected static enum EAdditionStatus
@@ -209,6 +212,21 @@ public abstract class AContainerTypeSymbol extends APolymorphicTypeSymbol implem
         return typeSymbols;
     }
 
+    /**
+     * Estimates the memory of this container including nested containers, other types are shared and not counted.
+     */
+    @Override
+    public MemoryFootprint estimateMemoryFootprint() {
+        MemoryFootprint footprint = new MemoryFootprint(getClass().getSimpleName());
+        footprint.addHashMapEntries("typeSymbols", typeSymbols.size());
+        for (ITypeSymbol typeSymbol : typeSymbols.values()) {
+            if (typeSymbol instanceof AContainerTypeSymbol) {
+                footprint.addBytes(((AContainerTypeSymbol) typeSymbol).estimateMemoryFootprint().getEstimatedBytes());
+            }
+        }
+        return footprint;
+    }
+
     @Override
     public boolean isFixed() {
         return nonFixedTypesCount == 0;
@@ -12,12 +12,14 @@ import ch.tsphp.common.symbols.ITypeSymbol;
 import ch.tsphp.common.symbols.modifiers.IModifierSet;
 import ch.tsphp.tinsphp.common.symbols.IObservableTypeListener;
 import ch.tsphp.tinsphp.common.symbols.IObservableTypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.IIdentifiableTypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.TypeIdentities;
 
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-public abstract class APolymorphicTypeSymbol implements ITypeSymbol, IObservableTypeSymbol
+public abstract class APolymorphicTypeSymbol implements IIdentifiableTypeSymbol, IObservableTypeSymbol
 {
     private static final String ERROR_MESSAGE = "You are dealing with an APolymorphicTypeSymbol.";
 
@@ -34,12 +36,18 @@ public abstract class APolymorphicTypeSymbol implements ITypeSymbol, IObservable
     @Override
     public String getAbsoluteName() {
         if (hasAbsoluteNameChanged) {
-            ownAbsoluteName = calculateAbsoluteName();
+            //interned in order that it can be used as type identity
+            ownAbsoluteName = TypeIdentities.intern(calculateAbsoluteName());
             hasAbsoluteNameChanged = false;
         }
         return ownAbsoluteName;
     }
 
+    @Override
+    public String getTypeIdentity() {
+        return getAbsoluteName();
+    }
+
     protected abstract String calculateAbsoluteName();
 
     @Override
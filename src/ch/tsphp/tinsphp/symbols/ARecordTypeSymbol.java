@@ -25,22 +25,32 @@ import ch.tsphp.tinsphp.common.gen.TokenTypes;
 import ch.tsphp.tinsphp.common.scopes.IScopeHelper;
 import ch.tsphp.tinsphp.common.symbols.IRecordTypeSymbol;
 import ch.tsphp.tinsphp.common.utils.MapHelper;
+import ch.tsphp.tinsphp.symbols.utils.IIdentifiableTypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.IIndexedTypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.TypeHierarchyIndex;
+import ch.tsphp.tinsphp.symbols.utils.TypeIdentities;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Provides some helper methods for polymorphic types.
  */
-public abstract class ARecordTypeSymbol extends AScopedSymbol implements IRecordTypeSymbol
+public abstract class ARecordTypeSymbol extends AScopedSymbol
+        implements IRecordTypeSymbol, IIndexedTypeSymbol, IIdentifiableTypeSymbol
 {
 
-    protected Set<ITypeSymbol> parentTypeSymbols = new HashSet<>();
+    private Set<ITypeSymbol> parentTypeSymbols = new HashSet<>();
     protected final ILowerCaseStringMap<List<ISymbol>> symbolsCaseInsensitive = new LowerCaseStringMap<>();
     private boolean isMixedTheParentTypeSymbol = false;
     private Set<ISymbol> abstractSymbols;
+    private volatile TypeHierarchyIndex.Label hierarchyLabel;
+    private final Set<TypeHierarchyIndex> typeHierarchyIndices = new CopyOnWriteArraySet<>();
+    private String typeIdentity;
 
     @SuppressWarnings("checkstyle:parameternumber")
     public ARecordTypeSymbol(
@@ -84,9 +94,13 @@ public abstract class ARecordTypeSymbol extends AScopedSymbol implements IRecord
         return symbol;
     }
 
+    /**
+     * Returns an unmodifiable view of the parent types, use {@link #addParentTypeSymbol(IRecordTypeSymbol)} in order
+     * to add one.
+     */
     @Override
     public Set<ITypeSymbol> getParentTypeSymbols() {
-        return parentTypeSymbols;
+        return Collections.unmodifiableSet(parentTypeSymbols);
     }
 
     @Override
@@ -96,8 +110,48 @@ public abstract class ARecordTypeSymbol extends AScopedSymbol implements IRecord
             isMixedTheParentTypeSymbol = false;
         }
         parentTypeSymbols.add(aParent);
+        //the ancestors of this type and its descendants changed
+        invalidateTypeHierarchyIndices();
     }
 
+    //Warning! start code duplication - same as in ATypeSymbol
+    @Override
+    public TypeHierarchyIndex.Label getHierarchyLabel(TypeHierarchyIndex index) {
+        TypeHierarchyIndex.Label label = index.getUpToDateLabel(this, hierarchyLabel);
+        hierarchyLabel = label;
+        return label;
+    }
+
+    @Override
+    public void registerTypeHierarchyIndex(TypeHierarchyIndex index) {
+        typeHierarchyIndices.add(index);
+    }
+
+    private void invalidateTypeHierarchyIndices() {
+        for (TypeHierarchyIndex index : typeHierarchyIndices) {
+            index.invalidate();
+        }
+    }
+
+    @Override
+    public String getTypeIdentity() {
+        String identity = typeIdentity;
+        if (identity == null) {
+            identity = TypeIdentities.intern(getAbsoluteName());
+            typeIdentity = identity;
+        }
+        return identity;
+    }
+
+    @Override
+    public void setDefinitionScope(IScope newScope) {
+        super.setDefinitionScope(newScope);
+        //the absolute name changed
+        typeIdentity = null;
+        invalidateTypeHierarchyIndices();
+    }
+    //Warning! end code duplication - same as in ATypeSymbol
+
     @Override
     public boolean isAbstract() {
         return modifiers.isAbstract();
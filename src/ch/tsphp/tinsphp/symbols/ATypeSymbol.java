@@ -13,16 +13,26 @@
 
 package ch.tsphp.tinsphp.symbols;
 
+import ch.tsphp.common.IScope;
 import ch.tsphp.common.ITSPHPAst;
 import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.IIdentifiableTypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.IIndexedTypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.TypeHierarchyIndex;
+import ch.tsphp.tinsphp.symbols.utils.TypeIdentities;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
-public abstract class ATypeSymbol extends ASymbolWithModifier implements ITypeSymbol
+public abstract class ATypeSymbol extends ASymbolWithModifier implements IIndexedTypeSymbol, IIdentifiableTypeSymbol
 {
 
     private final Set<ITypeSymbol> parentTypeSymbols;
+    private volatile TypeHierarchyIndex.Label hierarchyLabel;
+    private final Set<TypeHierarchyIndex> typeHierarchyIndices = new CopyOnWriteArraySet<>();
+    private String typeIdentity;
 
     @SuppressWarnings("checkstyle:parameternumber")
     public ATypeSymbol(final ITSPHPAst theDefinitionAst, final String theName, final ITypeSymbol theParentTypeSymbol) {
@@ -38,13 +48,54 @@ public abstract class ATypeSymbol extends ASymbolWithModifier implements ITypeSy
     @SuppressWarnings("checkstyle:parameternumber")
     public ATypeSymbol(ITSPHPAst theDefinitionAst, String theName, Set<ITypeSymbol> theParentTypeSymbols) {
         super(theDefinitionAst, new ModifierSet(), theName);
-        parentTypeSymbols = theParentTypeSymbols;
+        parentTypeSymbols = new HashSet<>(theParentTypeSymbols);
     }
 
+    /**
+     * Returns an unmodifiable view of the parent types.
+     */
     @Override
     public Set<ITypeSymbol> getParentTypeSymbols() {
-        return parentTypeSymbols;
+        return Collections.unmodifiableSet(parentTypeSymbols);
+    }
+
+    //Warning! start code duplication - same as in ARecordTypeSymbol
+    @Override
+    public TypeHierarchyIndex.Label getHierarchyLabel(TypeHierarchyIndex index) {
+        TypeHierarchyIndex.Label label = index.getUpToDateLabel(this, hierarchyLabel);
+        hierarchyLabel = label;
+        return label;
+    }
+
+    @Override
+    public void registerTypeHierarchyIndex(TypeHierarchyIndex index) {
+        typeHierarchyIndices.add(index);
+    }
+
+    private void invalidateTypeHierarchyIndices() {
+        for (TypeHierarchyIndex index : typeHierarchyIndices) {
+            index.invalidate();
+        }
+    }
+
+    @Override
+    public String getTypeIdentity() {
+        String identity = typeIdentity;
+        if (identity == null) {
+            identity = TypeIdentities.intern(getAbsoluteName());
+            typeIdentity = identity;
+        }
+        return identity;
+    }
+
+    @Override
+    public void setDefinitionScope(IScope newScope) {
+        super.setDefinitionScope(newScope);
+        //the absolute name changed
+        typeIdentity = null;
+        invalidateTypeHierarchyIndices();
     }
+    //Warning! end code duplication - same as in ARecordTypeSymbol
 
     @Override
     public boolean isFalseable() {
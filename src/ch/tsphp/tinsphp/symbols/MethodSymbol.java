@@ -25,6 +25,8 @@ import ch.tsphp.tinsphp.common.symbols.IMethodSymbol;
 import ch.tsphp.tinsphp.common.symbols.IMinimalVariableSymbol;
 import ch.tsphp.tinsphp.common.symbols.IVariableSymbol;
 import ch.tsphp.tinsphp.symbols.constraints.ConstraintCollection;
+import ch.tsphp.tinsphp.symbols.utils.IMemoryFootprintProvider;
+import ch.tsphp.tinsphp.symbols.utils.MemoryFootprint;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -33,7 +35,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-public class MethodSymbol extends AScopedSymbol implements IMethodSymbol
+public class MethodSymbol extends AScopedSymbol implements IMethodSymbol, IMemoryFootprintProvider
 {
 
     private final List<IVariableSymbol> parameters = new ArrayList<>();
@@ -202,4 +204,25 @@ public class MethodSymbol extends AScopedSymbol implements IMethodSymbol
         return overloads.values();
     }
 
+    /**
+     * Estimates the memory retained by this method including its overloads and its constraint collection.
+     */
+    @Override
+    public MemoryFootprint estimateMemoryFootprint() {
+        MemoryFootprint footprint = new MemoryFootprint("MethodSymbol " + getAbsoluteName());
+        footprint.addListEntries("parameters", parameters.size());
+        footprint.addHashMapEntries("symbols", symbols.size());
+        footprint.addHashMapEntries("initialisedSymbols", initialisedSymbols.size());
+        footprint.addHashMapEntries("overloads", overloads.size());
+        if (constraintCollection instanceof IMemoryFootprintProvider) {
+            footprint.addChild(((IMemoryFootprintProvider) constraintCollection).estimateMemoryFootprint());
+        }
+        for (IFunctionType overload : overloads.values()) {
+            if (overload instanceof IMemoryFootprintProvider) {
+                footprint.addChild(((IMemoryFootprintProvider) overload).estimateMemoryFootprint());
+            }
+        }
+        return footprint;
+    }
+
 }
@@ -6,7 +6,9 @@
 
 package ch.tsphp.tinsphp.symbols.config;
 
+import ch.tsphp.common.symbols.ITypeSymbol;
 import ch.tsphp.tinsphp.common.config.ISymbolsInitialiser;
+import ch.tsphp.tinsphp.common.core.IConversionsProvider;
 import ch.tsphp.tinsphp.common.scopes.IScopeFactory;
 import ch.tsphp.tinsphp.common.scopes.IScopeHelper;
 import ch.tsphp.tinsphp.common.symbols.IModifierHelper;
@@ -27,8 +29,20 @@ public class HardCodedSymbolsInitialiser implements ISymbolsInitialiser
     private final IScopeFactory scopeFactory;
 
     public HardCodedSymbolsInitialiser() {
+        this(new TypeHelper());
+    }
+
+    /**
+     * Uses the given type helper for all symbols, {@link #getTypeHelper()} returns it and the symbol factory creates
+     * binding collections with it.
+     * <p/>
+     * Pass an immutable TypeHelper (see {@link #createImmutableTypeHelper(ITypeSymbol, IConversionsProvider)}) in
+     * order that the threads of a parallel compilation share one type helper. Its setters accept the values it was
+     * built with, hence it can be configured like the default type helper as long as the same values are passed.
+     */
+    public HardCodedSymbolsInitialiser(ITypeHelper theTypeHelper) {
         modifierHelper = new ModifierHelper();
-        typeHelper = new TypeHelper();
+        typeHelper = theTypeHelper;
         scopeHelper = new ScopeHelper();
         symbolFactory = new SymbolFactory(scopeHelper, modifierHelper, typeHelper);
         scopeFactory = new ScopeFactory(scopeHelper);
@@ -60,6 +74,18 @@ public class HardCodedSymbolsInitialiser implements ISymbolsInitialiser
         return scopeFactory;
     }
 
+    /**
+     * Creates an immutable TypeHelper which can be shared by the threads of a parallel compilation, pass it to
+     * {@link #HardCodedSymbolsInitialiser(ITypeHelper)} in order that {@link #getTypeHelper()} returns it.
+     */
+    public TypeHelper createImmutableTypeHelper(
+            ITypeSymbol mixedTypeSymbol, IConversionsProvider conversionsProvider) {
+        return new TypeHelper.Builder()
+                .mixedTypeSymbol(mixedTypeSymbol)
+                .conversionsProvider(conversionsProvider)
+                .build();
+    }
+
     @Override
     public void reset() {
         //nothing to reset in this version
@@ -35,39 +35,84 @@ import ch.tsphp.tinsphp.common.utils.ITypeHelper;
 import ch.tsphp.tinsphp.common.utils.MapHelper;
 import ch.tsphp.tinsphp.common.utils.Pair;
 import ch.tsphp.tinsphp.common.utils.TypeHelperDto;
+import ch.tsphp.tinsphp.symbols.utils.IMemoryFootprintProvider;
+import ch.tsphp.tinsphp.symbols.utils.MemoryFootprint;
 
+import java.util.AbstractSet;
 import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public class BindingCollection implements IBindingCollection
+public class BindingCollection implements IBindingCollection, IBoundsVisitable, IMemoryFootprintProvider
 {
     private static final String HELPER_VARIABLE_PREFIX = "!help";
 
+    private static final CopyOnWriteMap.IValueCopier<ITypeVariableReference> REFERENCE_COPIER
+            = new CopyOnWriteMap.IValueCopier<ITypeVariableReference>()
+    {
+        @Override
+        public ITypeVariableReference copy(ITypeVariableReference value) {
+            ITypeVariableReference copy = new TypeVariableReference(value.getTypeVariable());
+            if (value.hasFixedType()) {
+                copy = new FixedTypeVariableReference(copy);
+            }
+            return copy;
+        }
+    };
+
+    private static final CopyOnWriteMap.IValueCopier<TypeVariableSet> TYPE_VARIABLE_SET_COPIER
+            = new CopyOnWriteMap.IValueCopier<TypeVariableSet>()
+    {
+        @Override
+        public TypeVariableSet copy(TypeVariableSet value) {
+            return new TypeVariableSet(value);
+        }
+    };
+
     private final ISymbolFactory symbolFactory;
     private final ITypeHelper typeHelper;
     private final ITypeSymbol mixedTypeSymbol;
 
-    private final Map<String, IUnionTypeSymbol> lowerTypeBounds;
-    private final Map<String, IIntersectionTypeSymbol> upperTypeBounds;
-    private final Map<String, Set<String>> upperRefBounds;
-    private final Map<String, Set<String>> lowerRefBounds;
-    private final Map<String, ITypeVariableReference> variable2TypeVariable;
-    private final Map<String, Set<String>> typeVariable2Variables;
-    private final Map<String, OverloadApplicationDto> appliedOverloads;
-    private final Map<String, Set<IParametricType>> typeVariable2BoundTypes;
-    private final Map<String, Set<String>> typeVariablesWithLowerConvertible;
-    private final Map<String, Set<String>> typeVariablesWithUpperConvertible;
+    // type variables are represented by dense ids internally, their names are only used at the boundary of this
+    // binding collection (IBindingCollection, type helper and parametric types)
+    private final CopyOnWriteMap<String, Integer> typeVariable2Id;
+    private final CopyOnWriteIntMap<String> id2TypeVariable;
+
+    private final CopyOnWriteIntMap<IUnionTypeSymbol> lowerTypeBounds;
+    private final CopyOnWriteIntMap<IIntersectionTypeSymbol> upperTypeBounds;
+    private final CopyOnWriteIntMap<TypeVariableSet> upperRefBounds;
+    private final CopyOnWriteIntMap<TypeVariableSet> lowerRefBounds;
+    private final CopyOnWriteMap<String, ITypeVariableReference> variable2TypeVariable;
+    // ids of merged type variables might still be referenced somewhere (e.g. in the PropagationDto during tryToFix),
+    // they are resolved to the current type variable via the union-find structure in mergedInto
+    private final CopyOnWriteMap<String, Integer> variable2Id;
+    private final CopyOnWriteIntMap<Integer> mergedInto;
+    private final CopyOnWriteIntMap<Set<String>> typeVariable2Variables;
+    private final CopyOnWriteMap<String, OverloadApplicationDto> appliedOverloads;
+    private final CopyOnWriteIntMap<Set<IParametricType>> typeVariable2BoundTypes;
+    private final CopyOnWriteIntMap<Set<Integer>> typeVariablesWithLowerConvertible;
+    private final CopyOnWriteIntMap<Set<Integer>> typeVariablesWithUpperConvertible;
+    // type variables whose bounds changed since the last tryToFix/fixTypeParameters (the value is always true)
+    private final CopyOnWriteIntMap<Boolean> dirtyTypeVariables;
 
     private int count = 1;
     private int helperVariableCount = 0;
     private int numberOfConvertibleApplications = 0;
+    private int nextTypeVariableId = 0;
     private EBindingCollectionMode mode = EBindingCollectionMode.Normal;
+    private SolvingBudget budget = SolvingBudget.UNLIMITED;
+    private int propagationSteps = 0;
+
+    //is null as long as no checkpoint is active
+    private Trail trail;
+    private final Deque<Integer> checkpoints = new ArrayDeque<>();
 
     @SuppressWarnings("checkstyle:parameternumber")
     public BindingCollection(ISymbolFactory theSymbolFactory, ITypeHelper theTypeHelper) {
@@ -75,18 +120,32 @@ public class BindingCollection implements IBindingCollection
         typeHelper = theTypeHelper;
         mixedTypeSymbol = symbolFactory.getMixedTypeSymbol();
 
-        lowerTypeBounds = new HashMap<>();
-        upperTypeBounds = new HashMap<>();
-        lowerRefBounds = new HashMap<>();
-        upperRefBounds = new HashMap<>();
-        variable2TypeVariable = new HashMap<>();
-        typeVariable2Variables = new HashMap<>();
-        appliedOverloads = new HashMap<>();
-        typeVariable2BoundTypes = new HashMap<>();
-        typeVariablesWithLowerConvertible = new HashMap<>();
-        typeVariablesWithUpperConvertible = new HashMap<>();
+        //ids and names are immutable, hence no value copier required
+        typeVariable2Id = new CopyOnWriteMap<>(null);
+        id2TypeVariable = new CopyOnWriteIntMap<>(null);
+        lowerTypeBounds = new CopyOnWriteIntMap<>(new LowerTypeBoundCopier());
+        upperTypeBounds = new CopyOnWriteIntMap<>(new UpperTypeBoundCopier());
+        lowerRefBounds = new CopyOnWriteIntMap<>(TYPE_VARIABLE_SET_COPIER);
+        upperRefBounds = new CopyOnWriteIntMap<>(TYPE_VARIABLE_SET_COPIER);
+        variable2TypeVariable = new CopyOnWriteMap<>(REFERENCE_COPIER);
+        variable2Id = new CopyOnWriteMap<>(null);
+        mergedInto = new CopyOnWriteIntMap<>(null);
+        typeVariable2Variables = new CopyOnWriteIntMap<>(new SetCopier<String>());
+        //OverloadApplicationDto are never modified, hence no value copier required
+        appliedOverloads = new CopyOnWriteMap<>(null);
+        typeVariable2BoundTypes = new CopyOnWriteIntMap<>(new SetCopier<IParametricType>());
+        typeVariablesWithLowerConvertible = new CopyOnWriteIntMap<>(new SetCopier<Integer>());
+        typeVariablesWithUpperConvertible = new CopyOnWriteIntMap<>(new SetCopier<Integer>());
+        dirtyTypeVariables = new CopyOnWriteIntMap<>(null);
     }
 
+    /**
+     * Creates a copy of the given bindings which shares its state with the given bindings until one of them modifies
+     * it (copy-on-write).
+     * <p/>
+     * Only type bounds which are not yet fixed are copied eagerly since they might contain parametric polymorphic
+     * types which need to be bound to the new binding collection.
+     */
     public BindingCollection(BindingCollection bindings) {
         symbolFactory = bindings.symbolFactory;
         typeHelper = bindings.typeHelper;
@@ -95,85 +154,139 @@ public class BindingCollection implements IBindingCollection
         count = bindings.count;
         helperVariableCount = bindings.helperVariableCount;
         numberOfConvertibleApplications = bindings.numberOfConvertibleApplications;
+        nextTypeVariableId = bindings.nextTypeVariableId;
         mode = bindings.mode;
-
-        //type variables need to be copied first since a lower or upper type bound might contain a parametric
-        // polymorphic type which is bound to one of the type variables
-        variable2TypeVariable = new HashMap<>(bindings.variable2TypeVariable.size());
-        typeVariable2Variables = new HashMap<>(bindings.typeVariable2Variables.size());
-        copyVariablesAndTypeVariables(bindings);
-
-        lowerTypeBounds = new HashMap<>(bindings.lowerTypeBounds.size());
-        upperTypeBounds = new HashMap<>(bindings.upperTypeBounds.size());
-        lowerRefBounds = new HashMap<>(bindings.lowerRefBounds.size());
-        upperRefBounds = new HashMap<>(bindings.upperRefBounds.size());
-        typeVariable2BoundTypes = new HashMap<>(bindings.typeVariable2BoundTypes.size());
-        typeVariablesWithUpperConvertible = new HashMap<>(bindings.typeVariablesWithUpperConvertible.size());
-        typeVariablesWithLowerConvertible = new HashMap<>(bindings.typeVariablesWithLowerConvertible.size());
+        //a copy gets the same budget but starts without propagation steps, see SolvingBudget
+        budget = bindings.budget;
+
+        typeVariable2Id = bindings.typeVariable2Id.fork();
+        id2TypeVariable = bindings.id2TypeVariable.fork();
+        variable2TypeVariable = bindings.variable2TypeVariable.fork();
+        variable2Id = bindings.variable2Id.fork();
+        mergedInto = bindings.mergedInto.fork();
+        typeVariable2Variables = bindings.typeVariable2Variables.fork();
+        lowerRefBounds = bindings.lowerRefBounds.fork();
+        upperRefBounds = bindings.upperRefBounds.fork();
+        appliedOverloads = bindings.appliedOverloads.fork();
+
+        lowerTypeBounds = bindings.lowerTypeBounds.fork(new LowerTypeBoundCopier());
+        upperTypeBounds = bindings.upperTypeBounds.fork(new UpperTypeBoundCopier());
+        typeVariable2BoundTypes = new CopyOnWriteIntMap<>(new SetCopier<IParametricType>());
+        typeVariablesWithLowerConvertible = new CopyOnWriteIntMap<>(new SetCopier<Integer>());
+        typeVariablesWithUpperConvertible = new CopyOnWriteIntMap<>(new SetCopier<Integer>());
+        dirtyTypeVariables = bindings.dirtyTypeVariables.fork();
         Set<IParametricTypeSymbol> rebindParametricTypeSymbols = new HashSet<>();
-        copyBounds(bindings, rebindParametricTypeSymbols);
-
-        appliedOverloads = new HashMap<>(bindings.appliedOverloads);
+        copyNonFixedBounds(bindings, rebindParametricTypeSymbols);
 
         //rebound parametric polymorphic types
         for (IParametricTypeSymbol parametricTypeSymbol : rebindParametricTypeSymbols) {
             parametricTypeSymbol.rebind(this);
         }
-
     }
 
-    private void copyVariablesAndTypeVariables(BindingCollection bindings) {
-        for (Map.Entry<String, ITypeVariableReference> entry : bindings.variable2TypeVariable.entrySet()) {
-            ITypeVariableReference reference = entry.getValue();
-            TypeVariableReference typeVariableReference = new TypeVariableReference(reference.getTypeVariable());
-            ITypeVariableReference copy = typeVariableReference;
-            if (reference.hasFixedType()) {
-                copy = new FixedTypeVariableReference(typeVariableReference);
+    private void copyNonFixedBounds(
+            BindingCollection bindings, Set<IParametricTypeSymbol> rebindParametricTypeSymbols) {
+        int capacity = bindings.lowerTypeBounds.capacity();
+        for (int lowerTypeVariable = 0; lowerTypeVariable < capacity; ++lowerTypeVariable) {
+            IUnionTypeSymbol lowerTypeBound = bindings.lowerTypeBounds.get(lowerTypeVariable);
+            if (lowerTypeBound != null && !lowerTypeBound.isFixed()) {
+                Collection<IParametricTypeSymbol> parametricTypeSymbols = new ArrayDeque<>();
+                IUnionTypeSymbol copy = lowerTypeBound.copy(parametricTypeSymbols);
+                for (IParametricTypeSymbol parametricTypeSymbol : parametricTypeSymbols) {
+                    for (String typeParameter : parametricTypeSymbol.getTypeParameters()) {
+                        Integer typeVariable = typeVariable2Id.get(typeParameter);
+                        if (typeVariable != null) {
+                            addToSetInMap(typeVariable2BoundTypes, typeVariable, parametricTypeSymbol);
+                            addToSetInMap(typeVariablesWithLowerConvertible, lowerTypeVariable, typeVariable);
+                        }
+                    }
+                    rebindParametricTypeSymbols.add(parametricTypeSymbol);
+                }
+                lowerTypeBounds.put(lowerTypeVariable, copy);
+            }
+        }
+
+        capacity = bindings.upperTypeBounds.capacity();
+        for (int upperTypeVariable = 0; upperTypeVariable < capacity; ++upperTypeVariable) {
+            IIntersectionTypeSymbol upperTypeBound = bindings.upperTypeBounds.get(upperTypeVariable);
+            if (upperTypeBound != null && !upperTypeBound.isFixed()) {
+                Collection<IParametricTypeSymbol> parametricTypeSymbols = new ArrayDeque<>();
+                IIntersectionTypeSymbol copy = upperTypeBound.copy(parametricTypeSymbols);
+                for (IParametricTypeSymbol parametricTypeSymbol : parametricTypeSymbols) {
+                    for (String typeParameter : parametricTypeSymbol.getTypeParameters()) {
+                        Integer typeVariable = typeVariable2Id.get(typeParameter);
+                        if (typeVariable != null) {
+                            addToSetInMap(typeVariable2BoundTypes, typeVariable, parametricTypeSymbol);
+                            addToSetInMap(typeVariablesWithUpperConvertible, upperTypeVariable, typeVariable);
+                        }
+                    }
+                    rebindParametricTypeSymbols.add(parametricTypeSymbol);
+                }
+                upperTypeBounds.put(upperTypeVariable, copy);
             }
-            variable2TypeVariable.put(entry.getKey(), copy);
         }
+    }
 
-        for (Map.Entry<String, Set<String>> entry : bindings.typeVariable2Variables.entrySet()) {
-            typeVariable2Variables.put(entry.getKey(), new HashSet<>(entry.getValue()));
+    private static <T> void addToSetInMap(CopyOnWriteIntMap<Set<T>> map, int key, T value) {
+        Set<T> set = map.get(key);
+        if (set == null) {
+            set = new HashSet<>();
+            set.add(value);
+            map.put(key, set);
+        } else if (!set.contains(value)) {
+            map.getForWrite(key).add(value);
         }
     }
 
-    private void copyBounds(
-            BindingCollection bindings, Set<IParametricTypeSymbol> rebindParametricTypeSymbols) {
-        for (Map.Entry<String, IUnionTypeSymbol> entry : bindings.lowerTypeBounds.entrySet()) {
-            Collection<IParametricTypeSymbol> parametricTypeSymbols = new ArrayDeque<>();
-            IUnionTypeSymbol copy = entry.getValue().copy(parametricTypeSymbols);
-            String lowerTypeVariable = entry.getKey();
-            for (IParametricTypeSymbol parametricTypeSymbol : parametricTypeSymbols) {
-                for (String typeVariable : parametricTypeSymbol.getTypeParameters()) {
-                    MapHelper.addToSetInMap(typeVariable2BoundTypes, typeVariable, parametricTypeSymbol);
-                    MapHelper.addToSetInMap(typeVariablesWithLowerConvertible, lowerTypeVariable, typeVariable);
-                }
-                rebindParametricTypeSymbols.add(parametricTypeSymbol);
-            }
-            lowerTypeBounds.put(lowerTypeVariable, copy);
+    private static <T> void removeFromSetInMap(CopyOnWriteIntMap<Set<T>> map, int key, T value) {
+        Set<T> set = map.get(key);
+        if (set != null && set.contains(value)) {
+            map.getForWrite(key).remove(value);
+        }
+    }
+
+    private static void addToRefBounds(CopyOnWriteIntMap<TypeVariableSet> refBounds, int key, int typeVariable) {
+        TypeVariableSet set = refBounds.get(key);
+        if (set == null) {
+            set = new TypeVariableSet();
+            set.add(typeVariable);
+            refBounds.put(key, set);
+        } else if (!set.contains(typeVariable)) {
+            refBounds.getForWrite(key).add(typeVariable);
         }
+    }
 
-        for (Map.Entry<String, IIntersectionTypeSymbol> entry : bindings.upperTypeBounds.entrySet()) {
-            Collection<IParametricTypeSymbol> parametricTypeSymbols = new ArrayDeque<>();
-            IIntersectionTypeSymbol copy = entry.getValue().copy(parametricTypeSymbols);
-            String upperTypeVariable = entry.getKey();
-            for (IParametricTypeSymbol parametricTypeSymbol : parametricTypeSymbols) {
-                for (String typeVariable : parametricTypeSymbol.getTypeParameters()) {
-                    MapHelper.addToSetInMap(typeVariable2BoundTypes, typeVariable, parametricTypeSymbol);
-                    MapHelper.addToSetInMap(typeVariablesWithUpperConvertible, upperTypeVariable, typeVariable);
-                }
-                rebindParametricTypeSymbols.add(parametricTypeSymbol);
-            }
-            upperTypeBounds.put(upperTypeVariable, copy);
+    private static void removeFromRefBounds(CopyOnWriteIntMap<TypeVariableSet> refBounds, int key, int typeVariable) {
+        TypeVariableSet set = refBounds.get(key);
+        if (set != null && set.contains(typeVariable)) {
+            refBounds.getForWrite(key).remove(typeVariable);
         }
+    }
+
+    /**
+     * Returns the id of the given type variable or null if it does not exist in this binding collection.
+     */
+    private Integer getId(String typeVariable) {
+        return typeVariable2Id.get(typeVariable);
+    }
+
+    private String getName(int typeVariable) {
+        return id2TypeVariable.get(typeVariable);
+    }
 
-        for (Map.Entry<String, Set<String>> entry : bindings.lowerRefBounds.entrySet()) {
-            lowerRefBounds.put(entry.getKey(), new HashSet<>(entry.getValue()));
+    private int getOrCreateId(String typeVariable) {
+        Integer id = typeVariable2Id.get(typeVariable);
+        if (id == null) {
+            id = nextTypeVariableId++;
+            typeVariable2Id.put(typeVariable, id);
+            id2TypeVariable.put(id, typeVariable);
         }
+        return id;
+    }
 
-        for (Map.Entry<String, Set<String>> entry : bindings.upperRefBounds.entrySet()) {
-            upperRefBounds.put(entry.getKey(), new HashSet<>(entry.getValue()));
+    private void checkTypeVariableExists(String typeVariable) {
+        if (!typeVariable2Id.containsKey(typeVariable)) {
+            throw new IllegalArgumentException("no variable has a binding for type variable \"" + typeVariable + "\".");
         }
     }
 
@@ -196,7 +309,39 @@ public class BindingCollection implements IBindingCollection
                     "variable with id " + variableId + " was already added to this binding.");
         }
         variable2TypeVariable.put(variableId, reference);
-        MapHelper.addToSetInMap(typeVariable2Variables, reference.getTypeVariable(), variableId);
+        int typeVariable = getOrCreateId(reference.getTypeVariable());
+        variable2Id.put(variableId, typeVariable);
+        addToSetInMap(typeVariable2Variables, typeVariable, variableId);
+    }
+
+    /**
+     * Returns the representative of the given type variable, i.e. the type variable it was merged into (directly or
+     * transitively) or the given type variable itself if it was not merged.
+     */
+    private int find(int typeVariable) {
+        //no path compression since this is a read only operation which might be performed by several threads
+        //concurrently (e.g. when several overloads are explored based on the same binding collection)
+        int representative = typeVariable;
+        Integer parent = mergedInto.get(representative);
+        while (parent != null) {
+            representative = parent;
+            parent = mergedInto.get(representative);
+        }
+        return representative;
+    }
+
+    private int getVariableTypeVariable(String variableId) {
+        return find(variable2Id.get(variableId));
+    }
+
+    private ITypeVariableReference getReference(String variableId) {
+        return variable2TypeVariable.get(variableId);
+    }
+
+    private void setTypeVariableOfReferences(Set<String> variableIds, String typeVariable) {
+        for (String variableId : variableIds) {
+            variable2TypeVariable.getForWrite(variableId).setTypeVariable(typeVariable);
+        }
     }
 
     @Override
@@ -206,7 +351,7 @@ public class BindingCollection implements IBindingCollection
 
     @Override
     public boolean containsTypeVariable(String typeVariable) {
-        return typeVariable2Variables.containsKey(typeVariable);
+        return typeVariable2Id.containsKey(typeVariable);
     }
 
     @Override
@@ -214,57 +359,73 @@ public class BindingCollection implements IBindingCollection
         return variable2TypeVariable.keySet();
     }
 
+    /**
+     * Returns the names of all type variables of this binding collection (type variables which were merged into
+     * another type variable are not included).
+     */
+    Set<String> getTypeVariables() {
+        return typeVariable2Id.keySet();
+    }
+
     @Override
     public Set<String> getVariableIds(String typeVariable) {
-        return typeVariable2Variables.get(typeVariable);
+        Integer id = getId(typeVariable);
+        return id != null ? typeVariable2Variables.get(id) : null;
     }
 
     @Override
     public ITypeVariableReference getTypeVariableReference(String variableId) {
-        return variable2TypeVariable.get(variableId);
+        return getReference(variableId);
     }
 
     @Override
     public String getTypeVariable(String variableId) {
-        return variable2TypeVariable.get(variableId).getTypeVariable();
+        return getReference(variableId).getTypeVariable();
     }
 
     @Override
     public BoundResultDto addLowerRefBound(String typeVariable, ITypeVariableReference reference) {
-        if (!typeVariable2Variables.containsKey(typeVariable)) {
-            throw new IllegalArgumentException("no variable has a binding for type variable \"" + typeVariable + "\".");
-        }
+        BoundResultDto dto = new BoundResultDto();
+        addLowerRefBound(typeVariable, reference, dto);
+        return dto;
+    }
 
+    /**
+     * Same as {@link #addLowerRefBound(String, ITypeVariableReference)} but writes the result into the given dto
+     * instead of creating a new one, all fields of the given dto are overwritten.
+     */
+    public void addLowerRefBound(String typeVariable, ITypeVariableReference reference, BoundResultDto result) {
+        checkTypeVariableExists(typeVariable);
         String refTypeVariable = reference.getTypeVariable();
-
-        if (!typeVariable2Variables.containsKey(refTypeVariable)) {
-            throw new IllegalArgumentException(
-                    "no variable has a binding for type variable \"" + refTypeVariable + "\".");
-        }
+        checkTypeVariableExists(refTypeVariable);
 
         boolean hasNotFixedType = !reference.hasFixedType();
-        return addLowerRefBound(typeVariable, refTypeVariable, hasNotFixedType);
+        addLowerRefBound(getId(typeVariable), getId(refTypeVariable), hasNotFixedType, result);
     }
 
-    private BoundResultDto addLowerRefBound(String typeVariable, String refTypeVariable, boolean hasNotFixedType) {
-        BoundResultDto dto = new BoundResultDto();
+    private void addLowerRefBound(
+            int typeVariable, int refTypeVariable, boolean hasNotFixedType, BoundResultDto dto) {
+        resetBoundResult(dto);
 
         // no need to actually add the dependency if it has a fixed type (then it is enough that we transfer the
         // type bounds)
         if (hasNotFixedType || mode == EBindingCollectionMode.SoftTyping) {
             dto.hasChanged = !lowerRefBounds.containsKey(typeVariable);
             if (!dto.hasChanged) {
-                Set<String> set = lowerRefBounds.get(typeVariable);
-                if (!set.contains(refTypeVariable)) {
+                if (!lowerRefBounds.get(typeVariable).contains(refTypeVariable)) {
                     dto.hasChanged = true;
-                    set.add(refTypeVariable);
+                    lowerRefBounds.getForWrite(typeVariable).add(refTypeVariable);
                 }
             } else {
-                Set<String> set = new HashSet<>();
+                TypeVariableSet set = new TypeVariableSet();
                 set.add(refTypeVariable);
                 lowerRefBounds.put(typeVariable, set);
             }
-            MapHelper.addToSetInMap(upperRefBounds, refTypeVariable, typeVariable);
+            addToRefBounds(upperRefBounds, refTypeVariable, typeVariable);
+            if (dto.hasChanged) {
+                markAsDirty(typeVariable);
+                markAsDirty(refTypeVariable);
+            }
         }
 
         if (isNotSelfReference(typeVariable, refTypeVariable)) {
@@ -272,7 +433,8 @@ public class BindingCollection implements IBindingCollection
             // The refTypeVariable needs to be the same or a subtype of typeVariable or we can narrow bounds in order
             // that this property holds.
 
-            BoundResultDto result;
+            //the results of the propagated type bounds are only needed if there are type bounds to propagate
+            BoundResultDto result = null;
 
             // First, the upper bound of refTypeVariable needs to be same or a subtype of typeVariable's upper bound in
             // order that we can use the refTypeVariable instead of typeVariable in a function call. Hence we add the
@@ -280,7 +442,8 @@ public class BindingCollection implements IBindingCollection
             // or a subtype, then either the newly added upper bound will specialise the upper bound of the
             // refTypeVariable or will lead to a BoundException. ...
             if (hasUpperTypeBounds(typeVariable)) {
-                result = addUpperTypeBoundAfterContainsCheck(refTypeVariable, upperTypeBounds.get(typeVariable));
+                result = new BoundResultDto();
+                addUpperTypeBoundAfterContainsCheck(refTypeVariable, upperTypeBounds.get(typeVariable), true, result);
                 transferBoundResultsFromTo(result, dto);
             }
 
@@ -293,12 +456,13 @@ public class BindingCollection implements IBindingCollection
             // it is beneficial to propagate the lower bound upwards since we need to check later on,
             // if variables have the same lower bound as parameters and thus can be unified.
             if (hasLowerTypeBounds(refTypeVariable)) {
-                result = addLowerTypeBoundAfterContainsCheck(typeVariable, lowerTypeBounds.get(refTypeVariable));
+                if (result == null) {
+                    result = new BoundResultDto();
+                }
+                addLowerTypeBoundAfterContainsCheck(typeVariable, lowerTypeBounds.get(refTypeVariable), result);
                 transferBoundResultsFromTo(result, dto);
             }
         }
-
-        return dto;
     }
 
     private void transferBoundResultsFromTo(BoundResultDto from, BoundResultDto to) {
@@ -338,26 +502,148 @@ public class BindingCollection implements IBindingCollection
         }
     }
 
-    private boolean isNotSelfReference(String typeVariable, String refTypeVariable) {
-        return !typeVariable.equals(refTypeVariable);
+    private boolean isNotSelfReference(int typeVariable, int refTypeVariable) {
+        return typeVariable != refTypeVariable;
     }
 
     @Override
     public BoundResultDto addLowerTypeBound(String typeVariable, ITypeSymbol typeSymbol) {
-        if (!typeVariable2Variables.containsKey(typeVariable)) {
-            throw new IllegalArgumentException("no variable has a binding for type variable \"" + typeVariable + "\".");
+        BoundResultDto dto = new BoundResultDto();
+        addLowerTypeBound(typeVariable, typeSymbol, dto);
+        return dto;
+    }
+
+    /**
+     * Same as {@link #addLowerTypeBound(String, ITypeSymbol)} but writes the result into the given dto instead of
+     * creating a new one, all fields of the given dto are overwritten.
+     * <p/>
+     * Most bound additions during the inference do not change anything, callers which add many bounds can hence
+     * reuse the same dto.
+     */
+    public void addLowerTypeBound(String typeVariable, ITypeSymbol typeSymbol, BoundResultDto result) {
+        checkTypeVariableExists(typeVariable);
+        addLowerTypeBoundAfterContainsCheck(getId(typeVariable), typeSymbol, result);
+    }
+
+    private void addLowerTypeBoundAfterContainsCheck(int typeVariable, ITypeSymbol typeSymbol, BoundResultDto dto) {
+        // the bound is propagated to the upper refs via a worklist instead of recursion in order that long chains
+        // of refs do not lead to deep stacks and the same (type variable, bound) pair is not propagated twice.
+        // The worklist is only created if there is something to propagate
+        BoundWorklist worklist = addLowerTypeBoundWithoutPropagation(typeVariable, typeSymbol, null, dto);
+        if (worklist != null) {
+            propagateLowerTypeBounds(worklist);
         }
+    }
+
+    //Warning! start code duplication - very similar to propagateUpperTypeBounds
+    private void propagateLowerTypeBounds(BoundWorklist worklist) {
+        //only the results of the given type variables are reported, the propagated ones share a scratch dto
+        BoundResultDto propagationResult = null;
+        while (!worklist.isEmpty()) {
+            if (propagationResult == null) {
+                propagationResult = new BoundResultDto();
+            }
+            BoundWorklist.PendingBound pendingBound = worklist.poll();
+            if (consumePropagationStep()) {
+                addLowerTypeBoundWithoutPropagation(
+                        pendingBound.typeVariable, pendingBound.typeSymbol, worklist, propagationResult);
+            } else {
+                widenLowerTypeBoundsToMixed(pendingBound.typeVariable);
+            }
+        }
+    }
+    //Warning! end code duplication - very similar to propagateUpperTypeBounds
+
+    /**
+     * Adds all given lower type bounds at once, the types of the same type variable are combined into one union type
+     * beforehand. Hence the bounds of each type variable are checked once and propagated once along the ref bounds.
+     *
+     * @return The results per type variable in the order the type variables were given first.
+     */
+    public Map<String, BoundResultDto> addLowerTypeBounds(Collection<Pair<String, ITypeSymbol>> bounds) {
+        //Warning! start code duplication - very similar to addUpperTypeBounds
+        Map<Integer, ITypeSymbol> combinedBounds = combineBounds(bounds, true);
+        Map<String, BoundResultDto> results = new LinkedHashMap<>(combinedBounds.size());
+        BoundWorklist worklist = new BoundWorklist();
+        for (Map.Entry<Integer, ITypeSymbol> entry : combinedBounds.entrySet()) {
+            worklist.add(entry.getKey(), entry.getValue());
+        }
+        for (int i = combinedBounds.size(); i > 0; --i) {
+            BoundWorklist.PendingBound pendingBound = worklist.poll();
+            BoundResultDto dto = new BoundResultDto();
+            addLowerTypeBoundWithoutPropagation(pendingBound.typeVariable, pendingBound.typeSymbol, worklist, dto);
+            results.put(getName(pendingBound.typeVariable), dto);
+        }
+        propagateLowerTypeBounds(worklist);
+        //Warning! end code duplication - very similar to addUpperTypeBounds
+        return results;
+    }
 
-        return addLowerTypeBoundAfterContainsCheck(typeVariable, typeSymbol);
+    /**
+     * Same as {@link #addLowerTypeBounds(Collection)} but for upper type bounds, the types of the same type variable
+     * are combined into one intersection type.
+     */
+    public Map<String, BoundResultDto> addUpperTypeBounds(Collection<Pair<String, ITypeSymbol>> bounds) {
+        //Warning! start code duplication - very similar to addLowerTypeBounds
+        Map<Integer, ITypeSymbol> combinedBounds = combineBounds(bounds, false);
+        Map<String, BoundResultDto> results = new LinkedHashMap<>(combinedBounds.size());
+        BoundWorklist worklist = new BoundWorklist();
+        for (Map.Entry<Integer, ITypeSymbol> entry : combinedBounds.entrySet()) {
+            worklist.add(entry.getKey(), entry.getValue());
+        }
+        for (int i = combinedBounds.size(); i > 0; --i) {
+            BoundWorklist.PendingBound pendingBound = worklist.poll();
+            BoundResultDto dto = new BoundResultDto();
+            addUpperTypeBoundWithoutPropagation(
+                    pendingBound.typeVariable, pendingBound.typeSymbol, true, worklist, dto);
+            results.put(getName(pendingBound.typeVariable), dto);
+        }
+        propagateUpperTypeBounds(worklist);
+        //Warning! end code duplication - very similar to addLowerTypeBounds
+        return results;
+    }
+
+    private Map<Integer, ITypeSymbol> combineBounds(Collection<Pair<String, ITypeSymbol>> bounds, boolean isLower) {
+        Map<Integer, ITypeSymbol> combinedBounds = new LinkedHashMap<>();
+        for (Pair<String, ITypeSymbol> bound : bounds) {
+            checkTypeVariableExists(bound.first);
+            int typeVariable = getId(bound.first);
+            ITypeSymbol combinedBound = combinedBounds.get(typeVariable);
+            if (combinedBound == null) {
+                //a single type is not wrapped, hence it behaves exactly as addLower/UpperTypeBound
+                combinedBounds.put(typeVariable, bound.second);
+            } else {
+                IContainerTypeSymbol containerTypeSymbol = isLower
+                        ? symbolFactory.createUnionTypeSymbol()
+                        : symbolFactory.createIntersectionTypeSymbol();
+                containerTypeSymbol.addTypeSymbol(combinedBound);
+                containerTypeSymbol.addTypeSymbol(bound.second);
+                combinedBounds.put(typeVariable, containerTypeSymbol);
+            }
+        }
+        return combinedBounds;
     }
 
-    private BoundResultDto addLowerTypeBoundAfterContainsCheck(String typeVariable, ITypeSymbol typeSymbol) {
+    /**
+     * Adds the given type to the lower type bound of the given type variable and adds the upper refs to the given
+     * worklist if the lower type bound changed. The result is written into the given dto.
+     *
+     * @param worklist The worklist to which the upper refs are added, a new one is created if null is passed and
+     *                 there is something to propagate.
+     * @return The given or newly created worklist, null if null was passed and there is nothing to propagate.
+     */
+    private BoundWorklist addLowerTypeBoundWithoutPropagation(
+            int typeVariable, ITypeSymbol typeSymbol, BoundWorklist worklist, BoundResultDto dto) {
+        resetBoundResult(dto);
+
         //no need to proceed if the same type is added
         if (hasLowerTypeBounds(typeVariable) && typeHelper.areSame(lowerTypeBounds.get(typeVariable), typeSymbol)) {
-            return new BoundResultDto();
+            return worklist;
         }
 
-        BoundResultDto dto = checkUpperTypeBounds(typeVariable, typeSymbol);
+        BoundWorklist resultWorklist = worklist;
+
+        checkUpperTypeBounds(typeVariable, typeSymbol, dto);
         boolean hasChanged = false;
 
         ITypeSymbol newTypeSymbol = checkForAndRegisterOrDeleteConvertibleType(
@@ -370,23 +656,104 @@ public class BindingCollection implements IBindingCollection
                 narrowUpperTypeBound(typeVariable, dto.implicitConversionProvider);
             }
 
+            ITypeSymbol propagatedTypeSymbol = typeSymbol;
+            if (hasChanged && isMaxUnionSizeExceeded(typeVariable)) {
+                widenLowerTypeBoundToMixed(typeVariable);
+                propagatedTypeSymbol = mixedTypeSymbol;
+            }
+
             if (hasChanged && hasUpperRefBounds(typeVariable)) {
-                for (String refTypeVariable : upperRefBounds.get(typeVariable)) {
-                    addLowerTypeBoundAfterContainsCheck(refTypeVariable, typeSymbol);
+                if (resultWorklist == null) {
+                    resultWorklist = new BoundWorklist(typeVariable, typeSymbol);
+                }
+                for (int refTypeVariable : upperRefBounds.get(typeVariable)) {
+                    resultWorklist.add(refTypeVariable, propagatedTypeSymbol);
                 }
             }
         }
 
         dto.hasChanged = hasChanged;
-        return dto;
+        return resultWorklist;
+    }
+
+    /**
+     * Counts a propagation step against the budget.
+     *
+     * @return true if the step is within the budget, false if it is not and lower type bounds shall be widened
+     * instead.
+     */
+    private boolean consumePropagationStep() {
+        boolean isWithinBudget = propagationSteps < budget.getMaxPropagationSteps();
+        if (isWithinBudget) {
+            ++propagationSteps;
+        } else if (!budget.shallWidenToMixed()) {
+            throw new BudgetExceededException("exceeded the maximum number of propagation steps ("
+                    + budget.getMaxPropagationSteps() + ")");
+        }
+        return isWithinBudget;
+    }
+
+    private boolean isMaxUnionSizeExceeded(int typeVariable) {
+        return lowerTypeBounds.get(typeVariable).getTypeSymbols().size() > budget.getMaxUnionSize();
+    }
+
+    /**
+     * Widens the lower type bound of the given type variable and of all type variables which have it as direct or
+     * transitive lower ref bound to mixed, without further consulting the budget.
+     */
+    private void widenLowerTypeBoundsToMixed(int typeVariable) {
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        toVisit.add(typeVariable);
+        while (!toVisit.isEmpty()) {
+            int widenTypeVariable = toVisit.poll();
+            boolean isAlreadyMixed = hasLowerTypeBounds(widenTypeVariable)
+                    && typeHelper.areSame(lowerTypeBounds.get(widenTypeVariable), mixedTypeSymbol);
+            if (!isAlreadyMixed) {
+                widenLowerTypeBoundToMixed(widenTypeVariable);
+                if (hasUpperRefBounds(widenTypeVariable)) {
+                    toVisit.addAll(upperRefBounds.get(widenTypeVariable));
+                }
+            }
+        }
+    }
+
+    private void widenLowerTypeBoundToMixed(int typeVariable) {
+        String typeVariableName = getName(typeVariable);
+        if (!budget.shallWidenToMixed()) {
+            throw new BudgetExceededException("the lower type bound of " + typeVariableName + " exceeded the "
+                    + "maximum union size (" + budget.getMaxUnionSize() + ")");
+        }
+        if (hasUpperTypeBounds(typeVariable)) {
+            IIntersectionTypeSymbol upperTypeBound = upperTypeBounds.get(typeVariable);
+            TypeHelperDto dto = typeHelper.isFirstSameOrSubTypeOfSecond(mixedTypeSymbol, upperTypeBound, false);
+            if (dto.relation == ERelation.HAS_NO_RELATION) {
+                throw new BudgetExceededException("exceeded the budget but cannot widen the lower type bound of "
+                        + typeVariableName + " to mixed since its upper type bound is "
+                        + upperTypeBound.getAbsoluteName());
+            }
+        }
+        IUnionTypeSymbol unionTypeSymbol = symbolFactory.createUnionTypeSymbol();
+        unionTypeSymbol.addTypeSymbol(mixedTypeSymbol);
+        lowerTypeBounds.put(typeVariable, unionTypeSymbol);
+        markAsDirty(typeVariable);
+    }
+
+    private static void resetBoundResult(BoundResultDto dto) {
+        dto.hasChanged = false;
+        dto.hasChangedOtherBounds = false;
+        dto.usedImplicitConversion = false;
+        dto.implicitConversionProvider = null;
+        dto.lowerConstraints = null;
+        dto.upperConstraints = null;
     }
 
-    private void narrowUpperTypeBound(String typeVariable, ITypeSymbol implicitConversionProvider) {
+    private void narrowUpperTypeBound(int typeVariable, ITypeSymbol implicitConversionProvider) {
         IIntersectionTypeSymbol currentUpperTypeBounds = upperTypeBounds.remove(typeVariable);
-        addUpperTypeBoundAfterContainsCheck(typeVariable, implicitConversionProvider, false);
+        BoundResultDto result = new BoundResultDto();
+        addUpperTypeBoundAfterContainsCheck(typeVariable, implicitConversionProvider, false, result);
         for (ITypeSymbol upperTypeBound : currentUpperTypeBounds.getTypeSymbols().values()) {
             try {
-                addUpperTypeBoundAfterContainsCheck(typeVariable, upperTypeBound, false);
+                addUpperTypeBoundAfterContainsCheck(typeVariable, upperTypeBound, false, result);
             } catch (IntersectionBoundException ex) {
                 //that is fine, must be the type which required the implicit conversion,
                 // we do not want to add it as upper bound (we narrow now)
@@ -394,24 +761,25 @@ public class BindingCollection implements IBindingCollection
         }
 
         if (hasLowerRefBounds(typeVariable)) {
-            for (String refTypeVariable : lowerRefBounds.get(typeVariable)) {
+            for (int refTypeVariable : lowerRefBounds.get(typeVariable)) {
                 narrowUpperTypeBound(refTypeVariable, implicitConversionProvider);
             }
         }
     }
 
     //Warning! start code duplication - very similar to checkLowerTypeBounds
-    private BoundResultDto checkUpperTypeBounds(String typeVariable, ITypeSymbol newLowerType) {
-        BoundResultDto resultDto = new BoundResultDto();
+    private void checkUpperTypeBounds(int typeVariable, ITypeSymbol newLowerType, BoundResultDto resultDto) {
 
         if (hasUpperTypeBounds(typeVariable)) {
+            String typeVariableName = getName(typeVariable);
             IIntersectionTypeSymbol upperTypeSymbol = upperTypeBounds.get(typeVariable);
-            TypeHelperDto dto = typeHelper.isFirstSameOrSubTypeOfSecond(newLowerType, upperTypeSymbol, typeVariable);
+            TypeHelperDto dto = typeHelper.isFirstSameOrSubTypeOfSecond(
+                    newLowerType, upperTypeSymbol, typeVariableName);
             switch (dto.relation) {
                 case HAS_COERCIVE_RELATION:
                     resultDto.usedImplicitConversion = true;
-                    if (dto.upperConstraints.containsKey(typeVariable)) {
-                        Set<ITypeSymbol> remove = dto.upperConstraints.remove(typeVariable);
+                    if (dto.upperConstraints.containsKey(typeVariableName)) {
+                        Set<ITypeSymbol> remove = dto.upperConstraints.remove(typeVariableName);
                         if (remove.size() == 1) {
                             resultDto.implicitConversionProvider = remove.iterator().next();
                         } else {
@@ -429,7 +797,6 @@ public class BindingCollection implements IBindingCollection
 
             transferBoundConstraints(resultDto, dto.lowerConstraints, dto.upperConstraints);
         }
-        return resultDto;
     }
     //Warning! end code duplication - very similar to checkLowerTypeBounds
 
@@ -441,7 +808,9 @@ public class BindingCollection implements IBindingCollection
      * removing self references)
      */
     private ITypeSymbol checkForAndRegisterOrDeleteConvertibleType(
-            String typeVariable, ITypeSymbol typeSymbol, Map<String, Set<String>> typeVariablesWithConvertible) {
+            int typeVariable,
+            ITypeSymbol typeSymbol,
+            CopyOnWriteIntMap<Set<Integer>> typeVariablesWithConvertible) {
         ITypeSymbol nonSelfRefType = null;
         if (typeSymbol instanceof IContainerTypeSymbol) {
             IContainerTypeSymbol containerTypeSymbol = (IContainerTypeSymbol) typeSymbol;
@@ -481,10 +850,13 @@ public class BindingCollection implements IBindingCollection
         } else if (typeSymbol instanceof IConvertibleTypeSymbol) {
             IConvertibleTypeSymbol convertibleTypeSymbol = (IConvertibleTypeSymbol) typeSymbol;
             if (convertibleTypeSymbol.getBindingCollection() == this) {
-                String convertibleTypeVariable = convertibleTypeSymbol.getTypeVariable();
-                if (typeVariablesWithConvertible != null && !convertibleTypeVariable.equals(typeVariable)) {
+                Integer convertibleTypeVariable = getId(convertibleTypeSymbol.getTypeVariable());
+                boolean isSelfRef = convertibleTypeVariable != null && convertibleTypeVariable == typeVariable;
+                if (typeVariablesWithConvertible != null && !isSelfRef) {
                     nonSelfRefType = typeSymbol;
-                    MapHelper.addToSetInMap(typeVariablesWithConvertible, typeVariable, convertibleTypeVariable);
+                    if (convertibleTypeVariable != null) {
+                        addToSetInMap(typeVariablesWithConvertible, typeVariable, convertibleTypeVariable);
+                    }
                 }
             } else {
                 nonSelfRefType = typeSymbol;
@@ -495,60 +867,136 @@ public class BindingCollection implements IBindingCollection
         return nonSelfRefType;
     }
 
-    private boolean addToLowerUnionTypeSymbol(String typeVariable, ITypeSymbol typeSymbol) {
+    private boolean addToLowerUnionTypeSymbol(int typeVariable, ITypeSymbol typeSymbol) {
         boolean hasChanged;
         if (hasLowerTypeBounds(typeVariable)) {
-            hasChanged = lowerTypeBounds.get(typeVariable).addTypeSymbol(typeSymbol);
+            hasChanged = lowerTypeBounds.getForWrite(typeVariable).addTypeSymbol(typeSymbol);
         } else {
             IUnionTypeSymbol unionTypeSymbol = symbolFactory.createUnionTypeSymbol();
             hasChanged = unionTypeSymbol.addTypeSymbol(typeSymbol);
             lowerTypeBounds.put(typeVariable, unionTypeSymbol);
         }
+        if (hasChanged) {
+            markAsDirty(typeVariable);
+        }
         return hasChanged;
     }
 
     @Override
     public boolean hasLowerTypeBounds(String typeVariable) {
+        Integer id = getId(typeVariable);
+        return id != null && hasLowerTypeBounds(id.intValue());
+    }
+
+    private boolean hasLowerTypeBounds(int typeVariable) {
         return lowerTypeBounds.containsKey(typeVariable);
     }
 
     @Override
     public boolean hasUpperTypeBounds(String typeVariable) {
+        Integer id = getId(typeVariable);
+        return id != null && hasUpperTypeBounds(id.intValue());
+    }
+
+    private boolean hasUpperTypeBounds(int typeVariable) {
         return upperTypeBounds.containsKey(typeVariable);
     }
 
     @Override
     public boolean hasLowerRefBounds(String typeVariable) {
+        Integer id = getId(typeVariable);
+        return id != null && hasLowerRefBounds(id.intValue());
+    }
+
+    private boolean hasLowerRefBounds(int typeVariable) {
         return lowerRefBounds.containsKey(typeVariable) && !lowerRefBounds.get(typeVariable).isEmpty();
     }
 
     @Override
     public boolean hasUpperRefBounds(String typeVariable) {
+        Integer id = getId(typeVariable);
+        return id != null && hasUpperRefBounds(id.intValue());
+    }
+
+    private boolean hasUpperRefBounds(int typeVariable) {
         return upperRefBounds.containsKey(typeVariable) && !upperRefBounds.get(typeVariable).isEmpty();
     }
 
     @Override
     public BoundResultDto addUpperTypeBound(String typeVariable, ITypeSymbol typeSymbol) {
-        if (!typeVariable2Variables.containsKey(typeVariable)) {
+        BoundResultDto dto = new BoundResultDto();
+        addUpperTypeBound(typeVariable, typeSymbol, dto);
+        return dto;
+    }
+
+    /**
+     * Same as {@link #addUpperTypeBound(String, ITypeSymbol)} but writes the result into the given dto instead of
+     * creating a new one, all fields of the given dto are overwritten.
+     */
+    public void addUpperTypeBound(String typeVariable, ITypeSymbol typeSymbol, BoundResultDto result) {
+        if (!typeVariable2Id.containsKey(typeVariable)) {
             throw new IllegalArgumentException("No variable has a binding for type variable \"" + typeVariable + "\".");
         }
 
-        return addUpperTypeBoundAfterContainsCheck(typeVariable, typeSymbol);
+        addUpperTypeBoundAfterContainsCheck(getId(typeVariable), typeSymbol, true, result);
+    }
+
+    private void addUpperTypeBoundAfterContainsCheck(
+            int typeVariable, ITypeSymbol typeSymbol, boolean propagateToLower, BoundResultDto dto) {
+        BoundWorklist worklist = addUpperTypeBoundWithoutPropagation(
+                typeVariable, typeSymbol, propagateToLower, null, dto);
+        if (worklist != null) {
+            propagateUpperTypeBounds(worklist);
+        }
     }
 
-    private BoundResultDto addUpperTypeBoundAfterContainsCheck(String typeVariable, ITypeSymbol typeSymbol) {
-        return addUpperTypeBoundAfterContainsCheck(typeVariable, typeSymbol, true);
+    //Warning! start code duplication - very similar to propagateLowerTypeBounds
+    private void propagateUpperTypeBounds(BoundWorklist worklist) {
+        BoundResultDto propagationResult = null;
+        while (!worklist.isEmpty()) {
+            if (propagationResult == null) {
+                propagationResult = new BoundResultDto();
+            }
+            BoundWorklist.PendingBound pendingBound = worklist.poll();
+            if (consumePropagationStep()) {
+                addUpperTypeBoundWithoutPropagation(
+                        pendingBound.typeVariable, pendingBound.typeSymbol, true, worklist, propagationResult);
+            } else {
+                // in contrast to lower type bounds, we cannot widen upper type bounds since dropping a pending upper
+                // type bound would under-constrain the lower refs
+                throw new BudgetExceededException("exceeded the maximum number of propagation steps ("
+                        + budget.getMaxPropagationSteps() + ") and cannot propagate the upper type bound "
+                        + pendingBound.typeSymbol.getAbsoluteName() + " to " + getName(pendingBound.typeVariable));
+            }
+        }
     }
+    //Warning! end code duplication - very similar to propagateLowerTypeBounds
 
-    private BoundResultDto addUpperTypeBoundAfterContainsCheck(
-            String typeVariable, ITypeSymbol typeSymbol, boolean propagateToLower) {
+    /**
+     * Adds the given type to the upper type bound of the given type variable and adds the lower refs to the given
+     * worklist if the upper type bound changed and propagateToLower is true. The result is written into the given
+     * dto.
+     *
+     * @param worklist The worklist to which the lower refs are added, a new one is created if null is passed and
+     *                 there is something to propagate.
+     * @return The given or newly created worklist, null if null was passed and there is nothing to propagate.
+     */
+    private BoundWorklist addUpperTypeBoundWithoutPropagation(
+            int typeVariable,
+            ITypeSymbol typeSymbol,
+            boolean propagateToLower,
+            BoundWorklist worklist,
+            BoundResultDto dto) {
+        resetBoundResult(dto);
 
         //no need to proceed if the same type is added
         if (hasUpperTypeBounds(typeVariable) && typeHelper.areSame(upperTypeBounds.get(typeVariable), typeSymbol)) {
-            return new BoundResultDto();
+            return worklist;
         }
 
-        BoundResultDto dto = checkLowerTypeBounds(typeVariable, typeSymbol);
+        BoundWorklist resultWorklist = worklist;
+
+        checkLowerTypeBounds(typeVariable, typeSymbol, dto);
         boolean hasChanged = false;
 
         ITypeSymbol newTypeSymbol;
@@ -586,29 +1034,32 @@ public class BindingCollection implements IBindingCollection
             }
 
             if (propagateToLower && hasChanged && hasLowerRefBounds(typeVariable)) {
-                for (String refTypeVariable : lowerRefBounds.get(typeVariable)) {
-                    addUpperTypeBoundAfterContainsCheck(refTypeVariable, newTypeSymbol);
+                if (resultWorklist == null) {
+                    resultWorklist = new BoundWorklist(typeVariable, typeSymbol);
+                }
+                for (int refTypeVariable : lowerRefBounds.get(typeVariable)) {
+                    resultWorklist.add(refTypeVariable, newTypeSymbol);
                 }
             }
         }
 
         dto.hasChanged = hasChanged;
-        return dto;
+        return resultWorklist;
     }
 
     //Warning! start code duplication - very similar to checkUpperTypeBounds
-    private BoundResultDto checkLowerTypeBounds(String typeVariable, ITypeSymbol newUpperTypeBound) {
-        BoundResultDto resultDto = new BoundResultDto();
+    private void checkLowerTypeBounds(int typeVariable, ITypeSymbol newUpperTypeBound, BoundResultDto resultDto) {
 
         if (hasLowerTypeBounds(typeVariable)) {
+            String typeVariableName = getName(typeVariable);
             IUnionTypeSymbol lowerTypeSymbol = lowerTypeBounds.get(typeVariable);
             TypeHelperDto dto = typeHelper.isFirstSameOrSubTypeOfSecond(
-                    lowerTypeSymbol, newUpperTypeBound, typeVariable);
+                    lowerTypeSymbol, newUpperTypeBound, typeVariableName);
             switch (dto.relation) {
                 case HAS_COERCIVE_RELATION:
                     resultDto.usedImplicitConversion = true;
-                    if (dto.upperConstraints.containsKey(typeVariable)) {
-                        Set<ITypeSymbol> remove = dto.upperConstraints.remove(typeVariable);
+                    if (dto.upperConstraints.containsKey(typeVariableName)) {
+                        Set<ITypeSymbol> remove = dto.upperConstraints.remove(typeVariableName);
                         if (remove.size() == 1) {
                             resultDto.implicitConversionProvider = remove.iterator().next();
                         } else {
@@ -625,12 +1076,11 @@ public class BindingCollection implements IBindingCollection
             }
             transferBoundConstraints(resultDto, dto.lowerConstraints, dto.upperConstraints);
         }
-        return resultDto;
     }
     //Warning! end code duplication - very similar to checkUpperTypeBounds
 
     private Pair<Boolean, Boolean> preConstrainConvertibleTypeIfNecessary(
-            String typeVariable, BoundResultDto dto, IConvertibleTypeSymbol newConvertibleType) {
+            int typeVariable, BoundResultDto dto, IConvertibleTypeSymbol newConvertibleType) {
         Pair<Boolean, Boolean> result = null;
         if (hasUpperTypeBounds(typeVariable)) {
             for (ITypeSymbol innerTypeSymbol : upperTypeBounds.get(typeVariable).getTypeSymbols().values()) {
@@ -668,7 +1118,7 @@ public class BindingCollection implements IBindingCollection
 
     private Pair<Boolean, Boolean> preConstrainConvertibleType(
             BoundResultDto dto,
-            String typeVariable,
+            int typeVariable,
             IConvertibleTypeSymbol oldConvertibleType,
             IConvertibleTypeSymbol newConvertibleType) {
         Pair<Boolean, Boolean> result = null;
@@ -680,16 +1130,16 @@ public class BindingCollection implements IBindingCollection
         TypeHelperDto resultDto = typeHelper.isFirstSameOrSubTypeOfSecond(
                 newTargetType, oldTargetType, false);
         if (resultDto.relation == ERelation.HAS_RELATION) {
+            BoundResultDto boundResultDto = new BoundResultDto();
             if (newConvertibleType.isFixed()) {
-                BoundResultDto boundResultDto = addUpperTypeBoundAfterContainsCheck(
-                        oldTargetTypeVariable, newTargetType);
+                addUpperTypeBoundAfterContainsCheck(getId(oldTargetTypeVariable), newTargetType, true, boundResultDto);
                 result = new Pair<>(false, boundResultDto.hasChanged);
             } else {
                 boolean hasChanged = checkInheritanceAndAddToUpperTypeBounds(
                         typeVariable, dto, newConvertibleType);
                 final boolean hasNotFixedType = true;
-                BoundResultDto boundResultDto = addLowerRefBound(
-                        newTargetTypeVariable, oldTargetTypeVariable, hasNotFixedType);
+                addLowerRefBound(
+                        getId(newTargetTypeVariable), getId(oldTargetTypeVariable), hasNotFixedType, boundResultDto);
                 hasChanged = hasChanged || boundResultDto.hasChanged;
                 result = new Pair<>(false, hasChanged);
             }
@@ -703,8 +1153,9 @@ public class BindingCollection implements IBindingCollection
                 } else {
                     //a parent type can be neglected but we still require the lower ref
                     final boolean hasNotFixedType = true;
-                    BoundResultDto boundResultDto = addLowerRefBound(
-                            newTargetTypeVariable, oldTargetTypeVariable, hasNotFixedType);
+                    BoundResultDto boundResultDto = new BoundResultDto();
+                    addLowerRefBound(getId(newTargetTypeVariable), getId(oldTargetTypeVariable), hasNotFixedType,
+                            boundResultDto);
                     result = new Pair<>(false, boundResultDto.hasChanged);
                 }
             }
@@ -713,7 +1164,7 @@ public class BindingCollection implements IBindingCollection
     }
 
     private boolean checkInheritanceAndAddToUpperTypeBounds(
-            String typeVariable, BoundResultDto dto, ITypeSymbol typeSymbol) {
+            int typeVariable, BoundResultDto dto, ITypeSymbol typeSymbol) {
 
         boolean hasChanged = false;
         IIntersectionTypeSymbol upperBound = upperTypeBounds.get(typeVariable);
@@ -754,7 +1205,7 @@ public class BindingCollection implements IBindingCollection
     }
 
     private boolean checkUnionTypeAndAddToUpperTypeBounds(
-            String typeVariable,
+            int typeVariable,
             ITypeSymbol typeSymbol,
             IIntersectionTypeSymbol upperBound,
             IUnionTypeSymbol unionTypeSymbol,
@@ -804,7 +1255,7 @@ public class BindingCollection implements IBindingCollection
     }
 
     private boolean checkNonUnionTypeAndAddToUpperTypeBounds(
-            String typeVariable, BoundResultDto dto, IIntersectionTypeSymbol upperBound, ITypeSymbol typeSymbol) {
+            int typeVariable, BoundResultDto dto, IIntersectionTypeSymbol upperBound, ITypeSymbol typeSymbol) {
 
         boolean hasChanged = false;
 
@@ -818,7 +1269,8 @@ public class BindingCollection implements IBindingCollection
         if ((typeSymbol.isFinal() || upperBound.isFinal())
                 || (!typeSymbol.canBeUsedInIntersection() && !upperBound.canBeUsedInIntersection())) {
 
-            TypeHelperDto result = typeHelper.isFirstSameOrSubTypeOfSecond(typeSymbol, upperBound, typeVariable);
+            String typeVariableName = getName(typeVariable);
+            TypeHelperDto result = typeHelper.isFirstSameOrSubTypeOfSecond(typeSymbol, upperBound, typeVariableName);
             switch (result.relation) {
                 case HAS_RELATION:
                     //that's fine, a subtype just replaces the current upper type bound
@@ -827,7 +1279,7 @@ public class BindingCollection implements IBindingCollection
                 case HAS_COERCIVE_RELATION:
                     //fine as well, since the typeSymbol is a parent type of the current lower type (was
                     // verified before) -- we just need to narrow the current upper type bound accordingly.
-                    Set<ITypeSymbol> remove = result.upperConstraints.remove(typeVariable);
+                    Set<ITypeSymbol> remove = result.upperConstraints.remove(typeVariableName);
                     if (remove.size() == 1) {
                         // can only be used in intersection since it is a coercive subtype,
                         // hence we need to narrow the upper type bound instead of adding the type (might
@@ -886,13 +1338,13 @@ public class BindingCollection implements IBindingCollection
     }
 
     private boolean postConstrainConvertibleType(
-            String typeVariable, BoundResultDto dto, ITypeSymbol newTypeSymbol) {
+            int typeVariable, BoundResultDto dto, ITypeSymbol newTypeSymbol) {
 
         boolean hasChanged = false;
         IConvertibleTypeSymbol convertibleTypeSymbol = (IConvertibleTypeSymbol) newTypeSymbol;
         if (convertibleTypeSymbol.getBindingCollection() == this) {
             IIntersectionTypeSymbol currentUpperTypeBound = upperTypeBounds.get(typeVariable);
-            String convertibleTypeParameter = convertibleTypeSymbol.getTypeVariable();
+            int convertibleTypeParameter = getId(convertibleTypeSymbol.getTypeVariable());
             ITypeSymbol targetTypeSymbol;
             if (hasUpperTypeBounds(convertibleTypeParameter)) {
                 targetTypeSymbol = upperTypeBounds.get(convertibleTypeParameter);
@@ -903,7 +1355,8 @@ public class BindingCollection implements IBindingCollection
                     currentUpperTypeBound, targetTypeSymbol);
 
             if (resultDto.relation == ERelation.HAS_RELATION) {
-                BoundResultDto boundResultDto = addLowerRefBound(convertibleTypeParameter, typeVariable, true);
+                BoundResultDto boundResultDto = new BoundResultDto();
+                addLowerRefBound(convertibleTypeParameter, typeVariable, true, boundResultDto);
                 hasChanged = boundResultDto.hasChanged;
             } else {
                 TypeHelperDto typeHelperDto = typeHelper.isFirstSameOrSubTypeOfSecond(
@@ -914,15 +1367,18 @@ public class BindingCollection implements IBindingCollection
         return hasChanged;
     }
 
-    private boolean addToUpperIntersectionTypeSymbol(String typeVariable, ITypeSymbol typeSymbol) {
+    private boolean addToUpperIntersectionTypeSymbol(int typeVariable, ITypeSymbol typeSymbol) {
         boolean hasChanged;
         if (hasUpperTypeBounds(typeVariable)) {
-            hasChanged = upperTypeBounds.get(typeVariable).addTypeSymbol(typeSymbol);
+            hasChanged = upperTypeBounds.getForWrite(typeVariable).addTypeSymbol(typeSymbol);
         } else {
             IIntersectionTypeSymbol intersectionTypeSymbol = symbolFactory.createIntersectionTypeSymbol();
             hasChanged = intersectionTypeSymbol.addTypeSymbol(typeSymbol);
             upperTypeBounds.put(typeVariable, intersectionTypeSymbol);
         }
+        if (hasChanged) {
+            markAsDirty(typeVariable);
+        }
         return hasChanged;
     }
 
@@ -936,35 +1392,53 @@ public class BindingCollection implements IBindingCollection
         return hasUpperTypeBounds(typeVariable) || hasUpperRefBounds(typeVariable);
     }
 
+    private boolean hasUpperBounds(int typeVariable) {
+        return hasUpperTypeBounds(typeVariable) || hasUpperRefBounds(typeVariable);
+    }
+
     @Override
     public IUnionTypeSymbol getLowerTypeBounds(String typeVariable) {
-        return lowerTypeBounds.get(typeVariable);
+        Integer id = getId(typeVariable);
+        return id != null ? lowerTypeBounds.get(id) : null;
     }
 
     @Override
     public IIntersectionTypeSymbol getUpperTypeBounds(String typeVariable) {
-        return upperTypeBounds.get(typeVariable);
+        Integer id = getId(typeVariable);
+        return id != null ? upperTypeBounds.get(id) : null;
     }
 
     @Override
     public Set<String> getLowerRefBounds(String typeVariable) {
-        return lowerRefBounds.get(typeVariable);
+        return getRefBounds(lowerRefBounds, typeVariable);
     }
 
     @Override
     public Set<String> getUpperRefBounds(String typeVariable) {
-        return upperRefBounds.get(typeVariable);
+        return getRefBounds(upperRefBounds, typeVariable);
+    }
+
+    private Set<String> getRefBounds(CopyOnWriteIntMap<TypeVariableSet> refBounds, String typeVariable) {
+        Set<String> names = null;
+        Integer id = getId(typeVariable);
+        if (id != null && refBounds.containsKey(id)) {
+            names = new TypeVariableNames(refBounds.get(id));
+        }
+        return names;
     }
 
     @Override
     public Set<String> getLowerBoundConstraintIds(String typeVariable) {
         Set<String> ids = new HashSet<>();
-        if (hasLowerTypeBounds(typeVariable)) {
-            ids.addAll(lowerTypeBounds.get(typeVariable).getTypeSymbols().keySet());
-        }
-        if (hasLowerRefBounds(typeVariable)) {
-            for (String refTypeVariable : lowerRefBounds.get(typeVariable)) {
-                ids.add("@" + refTypeVariable);
+        Integer id = getId(typeVariable);
+        if (id != null) {
+            if (hasLowerTypeBounds(id.intValue())) {
+                ids.addAll(lowerTypeBounds.get(id).getTypeSymbols().keySet());
+            }
+            if (hasLowerRefBounds(id.intValue())) {
+                for (int refTypeVariable : lowerRefBounds.get(id)) {
+                    ids.add("@" + getName(refTypeVariable));
+                }
             }
         }
         return ids;
@@ -973,17 +1447,60 @@ public class BindingCollection implements IBindingCollection
     @Override
     public Set<String> getUpperBoundConstraintIds(String typeVariable) {
         Set<String> ids = new HashSet<>();
-        if (hasUpperTypeBounds(typeVariable)) {
-            ids.addAll(upperTypeBounds.get(typeVariable).getTypeSymbols().keySet());
-        }
-        if (hasUpperRefBounds(typeVariable)) {
-            for (String refTypeVariable : upperRefBounds.get(typeVariable)) {
-                ids.add("@" + refTypeVariable);
+        Integer id = getId(typeVariable);
+        if (id != null) {
+            if (hasUpperTypeBounds(id.intValue())) {
+                ids.addAll(upperTypeBounds.get(id).getTypeSymbols().keySet());
+            }
+            if (hasUpperRefBounds(id.intValue())) {
+                for (int refTypeVariable : upperRefBounds.get(id)) {
+                    ids.add("@" + getName(refTypeVariable));
+                }
             }
         }
         return ids;
     }
 
+    /**
+     * Passes the lower type bounds and lower ref bounds of the given type variable to the given visitor without
+     * creating intermediate collections (in contrast to {@link #getLowerBoundConstraintIds(String)}).
+     */
+    @Override
+    public void visitLowerBounds(String typeVariable, IBoundVisitor visitor) {
+        Integer id = getId(typeVariable);
+        if (id != null) {
+            visitBounds(lowerTypeBounds.get(id), lowerRefBounds.get(id), visitor);
+        }
+    }
+
+    /**
+     * Passes the upper type bounds and upper ref bounds of the given type variable to the given visitor without
+     * creating intermediate collections (in contrast to {@link #getUpperBoundConstraintIds(String)}).
+     */
+    @Override
+    public void visitUpperBounds(String typeVariable, IBoundVisitor visitor) {
+        Integer id = getId(typeVariable);
+        if (id != null) {
+            visitBounds(upperTypeBounds.get(id), upperRefBounds.get(id), visitor);
+        }
+    }
+
+    private void visitBounds(
+            IContainerTypeSymbol typeBounds, TypeVariableSet refBounds, IBoundVisitor visitor) {
+        if (typeBounds != null) {
+            for (Map.Entry<String, ITypeSymbol> entry : typeBounds.getTypeSymbols().entrySet()) {
+                visitor.visitTypeBound(entry.getKey(), entry.getValue());
+            }
+        }
+        if (refBounds != null) {
+            for (int refTypeVariable = refBounds.next(0);
+                 refTypeVariable != -1;
+                 refTypeVariable = refBounds.next(refTypeVariable + 1)) {
+                visitor.visitRefBound(getName(refTypeVariable));
+            }
+        }
+    }
+
     @Override
     public OverloadApplicationDto getAppliedOverload(String variableId) {
         return appliedOverloads.get(variableId);
@@ -1022,22 +1539,23 @@ public class BindingCollection implements IBindingCollection
     private void fixTypeAfterContainsCheck(String variableId, boolean isNotParameter) {
         //Warning! start code duplication, more or less same as in fixTypeParameter
         ITypeVariableReference reference = variable2TypeVariable.get(variableId);
-        String typeVariable = reference.getTypeVariable();
+        int typeVariable = getVariableTypeVariable(variableId);
         if (!reference.hasFixedType()) {
-            fixTypeVariable(variableId, reference);
+            fixTypeVariable(variableId, typeVariable);
             fixTypeVariableType(isNotParameter, typeVariable);
             informBoundTypes(typeVariable);
         }
         //Warning! start code duplication, more or less same as in fixTypeParameter
     }
 
-    private void fixTypeVariable(String variableId, ITypeVariableReference reference) {
-        String typeVariable = reference.getTypeVariable();
-        variable2TypeVariable.put(variableId, new FixedTypeVariableReference(reference));
+    private void fixTypeVariable(String variableId, int typeVariable) {
+        //the reference might be shared with a copy of this binding collection
+        ITypeVariableReference ownReference = variable2TypeVariable.getForWrite(variableId);
+        variable2TypeVariable.put(variableId, new FixedTypeVariableReference(ownReference));
         removeRefBounds(typeVariable);
     }
 
-    private void fixTypeVariableType(boolean isNotParameter, String typeVariable) {
+    private void fixTypeVariableType(boolean isNotParameter, int typeVariable) {
         //parameters should be hold as general as possible where local variables should be as specific as possible.
         //therefore we add the lower type bound to the upper type bound if it is not a parameter and vice versa
         if (isNotParameter && hasLowerTypeBounds(typeVariable)) {
@@ -1065,6 +1583,10 @@ public class BindingCollection implements IBindingCollection
 
     @Override
     public void fixTypeParameter(String typeParameter) {
+        fixTypeParameter(getId(typeParameter).intValue());
+    }
+
+    private void fixTypeParameter(int typeParameter) {
         // We need to propagate upper type bounds to the upper refs before we disconnect the relation.
         // So far, we have only propagated the lower type bounds to the upper refs, if we do not propagate it we
         // actually get into things like $a = $x  int <: Ta  Tx <: num => Ta should be num <: Ta
@@ -1072,7 +1594,7 @@ public class BindingCollection implements IBindingCollection
         // See TINS-449 unused ad-hoc polymorphic parameters
         if (hasUpperRefBounds(typeParameter) && hasUpperTypeBounds(typeParameter)) {
             IIntersectionTypeSymbol upperTypeBound = upperTypeBounds.get(typeParameter);
-            for (String refTypeVariable : upperRefBounds.get(typeParameter)) {
+            for (int refTypeVariable : upperRefBounds.get(typeParameter)) {
                 addToLowerUnionTypeSymbol(refTypeVariable, upperTypeBound);
             }
         }
@@ -1083,12 +1605,11 @@ public class BindingCollection implements IBindingCollection
             //Warning! start code duplication, more or less same as in fixTypeAfterContainsCheck
             ITypeVariableReference reference = variable2TypeVariable.get(variableId);
             if (!reference.hasFixedType()) {
-                fixTypeVariable(variableId, reference);
+                fixTypeVariable(variableId, typeParameter);
             }
             //no need to fix it multiple times, once is enough
             if (!typeVariableFixed) {
-                String typeVariable = reference.getTypeVariable();
-                fixTypeVariableType(isNotParameter, typeVariable);
+                fixTypeVariableType(isNotParameter, typeParameter);
                 typeVariableFixed = true;
             }
             //Warning! end code duplication, more or less same as in fixTypeAfterContainsCheck
@@ -1097,33 +1618,56 @@ public class BindingCollection implements IBindingCollection
         informBoundTypes(typeParameter);
     }
 
-    private void informBoundTypes(String typeParameter) {
+    private void informBoundTypes(int typeParameter) {
         //inform bound parametric types that type variable was fixed
         if (typeVariable2BoundTypes.containsKey(typeParameter)) {
+            String typeParameterName = getName(typeParameter);
+            if (trail != null && !typeVariable2BoundTypes.get(typeParameter).isEmpty()) {
+                throw new IllegalStateException("cannot fix the type parameter " + typeParameterName + " while a "
+                        + "checkpoint is active since fixing bound parametric types cannot be undone.");
+            }
             for (IParametricType parametricTypeSymbol : typeVariable2BoundTypes.get(typeParameter)) {
-                parametricTypeSymbol.fix(typeParameter);
+                parametricTypeSymbol.fix(typeParameterName);
             }
         }
     }
 
     @Override
     public void fixTypeParameters() {
-        for (String typeParameter : typeVariable2BoundTypes.keySet()) {
-            fixTypeParameter(typeParameter);
+        int capacity = typeVariable2BoundTypes.capacity();
+        for (int typeParameter = 0; typeParameter < capacity; ++typeParameter) {
+            if (typeVariable2BoundTypes.containsKey(typeParameter)) {
+                fixTypeParameter(typeParameter);
+            }
         }
+        compact();
+        clearDirtyTypeVariables();
     }
 
     @Override
     public Set<String> tryToFix(Set<String> parameterTypeVariables) {
 
-        String returnTypeVariable = variable2TypeVariable.get(TinsPHPConstants.RETURN_VARIABLE_NAME).getTypeVariable();
-        Map<String, Set<String>> typeVariablesToVisit = new HashMap<>(typeVariable2Variables);
-        Set<String> typeParameters = new HashSet<>();
-        Set<String> recursiveTypeParameters = new HashSet<>();
-        Set<String> removeReturnTypeVariable = new HashSet<>();
+        int returnTypeVariable = getVariableTypeVariable(TinsPHPConstants.RETURN_VARIABLE_NAME);
+        Set<Integer> parameterTypeVariableIds = new HashSet<>();
+        for (String parameterTypeVariable : parameterTypeVariables) {
+            parameterTypeVariableIds.add(getId(parameterTypeVariable));
+        }
+        mergeRefBoundCycles(returnTypeVariable, parameterTypeVariableIds);
+
+        Map<Integer, Set<String>> typeVariablesToVisit = new HashMap<>();
+        int capacity = typeVariable2Variables.capacity();
+        for (int typeVariable = 0; typeVariable < capacity; ++typeVariable) {
+            Set<String> variables = typeVariable2Variables.get(typeVariable);
+            if (variables != null) {
+                typeVariablesToVisit.put(typeVariable, variables);
+            }
+        }
+        Set<Integer> typeParameters = new HashSet<>();
+        Set<Integer> recursiveTypeParameters = new HashSet<>();
+        Set<Integer> removeReturnTypeVariable = new HashSet<>();
         PropagationDto dto = new PropagationDto(
                 returnTypeVariable,
-                parameterTypeVariables,
+                parameterTypeVariableIds,
                 typeVariablesToVisit,
                 typeParameters,
                 recursiveTypeParameters,
@@ -1149,11 +1693,10 @@ public class BindingCollection implements IBindingCollection
         returnTypeVariable = renameToRecursiveTypeParameters(dto);
 
         //if we had a recursive type parameter (hence return type variable changed), then we already did this
-        if (returnTypeVariable.equals(dto.returnTypeVariable)) {
-            Set<String> returnVariableLowerRefs = lowerRefBounds.get(dto.returnTypeVariable);
-            for (String refTypeVariable : dto.removeReturnTypeVariable) {
-                upperRefBounds.get(refTypeVariable).remove(dto.returnTypeVariable);
-                returnVariableLowerRefs.remove(refTypeVariable);
+        if (returnTypeVariable == dto.returnTypeVariable) {
+            for (int refTypeVariable : dto.removeReturnTypeVariable) {
+                removeFromRefBounds(upperRefBounds, refTypeVariable, dto.returnTypeVariable);
+                removeFromRefBounds(lowerRefBounds, dto.returnTypeVariable, refTypeVariable);
             }
 
             if (hasConstantReturn) {
@@ -1161,14 +1704,232 @@ public class BindingCollection implements IBindingCollection
             }
         }
 
-        Map<String, String> variablesToRename = identifyVariablesToRename(dto);
+        Map<Integer, Integer> variablesToRename = identifyVariablesToRename(dto);
         renameTypeVariables(variablesToRename);
 
-        return dto.typeParameters;
+        Set<String> nonFixedTypeParameters = new HashSet<>();
+        for (int typeParameter : dto.typeParameters) {
+            nonFixedTypeParameters.add(getName(typeParameter));
+        }
+        compact();
+        clearDirtyTypeVariables();
+        return nonFixedTypeParameters;
+    }
+
+    /**
+     * Removes helper variables (see {@link #createHelperVariable()}) together with their type variables and bounds if
+     * their type variable is neither used by another variable nor reachable from such a type variable via ref bounds
+     * or convertible types. Moreover, removes orphaned entries of convertible types and shrinks the maps.
+     * <p/>
+     * Type variables which are bound to a parametric type are always kept.
+     */
+    private void compact() {
+        TypeVariableSet reachable = new TypeVariableSet();
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        for (int typeVariable = 0; typeVariable < nextTypeVariableId; ++typeVariable) {
+            Set<String> variables = typeVariable2Variables.get(typeVariable);
+            if (variables != null
+                    && (typeVariable2BoundTypes.containsKey(typeVariable) || hasNonHelperVariable(variables))) {
+                reachable.add(typeVariable);
+                toVisit.add(typeVariable);
+            }
+        }
+
+        while (!toVisit.isEmpty()) {
+            int typeVariable = toVisit.poll();
+            addReachable(lowerRefBounds.get(typeVariable), reachable, toVisit);
+            addReachable(upperRefBounds.get(typeVariable), reachable, toVisit);
+            addReachable(typeVariablesWithLowerConvertible.get(typeVariable), reachable, toVisit);
+            addReachable(typeVariablesWithUpperConvertible.get(typeVariable), reachable, toVisit);
+        }
+
+        for (int typeVariable = 0; typeVariable < nextTypeVariableId; ++typeVariable) {
+            if (typeVariable2Variables.containsKey(typeVariable) && !reachable.contains(typeVariable)) {
+                removeTypeVariable(typeVariable);
+            }
+        }
+        removeOrphanedConvertibles(typeVariablesWithLowerConvertible, reachable);
+        removeOrphanedConvertibles(typeVariablesWithUpperConvertible, reachable);
+
+        trimMapsToSize();
+    }
+
+    private boolean hasNonHelperVariable(Set<String> variables) {
+        for (String variableId : variables) {
+            if (!variableId.startsWith(HELPER_VARIABLE_PREFIX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addReachable(Set<Integer> typeVariables, TypeVariableSet reachable, Deque<Integer> toVisit) {
+        if (typeVariables != null) {
+            for (int typeVariable : typeVariables) {
+                //type variables which were merged are not reachable, only their representative
+                if (typeVariable2Variables.containsKey(typeVariable) && reachable.add(typeVariable)) {
+                    toVisit.add(typeVariable);
+                }
+            }
+        }
+    }
+
+    private void removeTypeVariable(int typeVariable) {
+        for (String variableId : typeVariable2Variables.remove(typeVariable)) {
+            variable2TypeVariable.remove(variableId);
+            variable2Id.remove(variableId);
+            appliedOverloads.remove(variableId);
+        }
+        lowerTypeBounds.remove(typeVariable);
+        upperTypeBounds.remove(typeVariable);
+        removeRefBounds(typeVariable);
+        dirtyTypeVariables.remove(typeVariable);
+        // the id is not reused, it merely keeps its name (same as for merged type variables)
+        String typeVariableName = getName(typeVariable);
+        Integer id = getId(typeVariableName);
+        if (id != null && id == typeVariable) {
+            typeVariable2Id.remove(typeVariableName);
+        }
+    }
+
+    private void removeOrphanedConvertibles(
+            CopyOnWriteIntMap<Set<Integer>> typeVariablesWithConvertible, TypeVariableSet reachable) {
+        int capacity = typeVariablesWithConvertible.capacity();
+        for (int typeVariable = 0; typeVariable < capacity; ++typeVariable) {
+            Set<Integer> convertibleTypeVariables = typeVariablesWithConvertible.get(typeVariable);
+            if (convertibleTypeVariables != null) {
+                if (!reachable.contains(typeVariable)) {
+                    typeVariablesWithConvertible.remove(typeVariable);
+                } else if (!reachable.containsAll(convertibleTypeVariables)) {
+                    Set<Integer> ownConvertibleTypeVariables = typeVariablesWithConvertible.getForWrite(typeVariable);
+                    ownConvertibleTypeVariables.retainAll(reachable);
+                    if (ownConvertibleTypeVariables.isEmpty()) {
+                        typeVariablesWithConvertible.remove(typeVariable);
+                    }
+                }
+            }
+        }
+    }
+
+    private void trimMapsToSize() {
+        typeVariable2Id.trimToSize();
+        lowerTypeBounds.trimToSize();
+        upperTypeBounds.trimToSize();
+        lowerRefBounds.trimToSize();
+        upperRefBounds.trimToSize();
+        variable2TypeVariable.trimToSize();
+        variable2Id.trimToSize();
+        typeVariable2Variables.trimToSize();
+        appliedOverloads.trimToSize();
+        typeVariable2BoundTypes.trimToSize();
+        typeVariablesWithLowerConvertible.trimToSize();
+        typeVariablesWithUpperConvertible.trimToSize();
+        dirtyTypeVariables.trimToSize();
+    }
+
+    private void markAsDirty(int typeVariable) {
+        if (!dirtyTypeVariables.containsKey(typeVariable)) {
+            dirtyTypeVariables.put(typeVariable, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Returns the type variables whose bounds changed since the last call of {@link #tryToFix(Set)},
+     * {@link #fixTypeParameters()} or {@link #clearDirtyTypeVariables()}.
+     */
+    public Set<String> getDirtyTypeVariables() {
+        Set<String> typeVariables = new HashSet<>();
+        int capacity = dirtyTypeVariables.capacity();
+        for (int typeVariable = 0; typeVariable < capacity; ++typeVariable) {
+            if (dirtyTypeVariables.containsKey(typeVariable)) {
+                typeVariables.add(getName(typeVariable));
+            }
+        }
+        return typeVariables;
+    }
+
+    public boolean isDirty(String typeVariable) {
+        Integer id = getId(typeVariable);
+        return id != null && dirtyTypeVariables.containsKey(id);
+    }
+
+    /**
+     * Returns the dirty type variables (see {@link #getDirtyTypeVariables()}) together with all type variables which
+     * are connected to them via lower or upper ref bounds, i.e. the part of the constraint graph which needs to be
+     * solved again. Type variables which are not returned are not affected by the changes.
+     */
+    public Set<String> getAffectedTypeVariables() {
+        TypeVariableSet affected = new TypeVariableSet();
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        int capacity = dirtyTypeVariables.capacity();
+        for (int typeVariable = 0; typeVariable < capacity; ++typeVariable) {
+            if (dirtyTypeVariables.containsKey(typeVariable) && affected.add(typeVariable)) {
+                toVisit.add(typeVariable);
+            }
+        }
+        while (!toVisit.isEmpty()) {
+            int typeVariable = toVisit.poll();
+            if (hasLowerRefBounds(typeVariable)) {
+                for (int refTypeVariable : lowerRefBounds.get(typeVariable)) {
+                    if (affected.add(refTypeVariable)) {
+                        toVisit.add(refTypeVariable);
+                    }
+                }
+            }
+            if (hasUpperRefBounds(typeVariable)) {
+                for (int refTypeVariable : upperRefBounds.get(typeVariable)) {
+                    if (affected.add(refTypeVariable)) {
+                        toVisit.add(refTypeVariable);
+                    }
+                }
+            }
+        }
+        return new TypeVariableNames(affected);
+    }
+
+    /**
+     * Marks all type variables as solved, i.e. {@link #getDirtyTypeVariables()} is empty afterwards.
+     */
+    public void clearDirtyTypeVariables() {
+        int capacity = dirtyTypeVariables.capacity();
+        for (int typeVariable = 0; typeVariable < capacity && !dirtyTypeVariables.isEmpty(); ++typeVariable) {
+            if (dirtyTypeVariables.containsKey(typeVariable)) {
+                dirtyTypeVariables.remove(typeVariable);
+            }
+        }
+    }
+
+    /**
+     * Merges the type variables of each cycle of ref bounds (e.g. Tx <: Ty <: Tz <: Tx) into one representative
+     * since they need to have the same type anyway and bounds would otherwise circulate until they stop changing.
+     * <p/>
+     * The return type variable and type variables of parameters are never merged away, they are used as
+     * representative instead.
+     */
+    private void mergeRefBoundCycles(int returnTypeVariable, Set<Integer> parameterTypeVariables) {
+        for (List<Integer> cycle : StronglyConnectedComponents.findCycles(upperRefBounds, nextTypeVariableId)) {
+            int representative = cycle.get(0);
+            for (int typeVariable : cycle) {
+                if (typeVariable == returnTypeVariable) {
+                    representative = typeVariable;
+                    break;
+                } else if (parameterTypeVariables.contains(typeVariable)) {
+                    representative = typeVariable;
+                }
+            }
+            for (int typeVariable : cycle) {
+                if (typeVariable != representative
+                        && typeVariable != returnTypeVariable
+                        && !parameterTypeVariables.contains(typeVariable)) {
+                    final boolean avoidSelfRef = true;
+                    mergeFirstIntoSecondAfterContainsCheck(typeVariable, representative, avoidSelfRef);
+                }
+            }
+        }
     }
 
     private void collectTypeParameters(PropagationDto dto) {
-        for (String parameterTypeVariable : dto.parameterTypeVariables) {
+        for (int parameterTypeVariable : dto.parameterTypeVariables) {
             //the type variables of parameters are potential type parameters as well,
             // they are removed in propagateOrFixParameters if the parameter is fixed
             dto.typeParameters.add(parameterTypeVariable);
@@ -1192,14 +1953,16 @@ public class BindingCollection implements IBindingCollection
                 } else if (typeSymbol instanceof IParametricTypeSymbol) {
                     IParametricTypeSymbol parametricTypeSymbol = (IParametricTypeSymbol) typeSymbol;
                     if (!parametricTypeSymbol.isFixed() && parametricTypeSymbol.getBindingCollection() == this) {
-                        dto.typeParameters.addAll(parametricTypeSymbol.getTypeParameters());
+                        for (String typeParameter : parametricTypeSymbol.getTypeParameters()) {
+                            dto.typeParameters.add(getId(typeParameter));
+                        }
                     }
                 }
             }
         }
     }
 
-    private boolean returnIsNotFixed(String returnTypeVariable) {
+    private boolean returnIsNotFixed(int returnTypeVariable) {
         boolean isNotFixed = !hasLowerTypeBounds(returnTypeVariable) || !hasUpperTypeBounds(returnTypeVariable);
         if (!isNotFixed) {
             isNotFixed = !typeHelper.areSame(
@@ -1210,7 +1973,7 @@ public class BindingCollection implements IBindingCollection
 
     private void propagateReturnTypeVariableToParameters(final PropagationDto dto) {
         if (hasLowerRefBounds(dto.returnTypeVariable)) {
-            for (String refTypeVariable : lowerRefBounds.get(dto.returnTypeVariable)) {
+            for (int refTypeVariable : lowerRefBounds.get(dto.returnTypeVariable)) {
                 boolean passedATypeParameter = false;
                 if (!dto.typeParameters.contains(refTypeVariable)) {
                     //since normal type variables might be fixed we need to remove the return variable manually
@@ -1224,11 +1987,16 @@ public class BindingCollection implements IBindingCollection
     }
 
     private void propagateReturnTypeVariableDownwardsToParameters(
-            final String refTypeVariable, final PropagationDto dto, boolean passedATypeParameter) {
-        if (hasLowerRefBounds(refTypeVariable)) {
-            for (String refRefTypeVariable : lowerRefBounds.get(refTypeVariable)) {
+            final int refTypeVariable, final PropagationDto dto, boolean passedATypeParameter) {
+        //visiting a type variable a second time via the same kind of path would not change anything, type parameters
+        // below it have the return type variable as upper ref bound by now and are skipped
+        TypeVariableSet visited = passedATypeParameter
+                ? dto.visitedAfterTypeParameter
+                : dto.visitedWithoutTypeParameter;
+        if (visited.add(refTypeVariable) && hasLowerRefBounds(refTypeVariable)) {
+            for (int refRefTypeVariable : lowerRefBounds.get(refTypeVariable)) {
                 boolean tmpPassedATypeParameter = passedATypeParameter;
-                Set<String> refRefUpperRefBounds = upperRefBounds.get(refRefTypeVariable);
+                TypeVariableSet refRefUpperRefBounds = upperRefBounds.get(refRefTypeVariable);
                 if (!refRefUpperRefBounds.contains(dto.returnTypeVariable)) {
                     if (dto.typeParameters.contains(refRefTypeVariable)) {
                         //a type parameter which has the return type variable as upper bound only through another
@@ -1242,7 +2010,7 @@ public class BindingCollection implements IBindingCollection
                         }
 
                         passedATypeParameter = true;
-                        refRefUpperRefBounds.add(dto.returnTypeVariable);
+                        addToRefBounds(upperRefBounds, refRefTypeVariable, dto.returnTypeVariable);
                     }
                     propagateReturnTypeVariableDownwardsToParameters(refRefTypeVariable, dto, passedATypeParameter);
                 }
@@ -1254,24 +2022,22 @@ public class BindingCollection implements IBindingCollection
     private boolean propagateOrFixTypeParameters(final PropagationDto dto) {
         boolean hasConstantReturn = true;
 
-        Iterator<String> iterator = dto.typeParameters.iterator();
+        Iterator<Integer> iterator = dto.typeParameters.iterator();
         while (iterator.hasNext()) {
-            String typeParameter = iterator.next();
-            if (doesContributeToTheReturnType(typeParameter, dto.returnTypeVariable)) {
+            int typeParameter = iterator.next();
+            if (doesContributeToTheReturnType(typeParameter, dto)) {
                 hasConstantReturn = false;
 
-                Set<String> addToUpperRef = new HashSet<>();
-                Set<String> parameterUpperRefBounds = upperRefBounds.get(typeParameter);
-                for (String refTypeVariable : parameterUpperRefBounds) {
+                TypeVariableSet addToUpperRef = new TypeVariableSet();
+                TypeVariableSet parameterUpperRefBounds = upperRefBounds.getForWrite(typeParameter);
+                for (int refTypeVariable : parameterUpperRefBounds) {
                     if (!dto.typeParameters.contains(refTypeVariable)) {
                         propagateTypeParameterUpwards(refTypeVariable, typeParameter, addToUpperRef, dto);
                     }
                 }
 
-                for (String refTypeVariable : addToUpperRef) {
-                    parameterUpperRefBounds.add(refTypeVariable);
-                }
-            } else if (typeParameter.equals(dto.returnTypeVariable)) {
+                parameterUpperRefBounds.addAll(addToUpperRef);
+            } else if (typeParameter == dto.returnTypeVariable) {
                 hasConstantReturn = false;
             } else {
                 dto.removeReturnTypeVariable.remove(typeParameter);
@@ -1283,7 +2049,8 @@ public class BindingCollection implements IBindingCollection
         return hasConstantReturn;
     }
 
-    private boolean doesContributeToTheReturnType(String typeParameter, String returnTypeVariable) {
+    private boolean doesContributeToTheReturnType(int typeParameter, PropagationDto propagationDto) {
+        int returnTypeVariable = propagationDto.returnTypeVariable;
         boolean doesContribute = false;
         if (hasUpperRefBounds(typeParameter)) {
             doesContribute = upperRefBounds.get(typeParameter).contains(returnTypeVariable);
@@ -1309,12 +2076,12 @@ public class BindingCollection implements IBindingCollection
     }
 
     private void propagateTypeParameterUpwards(
-            String refTypeVariable, String typeParameter, Set<String> addToUpperRef, PropagationDto dto) {
+            int refTypeVariable, int typeParameter, TypeVariableSet addToUpperRef, PropagationDto dto) {
 
         if (hasUpperRefBounds(refTypeVariable)) {
-            Set<String> refUpperRefBounds = upperRefBounds.get(refTypeVariable);
-            for (String refRefTypeVariable : refUpperRefBounds) {
-                Set<String> refRefLowerRefBounds = lowerRefBounds.get(refRefTypeVariable);
+            TypeVariableSet refUpperRefBounds = upperRefBounds.get(refTypeVariable);
+            for (int refRefTypeVariable : refUpperRefBounds) {
+                TypeVariableSet refRefLowerRefBounds = lowerRefBounds.getForWrite(refRefTypeVariable);
                 //we remove non type parameters, they are no longer required
                 if (!dto.typeParameters.contains(refTypeVariable)) {
                     refRefLowerRefBounds.remove(refTypeVariable);
@@ -1334,29 +2101,29 @@ public class BindingCollection implements IBindingCollection
         }
     }
 
-    private void removeRefBounds(String typeVariable) {
+    private void removeRefBounds(int typeVariable) {
         if (hasLowerRefBounds(typeVariable)) {
-            for (String lowerRefTypeVariable : lowerRefBounds.remove(typeVariable)) {
-                upperRefBounds.get(lowerRefTypeVariable).remove(typeVariable);
+            for (int lowerRefTypeVariable : lowerRefBounds.remove(typeVariable)) {
+                removeFromRefBounds(upperRefBounds, lowerRefTypeVariable, typeVariable);
             }
         }
         removeUpperRefBounds(typeVariable);
     }
 
-    private void removeUpperRefBounds(String typeVariable) {
+    private void removeUpperRefBounds(int typeVariable) {
         if (hasUpperRefBounds(typeVariable)) {
-            for (String upperRefTypeVariable : upperRefBounds.remove(typeVariable)) {
-                lowerRefBounds.get(upperRefTypeVariable).remove(typeVariable);
+            for (int upperRefTypeVariable : upperRefBounds.remove(typeVariable)) {
+                removeFromRefBounds(lowerRefBounds, upperRefTypeVariable, typeVariable);
             }
         }
     }
 
-    private Map<String, String> identifyVariablesToRename(PropagationDto dto) {
-        Map<String, String> variablesToRename = new HashMap<>();
+    private Map<Integer, Integer> identifyVariablesToRename(PropagationDto dto) {
+        Map<Integer, Integer> variablesToRename = new HashMap<>();
 
-        for (Map.Entry<String, Set<String>> entry : dto.typeVariablesToVisit.entrySet()) {
-            String typeVariable = entry.getKey();
-            String parameterTypeVariable = tryToReduceToTypeParameter(typeVariable, dto);
+        for (Map.Entry<Integer, Set<String>> entry : dto.typeVariablesToVisit.entrySet()) {
+            int typeVariable = entry.getKey();
+            Integer parameterTypeVariable = tryToReduceToTypeParameter(typeVariable, dto);
             if (parameterTypeVariable != null) {
                 variablesToRename.put(typeVariable, parameterTypeVariable);
             } else if (!hasLowerRefBounds(typeVariable)) {
@@ -1372,8 +2139,8 @@ public class BindingCollection implements IBindingCollection
         return variablesToRename;
     }
 
-    private String tryToReduceToTypeParameter(String typeVariable, PropagationDto dto) {
-        String renameTo = null;
+    private Integer tryToReduceToTypeParameter(int typeVariable, PropagationDto dto) {
+        Integer renameTo = null;
         if (hasLowerRefBounds(typeVariable)) {
             removeNonParameterLowerRefBounds(typeVariable, dto);
             //only remove upper ref if type variable has at least one type parameter as lower ref
@@ -1381,7 +2148,7 @@ public class BindingCollection implements IBindingCollection
                 upperRefBounds.remove(typeVariable);
             }
 
-            String typeParameter = getTypeParameterIfSingleLowerRefBound(typeVariable, dto);
+            Integer typeParameter = getTypeParameterIfSingleLowerRefBound(typeVariable, dto);
             if (typeParameter != null) {
                 if (haveSameLowerTypeBound(typeVariable, typeParameter)) {
                     renameTo = typeParameter;
@@ -1391,22 +2158,22 @@ public class BindingCollection implements IBindingCollection
         return renameTo;
     }
 
-    private void removeNonParameterLowerRefBounds(String typeVariable, PropagationDto dto) {
-        Iterator<String> iterator = lowerRefBounds.get(typeVariable).iterator();
+    private void removeNonParameterLowerRefBounds(int typeVariable, PropagationDto dto) {
+        Iterator<Integer> iterator = lowerRefBounds.getForWrite(typeVariable).iterator();
         while (iterator.hasNext()) {
-            String refTypeVariable = iterator.next();
+            int refTypeVariable = iterator.next();
             if (!dto.typeParameters.contains(refTypeVariable)) {
                 iterator.remove();
-                upperRefBounds.get(refTypeVariable).remove(typeVariable);
+                removeFromRefBounds(upperRefBounds, refTypeVariable, typeVariable);
             }
         }
     }
 
-    private String getTypeParameterIfSingleLowerRefBound(String typeVariable, PropagationDto dto) {
-        String parameterTypeVariable = null;
-        Set<String> refTypeVariables = lowerRefBounds.get(typeVariable);
+    private Integer getTypeParameterIfSingleLowerRefBound(int typeVariable, PropagationDto dto) {
+        Integer parameterTypeVariable = null;
+        TypeVariableSet refTypeVariables = lowerRefBounds.get(typeVariable);
         if (refTypeVariables.size() == 1) {
-            String refTypeVariable = refTypeVariables.iterator().next();
+            Integer refTypeVariable = refTypeVariables.iterator().next();
             if (dto.typeParameters.contains(refTypeVariable)) {
                 parameterTypeVariable = refTypeVariable;
             }
@@ -1414,7 +2181,7 @@ public class BindingCollection implements IBindingCollection
         return parameterTypeVariable;
     }
 
-    private boolean haveSameLowerTypeBound(String typeVariable, String parameterTypeVariable) {
+    private boolean haveSameLowerTypeBound(int typeVariable, int parameterTypeVariable) {
         boolean canBeMerged;
         if (hasLowerTypeBounds(typeVariable)) {
             canBeMerged = hasLowerTypeBounds(parameterTypeVariable);
@@ -1430,41 +2197,42 @@ public class BindingCollection implements IBindingCollection
         return canBeMerged;
     }
 
-    private void renameTypeVariables(Map<String, String> typeVariablesToRename) {
-        for (Map.Entry<String, String> entry : typeVariablesToRename.entrySet()) {
-            String typeVariable = entry.getKey();
-            String parameterTypeVariable = entry.getValue();
+    private void renameTypeVariables(Map<Integer, Integer> typeVariablesToRename) {
+        for (Map.Entry<Integer, Integer> entry : typeVariablesToRename.entrySet()) {
+            int typeVariable = entry.getKey();
+            int parameterTypeVariable = entry.getValue();
             // need to remove the existing ref between typeVariable and parameterTypeVariable before we rename
             // otherwise we create inadvertently a self ref even though we do not have one
-            lowerRefBounds.get(typeVariable).remove(parameterTypeVariable);
-            upperRefBounds.get(parameterTypeVariable).remove(typeVariable);
+            removeFromRefBounds(lowerRefBounds, typeVariable, parameterTypeVariable);
+            removeFromRefBounds(upperRefBounds, parameterTypeVariable, typeVariable);
             mergeFirstIntoSecondAfterContainsCheck(typeVariable, parameterTypeVariable, false);
         }
     }
 
-    private String renameToRecursiveTypeParameters(PropagationDto dto) {
-        String returnTypeVariable = dto.returnTypeVariable;
+    private int renameToRecursiveTypeParameters(PropagationDto dto) {
+        int returnTypeVariable = dto.returnTypeVariable;
         boolean needToRemoveReturnTypeVariable = true;
 
-        for (String typeParameter : dto.recursiveTypeParameters) {
+        for (int typeParameter : dto.recursiveTypeParameters) {
             //could be already renamed by now
             if (hasUpperBounds(typeParameter)) {
-                Set<String> parameterUpperRefs = upperRefBounds.get(typeParameter);
+                TypeVariableSet parameterUpperRefs = upperRefBounds.getForWrite(typeParameter);
                 boolean mergedOne = true;
                 //
                 while (mergedOne) {
                     mergedOne = false;
-                    for (String typeVariable : parameterUpperRefs) {
-                        boolean isReturnTypeVariable = typeVariable.equals(returnTypeVariable);
+                    for (int typeVariable : parameterUpperRefs) {
+                        boolean isReturnTypeVariable = typeVariable == returnTypeVariable;
                         if (isReturnTypeVariable || hasReturnTypeVariableAsUpper(typeVariable, returnTypeVariable)) {
                             dto.typeVariablesToVisit.remove(typeVariable);
                             if (isReturnTypeVariable) {
                                 if (needToRemoveReturnTypeVariable) {
-                                    Set<String> returnVariableLowerRefs = lowerRefBounds.get(dto.returnTypeVariable);
-                                    for (String refTypeVariable : dto.removeReturnTypeVariable) {
+                                    for (int refTypeVariable : dto.removeReturnTypeVariable) {
                                         if (hasUpperRefBounds(refTypeVariable)) {
-                                            upperRefBounds.get(refTypeVariable).remove(dto.returnTypeVariable);
-                                            returnVariableLowerRefs.remove(refTypeVariable);
+                                            removeFromRefBounds(
+                                                    upperRefBounds, refTypeVariable, dto.returnTypeVariable);
+                                            removeFromRefBounds(
+                                                    lowerRefBounds, dto.returnTypeVariable, refTypeVariable);
                                         }
                                     }
                                     needToRemoveReturnTypeVariable = false;
@@ -1489,41 +2257,43 @@ public class BindingCollection implements IBindingCollection
         return returnTypeVariable;
     }
 
-    private boolean hasReturnTypeVariableAsUpper(String typeVariable, String returnTypeVariable) {
+    private boolean hasReturnTypeVariableAsUpper(int typeVariable, int returnTypeVariable) {
         return hasUpperRefBounds(typeVariable)
                 && upperRefBounds.get(typeVariable).contains(returnTypeVariable);
     }
 
     @Override
     public void mergeFirstIntoSecond(String firstTypeVariable, String secondTypeVariable) {
-        if (!typeVariable2Variables.containsKey(firstTypeVariable)) {
+        if (!typeVariable2Id.containsKey(firstTypeVariable)) {
             throw new IllegalArgumentException("no variable has a binding for type variable "
                     + "\"" + firstTypeVariable + "\"");
         }
 
-        if (!typeVariable2Variables.containsKey(secondTypeVariable)) {
+        if (!typeVariable2Id.containsKey(secondTypeVariable)) {
             throw new IllegalArgumentException(
                     "no variable has a binding for type variable \"" + secondTypeVariable + "\"");
         }
 
-        if (isNotSelfReference(firstTypeVariable, secondTypeVariable)) {
-            mergeFirstIntoSecondAfterContainsCheck(firstTypeVariable, secondTypeVariable, false);
+        int firstId = getId(firstTypeVariable);
+        int secondId = getId(secondTypeVariable);
+        if (isNotSelfReference(firstId, secondId)) {
+            mergeFirstIntoSecondAfterContainsCheck(firstId, secondId, false);
         }
     }
 
     @Override
     public void renameTypeVariable(String typeVariable, String newName) {
-        if (!typeVariable2Variables.containsKey(typeVariable)) {
+        if (!typeVariable2Id.containsKey(typeVariable)) {
             throw new IllegalArgumentException("no variable has a binding for type variable \"" + typeVariable + "\"");
         }
 
-        if (typeVariable2Variables.containsKey(newName)) {
+        if (typeVariable2Id.containsKey(newName)) {
             throw new IllegalArgumentException("cannot use \"" + newName + "\" as name of the type parameter "
                     + "since it is already used as type variable in this binding");
         }
 
-        if (isNotSelfReference(typeVariable, newName)) {
-            renameTypeVariableAfterContainsCheck(typeVariable, newName);
+        if (!typeVariable.equals(newName)) {
+            renameTypeVariableAfterContainsCheck(getId(typeVariable), newName);
         }
     }
 
@@ -1532,47 +2302,31 @@ public class BindingCollection implements IBindingCollection
         renameTypeVariable(typeVariable, "V" + count++);
     }
 
-    private void renameTypeVariableAfterContainsCheck(String typeVariable, String newName) {
-        IUnionTypeSymbol lowerBound = lowerTypeBounds.remove(typeVariable);
-        if (lowerBound != null) {
-            lowerTypeBounds.put(newName, lowerBound);
-        }
-        IIntersectionTypeSymbol upperBound = upperTypeBounds.remove(typeVariable);
-        if (upperBound != null) {
-            upperTypeBounds.put(newName, upperBound);
-        }
+    private void renameTypeVariableAfterContainsCheck(int typeVariable, String newName) {
+        // bounds and refs are based on ids and hence do not need to be touched, only the names change.
+        String typeVariableName = getName(typeVariable);
+        typeVariable2Id.move(typeVariableName, newName);
+        id2TypeVariable.put(typeVariable, newName);
+        setTypeVariableOfReferences(typeVariable2Variables.get(typeVariable), newName);
 
-        if (hasLowerRefBounds(typeVariable)) {
-            Set<String> refBounds = lowerRefBounds.remove(typeVariable);
-            lowerRefBounds.put(newName, refBounds);
-            for (String lowerRefTypeVariable : refBounds) {
-                Set<String> refRefBounds = upperRefBounds.get(lowerRefTypeVariable);
-                refRefBounds.remove(typeVariable);
-                refRefBounds.add(newName);
-            }
-        }
-        if (hasUpperRefBounds(typeVariable)) {
-            Set<String> refBounds = upperRefBounds.remove(typeVariable);
-            upperRefBounds.put(newName, refBounds);
-            for (String upperRefTypeVariable : refBounds) {
-                Set<String> refRefBounds = lowerRefBounds.get(upperRefTypeVariable);
-                refRefBounds.remove(typeVariable);
-                refRefBounds.add(newName);
+        if (typeVariable2BoundTypes.containsKey(typeVariable)) {
+            for (IParametricType parametricType : typeVariable2BoundTypes.get(typeVariable)) {
+                renameTypeParameter(parametricType, typeVariableName, newName);
             }
         }
+    }
 
-        Set<String> variables = typeVariable2Variables.remove(typeVariable);
-        typeVariable2Variables.put(newName, variables);
-        for (String variableId : variables) {
-            variable2TypeVariable.get(variableId).setTypeVariable(newName);
-        }
-
-        if (typeVariable2BoundTypes.containsKey(typeVariable)) {
-            Set<IParametricType> boundTypes = typeVariable2BoundTypes.remove(typeVariable);
-            typeVariable2BoundTypes.put(newName, boundTypes);
-            for (IParametricType parametricType : boundTypes) {
-                parametricType.renameTypeParameter(typeVariable, newName);
-            }
+    private void renameTypeParameter(
+            final IParametricType parametricType, final String typeParameter, final String newTypeParameter) {
+        parametricType.renameTypeParameter(typeParameter, newTypeParameter);
+        if (trail != null) {
+            trail.push(new Trail.IUndoable()
+            {
+                @Override
+                public void undo() {
+                    parametricType.renameTypeParameter(newTypeParameter, typeParameter);
+                }
+            });
         }
     }
 
@@ -1581,14 +2335,14 @@ public class BindingCollection implements IBindingCollection
         int size = typeVariables.size();
         for (int i = 0; i < size; ++i) {
             String typeVariable = typeVariables.get(i);
-            if (!typeVariable2Variables.containsKey(typeVariable)) {
+            if (!typeVariable2Id.containsKey(typeVariable)) {
                 for (int j = 0; j < i; ++j) {
-                    typeVariable2BoundTypes.get(typeVariables.get(j)).remove(parametricType);
+                    removeFromSetInMap(typeVariable2BoundTypes, getId(typeVariables.get(j)), parametricType);
                 }
                 throw new IllegalArgumentException("no variable has a binding for type variable"
                         + " \"" + typeVariable + "\"");
             }
-            MapHelper.addToSetInMap(typeVariable2BoundTypes, typeVariable, parametricType);
+            addToSetInMap(typeVariable2BoundTypes, getId(typeVariable), parametricType);
         }
 
         try {
@@ -1596,7 +2350,7 @@ public class BindingCollection implements IBindingCollection
         } catch (IllegalArgumentException ex) {
             //remove registration before throwing the exception further
             for (String typeVariable : typeVariables) {
-                typeVariable2BoundTypes.get(typeVariable).remove(parametricType);
+                removeFromSetInMap(typeVariable2BoundTypes, getId(typeVariable), parametricType);
             }
             throw ex;
         }
@@ -1612,22 +2366,162 @@ public class BindingCollection implements IBindingCollection
         mode = newMode;
     }
 
+    /**
+     * Limits the work spent on bound propagation from now on, see {@link SolvingBudget}. Propagation steps which were
+     * already made count against the given budget as well.
+     */
+    public void setSolvingBudget(SolvingBudget theBudget) {
+        budget = theBudget;
+    }
+
+    public SolvingBudget getSolvingBudget() {
+        return budget;
+    }
+
+    public int getNumberOfPropagationSteps() {
+        return propagationSteps;
+    }
+
+    public ITypeHelper getTypeHelper() {
+        return typeHelper;
+    }
+
     @Override
     public EBindingCollectionMode getMode() {
         return mode;
     }
 
+    /**
+     * Creates a checkpoint to which this binding collection can be rolled back via {@link #rollback(int)}.
+     * <p/>
+     * Checkpoints can be nested and each of them needs to be either rolled back or committed via
+     * {@link #commit(int)}. Notice, fixing a type parameter which is bound to a parametric type cannot be undone and
+     * is hence not supported as long as a checkpoint is active.
+     *
+     * @return The checkpoint which needs to be passed to {@link #rollback(int)} or {@link #commit(int)}.
+     */
+    public int checkpoint() {
+        if (trail == null) {
+            trail = new Trail();
+        }
+        setTrailOnMaps(trail);
+
+        int checkpoint = trail.size();
+        final int oldCount = count;
+        final int oldHelperVariableCount = helperVariableCount;
+        final int oldNumberOfConvertibleApplications = numberOfConvertibleApplications;
+        final int oldNextTypeVariableId = nextTypeVariableId;
+        final EBindingCollectionMode oldMode = mode;
+        final int oldPropagationSteps = propagationSteps;
+        trail.push(new Trail.IUndoable()
+        {
+            @Override
+            public void undo() {
+                count = oldCount;
+                helperVariableCount = oldHelperVariableCount;
+                numberOfConvertibleApplications = oldNumberOfConvertibleApplications;
+                nextTypeVariableId = oldNextTypeVariableId;
+                mode = oldMode;
+                propagationSteps = oldPropagationSteps;
+            }
+        });
+        checkpoints.push(checkpoint);
+        return checkpoint;
+    }
+
+    /**
+     * Undoes all modifications made since the given checkpoint was created, nested checkpoints are rolled back as
+     * well.
+     */
+    public void rollback(int checkpoint) {
+        removeCheckpoint(checkpoint);
+        trail.undoTo(checkpoint);
+        if (checkpoints.isEmpty()) {
+            trail = null;
+        }
+        setTrailOnMaps(trail);
+    }
+
+    /**
+     * Keeps all modifications made since the given checkpoint was created, nested checkpoints are committed as well.
+     * <p/>
+     * The modifications can still be undone by rolling back an outer checkpoint.
+     */
+    public void commit(int checkpoint) {
+        removeCheckpoint(checkpoint);
+        if (checkpoints.isEmpty()) {
+            trail = null;
+            setTrailOnMaps(null);
+        }
+    }
+
+    private void removeCheckpoint(int checkpoint) {
+        if (!checkpoints.contains(checkpoint)) {
+            throw new IllegalArgumentException("checkpoint " + checkpoint + " is not active.");
+        }
+        //nested checkpoints are removed as well
+        while (checkpoints.pop() != checkpoint) {
+            //nothing to do, pop is all we want
+        }
+    }
+
+    /**
+     * Creates an immutable snapshot of this binding collection which can be shared among threads, see
+     * {@link FrozenBindingCollection}.
+     * <p/>
+     * The snapshot copies the non-fixed type bounds and shares the fixed ones with this binding collection, hence
+     * this binding collection copies the latter before it modifies them the next time.
+     */
+    public FrozenBindingCollection freeze() {
+        if (!checkpoints.isEmpty()) {
+            throw new IllegalStateException("cannot freeze a binding collection as long as a checkpoint is active.");
+        }
+
+        FrozenBindingCollection frozenBindingCollection = new FrozenBindingCollection(this);
+        lowerTypeBounds.markAllAsShared();
+        upperTypeBounds.markAllAsShared();
+        return frozenBindingCollection;
+    }
+
+    /**
+     * Returns a fingerprint of the current state of this binding collection which does not depend on the names of the
+     * type variables, see {@link BindingCollectionFingerprint}.
+     */
+    public BindingCollectionFingerprint fingerprint() {
+        return BindingCollectionFingerprint.of(this);
+    }
+
+    private void setTrailOnMaps(Trail theTrail) {
+        typeVariable2Id.setTrail(theTrail);
+        id2TypeVariable.setTrail(theTrail);
+        lowerTypeBounds.setTrail(theTrail);
+        upperTypeBounds.setTrail(theTrail);
+        lowerRefBounds.setTrail(theTrail);
+        upperRefBounds.setTrail(theTrail);
+        variable2TypeVariable.setTrail(theTrail);
+        variable2Id.setTrail(theTrail);
+        mergedInto.setTrail(theTrail);
+        typeVariable2Variables.setTrail(theTrail);
+        appliedOverloads.setTrail(theTrail);
+        typeVariable2BoundTypes.setTrail(theTrail);
+        typeVariablesWithLowerConvertible.setTrail(theTrail);
+        typeVariablesWithUpperConvertible.setTrail(theTrail);
+        dirtyTypeVariables.setTrail(theTrail);
+    }
+
     @Override
     public void setLowerTypeBounds(String typeVariable, IUnionTypeSymbol lowerTypeBound) {
         if (mode != EBindingCollectionMode.Modification) {
             throw new IllegalStateException("Can only set a lower type bound in modification mode");
         }
 
-        if (!typeVariable2Variables.containsKey(typeVariable)) {
+        if (!typeVariable2Id.containsKey(typeVariable)) {
             throw new IllegalArgumentException("no variable has a binding for type variable \"" + typeVariable + "\"");
         }
 
-        lowerTypeBounds.put(typeVariable, lowerTypeBound);
+        int id = getId(typeVariable);
+        lowerTypeBounds.put(id, lowerTypeBound);
+        markAsDirty(id);
     }
 
     @Override
@@ -1636,11 +2530,13 @@ public class BindingCollection implements IBindingCollection
             throw new IllegalStateException("Can only set an upper type bound in modification mode");
         }
 
-        if (!typeVariable2Variables.containsKey(typeVariable)) {
+        if (!typeVariable2Id.containsKey(typeVariable)) {
             throw new IllegalArgumentException("no variable has a binding for type variable \"" + typeVariable + "\"");
         }
 
-        upperTypeBounds.put(typeVariable, upperTypeBound);
+        int id = getId(typeVariable);
+        upperTypeBounds.put(id, upperTypeBound);
+        markAsDirty(id);
     }
 
     @Override
@@ -1649,11 +2545,16 @@ public class BindingCollection implements IBindingCollection
             throw new IllegalStateException("Can only remove a lower type bound in modification mode");
         }
 
-        if (!typeVariable2Variables.containsKey(typeVariable)) {
+        if (!typeVariable2Id.containsKey(typeVariable)) {
             throw new IllegalArgumentException("no variable has a binding for type variable \"" + typeVariable + "\"");
         }
 
-        return lowerTypeBounds.remove(typeVariable);
+        //the caller might modify the removed bound, hence it must not be shared with a copy
+        int id = getId(typeVariable);
+        IUnionTypeSymbol lowerTypeBound = lowerTypeBounds.getForWrite(id);
+        lowerTypeBounds.remove(id);
+        markAsDirty(id);
+        return lowerTypeBound;
     }
 
     @Override
@@ -1662,36 +2563,43 @@ public class BindingCollection implements IBindingCollection
             throw new IllegalStateException("Can only remove an upper type bound in modification mode");
         }
 
-        if (!typeVariable2Variables.containsKey(typeVariable)) {
+        if (!typeVariable2Id.containsKey(typeVariable)) {
             throw new IllegalArgumentException("no variable has a binding for type variable \"" + typeVariable + "\"");
         }
 
-        return upperTypeBounds.remove(typeVariable);
+        //the caller might modify the removed bound, hence it must not be shared with a copy
+        int id = getId(typeVariable);
+        IIntersectionTypeSymbol upperTypeBound = upperTypeBounds.getForWrite(id);
+        upperTypeBounds.remove(id);
+        markAsDirty(id);
+        return upperTypeBound;
     }
 
     private void mergeFirstIntoSecondAfterContainsCheck(
-            String typeVariable, String newTypeVariable, boolean avoidSelfRef) {
+            int typeVariable, int newTypeVariable, boolean avoidSelfRef) {
+        //the results are not used, hence all additions share one dto
+        BoundResultDto result = new BoundResultDto();
         if (hasLowerTypeBounds(typeVariable)) {
-            addLowerTypeBoundAfterContainsCheck(newTypeVariable, lowerTypeBounds.get(typeVariable));
+            addLowerTypeBoundAfterContainsCheck(newTypeVariable, lowerTypeBounds.get(typeVariable), result);
         }
         if (hasUpperTypeBounds(typeVariable)) {
-            addUpperTypeBoundAfterContainsCheck(newTypeVariable, upperTypeBounds.get(typeVariable));
+            addUpperTypeBoundAfterContainsCheck(newTypeVariable, upperTypeBounds.get(typeVariable), true, result);
         }
 
         if (hasLowerRefBounds(typeVariable)) {
-            for (String lowerRefTypeVariable : lowerRefBounds.remove(typeVariable)) {
-                if (!avoidSelfRef || !newTypeVariable.equals(lowerRefTypeVariable)) {
-                    addLowerRefBound(newTypeVariable, lowerRefTypeVariable, true);
+            for (int lowerRefTypeVariable : lowerRefBounds.remove(typeVariable)) {
+                if (!avoidSelfRef || newTypeVariable != lowerRefTypeVariable) {
+                    addLowerRefBound(newTypeVariable, lowerRefTypeVariable, true, result);
                 }
-                upperRefBounds.get(lowerRefTypeVariable).remove(typeVariable);
+                removeFromRefBounds(upperRefBounds, lowerRefTypeVariable, typeVariable);
             }
         }
         if (hasUpperRefBounds(typeVariable)) {
-            for (String upperRefTypeVariable : upperRefBounds.remove(typeVariable)) {
-                if (!avoidSelfRef || !newTypeVariable.equals(upperRefTypeVariable)) {
-                    addLowerRefBound(upperRefTypeVariable, newTypeVariable, true);
+            for (int upperRefTypeVariable : upperRefBounds.remove(typeVariable)) {
+                if (!avoidSelfRef || newTypeVariable != upperRefTypeVariable) {
+                    addLowerRefBound(upperRefTypeVariable, newTypeVariable, true, result);
                 }
-                lowerRefBounds.get(upperRefTypeVariable).remove(typeVariable);
+                removeFromRefBounds(lowerRefBounds, upperRefTypeVariable, typeVariable);
             }
         }
 
@@ -1701,55 +2609,233 @@ public class BindingCollection implements IBindingCollection
         lowerTypeBounds.remove(typeVariable);
         upperTypeBounds.remove(typeVariable);
 
-        Set<String> variables = typeVariable2Variables.get(newTypeVariable);
-        for (String variableId : typeVariable2Variables.remove(typeVariable)) {
-            variable2TypeVariable.get(variableId).setTypeVariable(newTypeVariable);
-            variables.add(variableId);
+        String typeVariableName = getName(typeVariable);
+        String newTypeVariableName = getName(newTypeVariable);
+
+        Set<String> variableIds = typeVariable2Variables.remove(typeVariable);
+        setTypeVariableOfReferences(variableIds, newTypeVariableName);
+        for (String variableId : variableIds) {
+            variable2Id.put(variableId, newTypeVariable);
         }
+        typeVariable2Variables.getForWrite(newTypeVariable).addAll(variableIds);
+        mergedInto.put(typeVariable, newTypeVariable);
+        dirtyTypeVariables.remove(typeVariable);
+        markAsDirty(newTypeVariable);
+        // the id of the merged type variable is not reused, it merely keeps its name for ids which are still
+        // referenced somewhere (e.g. in the PropagationDto during tryToFix)
+        typeVariable2Id.remove(typeVariableName);
 
         if (typeVariable2BoundTypes.containsKey(typeVariable)) {
-            Set<IParametricType> boundTypes = typeVariable2BoundTypes.get(newTypeVariable);
+            Set<IParametricType> boundTypes = typeVariable2BoundTypes.getForWrite(newTypeVariable);
             if (boundTypes == null) {
                 boundTypes = new HashSet<>();
                 typeVariable2BoundTypes.put(newTypeVariable, boundTypes);
             }
 
             for (IParametricType parametricType : typeVariable2BoundTypes.remove(typeVariable)) {
-                parametricType.renameTypeParameter(typeVariable, newTypeVariable);
+                renameTypeParameter(parametricType, typeVariableName, newTypeVariableName);
                 boundTypes.add(parametricType);
             }
         }
 
         if (hasFirstConvertibleToSecond(typeVariablesWithLowerConvertible, newTypeVariable, typeVariable)) {
-            typeVariablesWithLowerConvertible.get(newTypeVariable).remove(typeVariable);
+            removeFromSetInMap(typeVariablesWithLowerConvertible, newTypeVariable, typeVariable);
             //null indicates that it shall be deleted
             ITypeSymbol newLowerBound = checkForAndRegisterOrDeleteConvertibleType(
-                    newTypeVariable, lowerTypeBounds.get(newTypeVariable), null);
+                    newTypeVariable, lowerTypeBounds.getForWrite(newTypeVariable), null);
             if (newLowerBound == null) {
                 lowerTypeBounds.remove(newTypeVariable);
             }
         }
 
         if (hasFirstConvertibleToSecond(typeVariablesWithUpperConvertible, newTypeVariable, typeVariable)) {
-            typeVariablesWithUpperConvertible.get(newTypeVariable).remove(typeVariable);
+            removeFromSetInMap(typeVariablesWithUpperConvertible, newTypeVariable, typeVariable);
             //null indicates that it shall be deleted
             ITypeSymbol newUpperBound = checkForAndRegisterOrDeleteConvertibleType(
-                    newTypeVariable, upperTypeBounds.get(newTypeVariable), null);
+                    newTypeVariable, upperTypeBounds.getForWrite(newTypeVariable), null);
             if (newUpperBound == null) {
                 upperTypeBounds.remove(newTypeVariable);
             }
         }
     }
 
-    private boolean hasFirstConvertibleToSecond(Map<String, Set<String>> typeVariablesWithConvertible,
-            String firstTypeVariable, String secondTypeVariable) {
+    private boolean hasFirstConvertibleToSecond(CopyOnWriteIntMap<Set<Integer>> typeVariablesWithConvertible,
+            int firstTypeVariable, int secondTypeVariable) {
         return typeVariablesWithConvertible.containsKey(firstTypeVariable)
                 && typeVariablesWithConvertible.get(firstTypeVariable).contains(secondTypeVariable);
     }
 
+    private void registerCopiedParametricTypes(Collection<IParametricTypeSymbol> parametricTypeSymbols) {
+        for (IParametricTypeSymbol parametricTypeSymbol : parametricTypeSymbols) {
+            for (String typeParameter : parametricTypeSymbol.getTypeParameters()) {
+                Integer typeVariable = getId(typeParameter);
+                if (typeVariable != null) {
+                    addToSetInMap(typeVariable2BoundTypes, typeVariable, parametricTypeSymbol);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a lower type bound before it is modified, the copied parametric types are registered as bound types.
+     */
+    private class LowerTypeBoundCopier implements CopyOnWriteMap.IValueCopier<IUnionTypeSymbol>
+    {
+        @Override
+        public IUnionTypeSymbol copy(IUnionTypeSymbol value) {
+            Collection<IParametricTypeSymbol> parametricTypeSymbols = new ArrayDeque<>();
+            IUnionTypeSymbol copy = value.copy(parametricTypeSymbols);
+            registerCopiedParametricTypes(parametricTypeSymbols);
+            return copy;
+        }
+    }
+
+    /**
+     * Copies an upper type bound before it is modified, the copied parametric types are registered as bound types.
+     */
+    private class UpperTypeBoundCopier implements CopyOnWriteMap.IValueCopier<IIntersectionTypeSymbol>
+    {
+        @Override
+        public IIntersectionTypeSymbol copy(IIntersectionTypeSymbol value) {
+            Collection<IParametricTypeSymbol> parametricTypeSymbols = new ArrayDeque<>();
+            IIntersectionTypeSymbol copy = value.copy(parametricTypeSymbols);
+            registerCopiedParametricTypes(parametricTypeSymbols);
+            return copy;
+        }
+    }
+
+    private static class SetCopier<T> implements CopyOnWriteMap.IValueCopier<Set<T>>
+    {
+        @Override
+        public Set<T> copy(Set<T> value) {
+            return new HashSet<>(value);
+        }
+    }
+
+    /**
+     * An unmodifiable view on a set of type variable ids which presents them by their names.
+     */
+    private class TypeVariableNames extends AbstractSet<String>
+    {
+        private final Set<Integer> ids;
+
+        TypeVariableNames(Set<Integer> theIds) {
+            ids = theIds;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            final Iterator<Integer> iterator = ids.iterator();
+            return new Iterator<String>()
+            {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return getName(iterator.next());
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("the set of type variables cannot be modified");
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ids.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = o instanceof String ? getId((String) o) : null;
+            return id != null && ids.contains(id);
+        }
+    }
+
+    /**
+     * Estimates the memory retained by this binding collection and reports the number of entries per internal map.
+     * Maps which are shared with copies (copy-on-write) are counted by each binding collection.
+     */
+    @Override
+    public MemoryFootprint estimateMemoryFootprint() {
+        MemoryFootprint footprint = new MemoryFootprint("BindingCollection");
+        footprint.addHashMapEntries("typeVariable2Id", typeVariable2Id.size());
+        addIntMapEntries(footprint, "id2TypeVariable", id2TypeVariable, 0);
+        addIntMapEntries(footprint, "lowerTypeBounds", lowerTypeBounds, estimateTypeBoundBytes(lowerTypeBounds));
+        addIntMapEntries(footprint, "upperTypeBounds", upperTypeBounds, estimateTypeBoundBytes(upperTypeBounds));
+        addIntMapEntries(footprint, "lowerRefBounds", lowerRefBounds, estimateRefBoundBytes(lowerRefBounds));
+        addIntMapEntries(footprint, "upperRefBounds", upperRefBounds, estimateRefBoundBytes(upperRefBounds));
+        footprint.addHashMapEntries("variable2TypeVariable", variable2TypeVariable.size());
+        footprint.addBytes((long) variable2TypeVariable.size()
+                * (MemoryFootprint.OBJECT_HEADER_BYTES + MemoryFootprint.REFERENCE_BYTES));
+        footprint.addHashMapEntries("variable2Id", variable2Id.size());
+        addIntMapEntries(footprint, "mergedInto", mergedInto,
+                (long) mergedInto.size() * MemoryFootprint.BOXED_INTEGER_BYTES);
+        addIntMapEntries(footprint, "typeVariable2Variables", typeVariable2Variables,
+                estimateHashSetBytes(typeVariable2Variables));
+        footprint.addHashMapEntries("appliedOverloads", appliedOverloads.size());
+        addIntMapEntries(footprint, "typeVariable2BoundTypes", typeVariable2BoundTypes,
+                estimateHashSetBytes(typeVariable2BoundTypes));
+        addIntMapEntries(footprint, "typeVariablesWithLowerConvertible", typeVariablesWithLowerConvertible,
+                estimateHashSetBytes(typeVariablesWithLowerConvertible));
+        addIntMapEntries(footprint, "typeVariablesWithUpperConvertible", typeVariablesWithUpperConvertible,
+                estimateHashSetBytes(typeVariablesWithUpperConvertible));
+        addIntMapEntries(footprint, "dirtyTypeVariables", dirtyTypeVariables, 0);
+        return footprint;
+    }
+
+    private static void addIntMapEntries(
+            MemoryFootprint footprint, String mapName, CopyOnWriteIntMap<?> map, long valueBytes) {
+        long arrayBytes = MemoryFootprint.OBJECT_HEADER_BYTES + (long) map.capacity() * MemoryFootprint.REFERENCE_BYTES;
+        footprint.addEntries(mapName, map.size(), arrayBytes + valueBytes);
+    }
+
+    private static long estimateTypeBoundBytes(CopyOnWriteIntMap<? extends IContainerTypeSymbol> typeBounds) {
+        long bytes = 0;
+        int capacity = typeBounds.capacity();
+        for (int typeVariable = 0; typeVariable < capacity; ++typeVariable) {
+            IContainerTypeSymbol typeBound = typeBounds.get(typeVariable);
+            if (typeBound instanceof IMemoryFootprintProvider) {
+                bytes += ((IMemoryFootprintProvider) typeBound).estimateMemoryFootprint().getEstimatedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateRefBoundBytes(CopyOnWriteIntMap<TypeVariableSet> refBounds) {
+        long bytes = 0;
+        int capacity = refBounds.capacity();
+        for (int typeVariable = 0; typeVariable < capacity; ++typeVariable) {
+            TypeVariableSet refTypeVariables = refBounds.get(typeVariable);
+            if (refTypeVariables != null) {
+                bytes += 2 * MemoryFootprint.OBJECT_HEADER_BYTES + 8L * refTypeVariables.getNumberOfWords();
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateHashSetBytes(CopyOnWriteIntMap<? extends Set<?>> sets) {
+        long bytes = 0;
+        int capacity = sets.capacity();
+        for (int typeVariable = 0; typeVariable < capacity; ++typeVariable) {
+            Set<?> set = sets.get(typeVariable);
+            if (set != null) {
+                bytes += 2 * MemoryFootprint.OBJECT_HEADER_BYTES
+                        + (long) set.size() * MemoryFootprint.HASH_MAP_ENTRY_BYTES;
+            }
+        }
+        return bytes;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
+        BoundsAppender boundsAppender = new BoundsAppender(this);
         sb.append("[");
         boolean isNotFirst = false;
         for (Map.Entry<String, ITypeVariableReference> entry : variable2TypeVariable.entrySet()) {
@@ -1759,13 +2845,9 @@ public class BindingCollection implements IBindingCollection
                 isNotFirst = true;
             }
             sb.append(entry.getKey()).append(":");
-            String typeVariable = entry.getValue().getTypeVariable();
-            sb.append(typeVariable)
-                    .append("<")
-                    .append(getLowerBoundConstraintIds(typeVariable).toString())
-                    .append(",")
-                    .append(getUpperBoundConstraintIds(typeVariable).toString())
-                    .append(">");
+            String typeVariable = getName(getVariableTypeVariable(entry.getKey()));
+            sb.append(typeVariable);
+            boundsAppender.append(sb, typeVariable);
             if (entry.getValue().hasFixedType()) {
                 sb.append("#");
             }
@@ -1775,4 +2857,4 @@ public class BindingCollection implements IBindingCollection
     }
 }
 
-//CHECKSTYLE:ON:Header|FileLength
\ No newline at end of file
+//CHECKSTYLE:ON:Header|FileLength
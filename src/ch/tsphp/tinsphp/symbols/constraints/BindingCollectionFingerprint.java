@@ -0,0 +1,127 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+import ch.tsphp.tinsphp.common.inference.constraints.OverloadApplicationDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A canonical fingerprint of a binding collection which does not depend on the names of its type variables.
+ * <p/>
+ * Type variables are renamed to canonical names in the order they are first used by the variables (sorted by their
+ * ids) and the bounds are described with these names. Two binding collections which are equivalent up to a renaming
+ * of their type variables have hence the same fingerprint. The 64-bit value is only a hash of the canonical form, use
+ * {@link #isEquivalentTo(BindingCollectionFingerprint)} in order to rule out collisions.
+ * <p/>
+ * Type bounds are described by their absolute names and applied overloads are compared by identity. Parametric types
+ * which contain the names of type variables in their absolute names are therefore not renamed and equivalent binding
+ * collections which use such types might not be detected as such.
+ */
+public final class BindingCollectionFingerprint
+{
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final List<Object> canonicalForm;
+    private final long value;
+
+    private BindingCollectionFingerprint(List<Object> theCanonicalForm) {
+        canonicalForm = theCanonicalForm;
+        long hash = FNV_OFFSET_BASIS;
+        for (Object part : canonicalForm) {
+            if (part instanceof String) {
+                String string = (String) part;
+                for (int i = 0; i < string.length(); ++i) {
+                    hash = (hash ^ string.charAt(i)) * FNV_PRIME;
+                }
+            } else if (part instanceof Map) {
+                //maps are compared by equals but their entries might use identity, hence only the size is hashed
+                hash = (hash ^ ((Map<?, ?>) part).size()) * FNV_PRIME;
+            } else {
+                hash = (hash ^ System.identityHashCode(part)) * FNV_PRIME;
+            }
+            //separator in order that ["ab", "c"] and ["a", "bc"] differ
+            hash = (hash ^ 0xff) * FNV_PRIME;
+        }
+        value = hash;
+    }
+
+    public static BindingCollectionFingerprint of(IBindingCollection bindingCollection) {
+        List<String> variableIds = new ArrayList<>(bindingCollection.getVariableIds());
+        Collections.sort(variableIds);
+
+        Map<String, String> canonicalNames = new HashMap<>();
+        List<String> typeVariables = new ArrayList<>();
+        List<Object> canonicalForm = new ArrayList<>();
+        canonicalForm.add(String.valueOf(bindingCollection.getMode()));
+        canonicalForm.add(String.valueOf(bindingCollection.getNumberOfConvertibleApplications()));
+        for (String variableId : variableIds) {
+            String typeVariable = bindingCollection.getTypeVariable(variableId);
+            String canonicalName = canonicalNames.get(typeVariable);
+            if (canonicalName == null) {
+                canonicalName = "T" + typeVariables.size();
+                canonicalNames.put(typeVariable, canonicalName);
+                typeVariables.add(typeVariable);
+            }
+            boolean hasFixedType = bindingCollection.getTypeVariableReference(variableId).hasFixedType();
+            canonicalForm.add(variableId + ":" + canonicalName + (hasFixedType ? "!" : ""));
+            OverloadApplicationDto appliedOverload = bindingCollection.getAppliedOverload(variableId);
+            if (appliedOverload != null) {
+                canonicalForm.add(appliedOverload.overload);
+                canonicalForm.add(appliedOverload.implicitConversions);
+                canonicalForm.add(appliedOverload.runtimeChecks);
+            }
+        }
+
+        for (String typeVariable : typeVariables) {
+            canonicalForm.add(describe(bindingCollection.getLowerTypeBounds(typeVariable)));
+            canonicalForm.add(describe(bindingCollection.getUpperTypeBounds(typeVariable)));
+            canonicalForm.add(describe(bindingCollection.getLowerRefBounds(typeVariable), canonicalNames));
+            canonicalForm.add(describe(bindingCollection.getUpperRefBounds(typeVariable), canonicalNames));
+        }
+        return new BindingCollectionFingerprint(canonicalForm);
+    }
+
+    private static String describe(ITypeSymbol typeSymbol) {
+        return typeSymbol != null ? typeSymbol.getAbsoluteName() : "";
+    }
+
+    private static String describe(Set<String> refTypeVariables, Map<String, String> canonicalNames) {
+        String description = "";
+        if (refTypeVariables != null && !refTypeVariables.isEmpty()) {
+            List<String> names = new ArrayList<>(refTypeVariables.size());
+            for (String refTypeVariable : refTypeVariables) {
+                String canonicalName = canonicalNames.get(refTypeVariable);
+                //a type variable without variable cannot be renamed canonically, hence we keep its name
+                names.add(canonicalName != null ? canonicalName : "?" + refTypeVariable);
+            }
+            Collections.sort(names);
+            description = names.toString();
+        }
+        return description;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Returns true if the binding collections of this and the given fingerprint are equivalent up to a renaming of
+     * their type variables (at the time the fingerprints were created).
+     */
+    public boolean isEquivalentTo(BindingCollectionFingerprint other) {
+        return value == other.value && canonicalForm.equals(other.canonicalForm);
+    }
+}
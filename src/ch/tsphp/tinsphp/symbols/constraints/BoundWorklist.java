@@ -0,0 +1,85 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A FIFO worklist of (type variable, bound) pairs which still need to be propagated along ref bounds.
+ * <p/>
+ * A pair is only added once per worklist, no matter whether it is still pending or was already polled. Bounds are
+ * compared by identity since the same bound instance is propagated along a chain of ref bounds.
+ */
+public class BoundWorklist
+{
+    private final Deque<PendingBound> pendingBounds = new ArrayDeque<>();
+    private final Set<PendingBound> addedBounds = new HashSet<>();
+
+    public BoundWorklist() {
+    }
+
+    /**
+     * Creates a worklist where the given pair is treated as already added and polled, i.e. the pair which is the
+     * origin of the propagation.
+     */
+    public BoundWorklist(int typeVariable, ITypeSymbol typeSymbol) {
+        addedBounds.add(new PendingBound(typeVariable, typeSymbol));
+    }
+
+    /**
+     * Adds the given pair unless it was already added before.
+     *
+     * @return true if it was added, false otherwise.
+     */
+    public boolean add(int typeVariable, ITypeSymbol typeSymbol) {
+        PendingBound pendingBound = new PendingBound(typeVariable, typeSymbol);
+        boolean isNew = addedBounds.add(pendingBound);
+        if (isNew) {
+            pendingBounds.add(pendingBound);
+        }
+        return isNew;
+    }
+
+    public boolean isEmpty() {
+        return pendingBounds.isEmpty();
+    }
+
+    public PendingBound poll() {
+        return pendingBounds.poll();
+    }
+
+    public static final class PendingBound
+    {
+        public final int typeVariable;
+        public final ITypeSymbol typeSymbol;
+
+        public PendingBound(int theTypeVariable, ITypeSymbol theTypeSymbol) {
+            typeVariable = theTypeVariable;
+            typeSymbol = theTypeSymbol;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            boolean isEqual = this == obj;
+            if (!isEqual && obj instanceof PendingBound) {
+                PendingBound other = (PendingBound) obj;
+                isEqual = typeVariable == other.typeVariable && typeSymbol == other.typeSymbol;
+            }
+            return isEqual;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * typeVariable + System.identityHashCode(typeSymbol);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+
+/**
+ * Appends the bounds of type variables in the form {@code <[lower1, @Tlower2],[upper1]>} to a StringBuilder.
+ * <p/>
+ * Can be reused for several type variables, hence a toString of a binding collection only needs one instance.
+ */
+final class BoundsAppender implements IBoundVisitor
+{
+    private final IBoundsVisitable bindingCollection;
+    private StringBuilder stringBuilder;
+    private boolean isNotFirst;
+
+    BoundsAppender(IBoundsVisitable theBindingCollection) {
+        bindingCollection = theBindingCollection;
+    }
+
+    public StringBuilder append(StringBuilder sb, String typeVariable) {
+        stringBuilder = sb;
+        sb.append("<[");
+        isNotFirst = false;
+        bindingCollection.visitLowerBounds(typeVariable, this);
+        sb.append("],[");
+        isNotFirst = false;
+        bindingCollection.visitUpperBounds(typeVariable, this);
+        sb.append("]>");
+        stringBuilder = null;
+        return sb;
+    }
+
+    @Override
+    public void visitTypeBound(String absoluteName, ITypeSymbol typeSymbol) {
+        appendSeparator();
+        stringBuilder.append(absoluteName);
+    }
+
+    @Override
+    public void visitRefBound(String refTypeVariable) {
+        appendSeparator();
+        stringBuilder.append("@").append(refTypeVariable);
+    }
+
+    private void appendSeparator() {
+        if (isNotFirst) {
+            stringBuilder.append(", ");
+        } else {
+            isNotFirst = true;
+        }
+    }
+}
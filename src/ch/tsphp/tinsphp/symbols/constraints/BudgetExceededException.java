@@ -0,0 +1,20 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+/**
+ * Thrown by a binding collection if its {@link SolvingBudget} is exceeded and it cannot or shall not widen the
+ * affected bounds to mixed.
+ */
+public class BudgetExceededException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    public BudgetExceededException(String message) {
+        super(message);
+    }
+}
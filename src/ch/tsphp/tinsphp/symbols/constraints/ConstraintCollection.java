@@ -9,14 +9,16 @@ package ch.tsphp.tinsphp.symbols.constraints;
 import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
 import ch.tsphp.tinsphp.common.inference.constraints.IConstraint;
 import ch.tsphp.tinsphp.common.inference.constraints.IConstraintCollection;
+import ch.tsphp.tinsphp.symbols.utils.IMemoryFootprintProvider;
+import ch.tsphp.tinsphp.symbols.utils.MemoryFootprint;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class ConstraintCollection implements IConstraintCollection
+public class ConstraintCollection implements IConstraintCollection, IMemoryFootprintProvider
 {
     private final List<IConstraint> constraints = new ArrayList<>();
-    private List<IBindingCollection> bindings = new ArrayList<>();
+    private List<IBindingCollection> bindings = new DeduplicatingBindingList();
     private String absoluteName;
 
     public ConstraintCollection(String theAbsoluteName) {
@@ -48,8 +50,29 @@ public class ConstraintCollection implements IConstraintCollection
         return bindings;
     }
 
+    /**
+     * Estimates the memory retained by the constraints and bindings, each binding which can estimate its memory is
+     * reported as child.
+     */
+    @Override
+    public MemoryFootprint estimateMemoryFootprint() {
+        MemoryFootprint footprint = new MemoryFootprint("ConstraintCollection " + absoluteName);
+        footprint.addListEntries("constraints", constraints.size());
+        footprint.addListEntries("bindings", bindings.size());
+        for (IBindingCollection bindingCollection : bindings) {
+            if (bindingCollection instanceof IMemoryFootprintProvider) {
+                footprint.addChild(((IMemoryFootprintProvider) bindingCollection).estimateMemoryFootprint());
+            }
+        }
+        return footprint;
+    }
+
     @Override
     public void setBindings(List<IBindingCollection> theBindings) {
-        bindings = theBindings;
+        if (theBindings instanceof DeduplicatingBindingList) {
+            bindings = theBindings;
+        } else {
+            bindings = new DeduplicatingBindingList(theBindings);
+        }
     }
 }
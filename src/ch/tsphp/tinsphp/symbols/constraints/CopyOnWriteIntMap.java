@@ -0,0 +1,250 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * An array based variant of {@link CopyOnWriteMap} for dense non-negative int keys, null values are not supported.
+ * <p/>
+ * The semantics regarding forks, ownership of values and trails are the same as the ones of {@link CopyOnWriteMap}.
+ */
+public class CopyOnWriteIntMap<V>
+{
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final CopyOnWriteMap.IValueCopier<V> valueCopier;
+    private Object[] values;
+    private CopyOnWriteMap.SharingState sharingState;
+    private int size;
+    private Trail trail;
+
+    //is null as long as this map was never forked, all values are owned in this case
+    private Set<V> ownedValues;
+    //the values which are owned again once the trail is removed (null means all), only used while a trail is set
+    private Set<V> ownedValuesBeforeTrail;
+
+    public CopyOnWriteIntMap(CopyOnWriteMap.IValueCopier<V> theValueCopier) {
+        valueCopier = theValueCopier;
+        values = new Object[INITIAL_CAPACITY];
+        sharingState = new CopyOnWriteMap.SharingState();
+    }
+
+    private CopyOnWriteIntMap(CopyOnWriteIntMap<V> copyOnWriteIntMap, CopyOnWriteMap.IValueCopier<V> theValueCopier) {
+        valueCopier = theValueCopier;
+        values = copyOnWriteIntMap.values;
+        size = copyOnWriteIntMap.size;
+        sharingState = copyOnWriteIntMap.sharingState;
+        ownedValues = createIdentitySet();
+    }
+
+    //Warning! start code duplication - same as in CopyOnWriteMap
+    public CopyOnWriteIntMap<V> fork() {
+        return fork(valueCopier);
+    }
+
+    public CopyOnWriteIntMap<V> fork(CopyOnWriteMap.IValueCopier<V> theValueCopier) {
+        sharingState.isShared = true;
+        return new CopyOnWriteIntMap<>(this, theValueCopier);
+    }
+
+    public void setTrail(Trail theTrail) {
+        //a fork created in the meantime is detected on the next modification, which disowns all values anyway
+        if (trail == null) {
+            if (theTrail != null) {
+                ownedValuesBeforeTrail = ownedValues;
+                ownedValues = createIdentitySet();
+            }
+        } else {
+            if (ownedValuesBeforeTrail != null) {
+                ownedValuesBeforeTrail.addAll(ownedValues);
+            }
+            if (theTrail == null) {
+                ownedValues = ownedValuesBeforeTrail;
+                ownedValuesBeforeTrail = null;
+            } else {
+                ownedValues = createIdentitySet();
+            }
+        }
+        trail = theTrail;
+    }
+    //Warning! end code duplication - same as in CopyOnWriteMap
+
+    /**
+     * Treats all current values as shared, i.e. they are copied before they are modified via {@link #getForWrite(int)}.
+     * Used when the values are handed out to a snapshot which needs to stay unchanged.
+     */
+    public void markAllAsShared() {
+        disownAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        V value = null;
+        if (key < values.length) {
+            value = (V) values[key];
+        }
+        return value;
+    }
+
+    //Warning! start code duplication - same as in CopyOnWriteMap
+    public V getForWrite(int key) {
+        ensureArrayIsOwnedAndHasCapacity(0);
+        V value = get(key);
+        if (value != null && !isOwned(value)) {
+            value = valueCopier.copy(value);
+            put(key, value);
+        }
+        return value;
+    }
+    //Warning! end code duplication - same as in CopyOnWriteMap
+
+    public boolean containsKey(int key) {
+        return key < values.length && values[key] != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns an exclusive upper limit for the keys of this map, all keys are within [0, capacity()).
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null values are not supported.");
+        }
+
+        recordOnTrail(key);
+        ensureArrayIsOwnedAndHasCapacity(key + 1);
+        V oldValue = get(key);
+        if (oldValue == null) {
+            ++size;
+        } else {
+            disown(oldValue);
+        }
+        if (ownedValues != null) {
+            ownedValues.add(value);
+        }
+        values[key] = value;
+        return oldValue;
+    }
+
+    public V remove(int key) {
+        V value = get(key);
+        if (value != null) {
+            recordOnTrail(key);
+            ensureArrayIsOwnedAndHasCapacity(key + 1);
+            values[key] = null;
+            --size;
+            disown(value);
+        }
+        return value;
+    }
+
+    /**
+     * Shrinks the backing array to the smallest power of two which still contains the highest key (but not below the
+     * initial capacity), e.g. after the entries with the highest keys were removed.
+     */
+    public void trimToSize() {
+        int highestKey = values.length - 1;
+        while (highestKey >= 0 && values[highestKey] == null) {
+            --highestKey;
+        }
+        int length = INITIAL_CAPACITY;
+        while (length < highestKey + 1) {
+            length *= 2;
+        }
+        if (length < values.length) {
+            values = Arrays.copyOf(values, length);
+            if (sharingState.isShared) {
+                disownAll();
+                sharingState = new CopyOnWriteMap.SharingState();
+            }
+        }
+    }
+
+    private void recordOnTrail(final int key) {
+        if (trail != null) {
+            final V oldValue = get(key);
+            trail.push(new Trail.IUndoable()
+            {
+                @Override
+                public void undo() {
+                    ensureArrayIsOwnedAndHasCapacity(key + 1);
+                    V currentValue = get(key);
+                    if (currentValue == null && oldValue != null) {
+                        ++size;
+                    } else if (currentValue != null && oldValue == null) {
+                        --size;
+                    }
+                    disown(currentValue);
+                    values[key] = oldValue;
+                }
+            });
+        }
+    }
+
+    private boolean isOwned(V value) {
+        return ownedValues == null || ownedValues.contains(value);
+    }
+
+    /**
+     * Copies the backing array if it was forked in the meantime (the current values are no longer owned in this case)
+     * or if it does not have the given capacity.
+     */
+    private void ensureArrayIsOwnedAndHasCapacity(int capacity) {
+        int length = values.length;
+        if (length < capacity) {
+            while (length < capacity) {
+                length *= 2;
+            }
+            values = Arrays.copyOf(values, length);
+        } else if (sharingState.isShared) {
+            values = values.clone();
+        }
+        if (sharingState.isShared) {
+            disownAll();
+            sharingState = new CopyOnWriteMap.SharingState();
+        }
+    }
+
+    //Warning! start code duplication - same as in CopyOnWriteMap
+    private void disown(V value) {
+        if (value != null) {
+            if (ownedValues != null) {
+                ownedValues.remove(value);
+            }
+            if (ownedValuesBeforeTrail != null) {
+                ownedValuesBeforeTrail.remove(value);
+            }
+        }
+    }
+
+    private void disownAll() {
+        ownedValues = createIdentitySet();
+        if (trail != null) {
+            ownedValuesBeforeTrail = createIdentitySet();
+        }
+    }
+    //Warning! end code duplication - same as in CopyOnWriteMap
+
+    private Set<V> createIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<V, Boolean>());
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A map which can be forked in constant time.
+ * <p/>
+ * The backing map as well as its values are shared between forks until one of the forks modifies them. The backing
+ * map is copied (shallow) on the first structural modification after a fork and a value is copied with the given
+ * {@link IValueCopier} the first time it is requested for modification via {@link #getForWrite(Object)}.
+ * <p/>
+ * Forking does not modify the forked map itself, it only flags the backing map as shared. Hence, several threads can
+ * fork the same map concurrently as long as none of them modifies it.
+ * <p/>
+ * Values returned by {@link #get(Object)} might be shared with other forks and must not be modified.
+ * <p/>
+ * Modifications can be recorded on a {@link Trail} (see {@link #setTrail(Trail)}) in order that they can be undone
+ * later on. Values which existed when the trail was set are treated like shared values in this case. They are owned
+ * again once the trail is removed, provided the map was not forked in the meantime.
+ */
+public class CopyOnWriteMap<K, V>
+{
+    private static final int TRIM_FACTOR = 4;
+
+    private final IValueCopier<V> valueCopier;
+    private Map<K, V> map;
+    private SharingState sharingState;
+    private Trail trail;
+    //the highest number of entries since the backing map was created, used to decide whether trimToSize pays off
+    private int peakSize;
+
+    //is null as long as this map was never forked, all values are owned in this case
+    private Set<V> ownedValues;
+    //the values which are owned again once the trail is removed (null means all), only used while a trail is set
+    private Set<V> ownedValuesBeforeTrail;
+
+    public CopyOnWriteMap(IValueCopier<V> theValueCopier) {
+        valueCopier = theValueCopier;
+        map = new HashMap<>();
+        sharingState = new SharingState();
+    }
+
+    private CopyOnWriteMap(CopyOnWriteMap<K, V> copyOnWriteMap, IValueCopier<V> theValueCopier) {
+        valueCopier = theValueCopier;
+        map = copyOnWriteMap.map;
+        sharingState = copyOnWriteMap.sharingState;
+        peakSize = copyOnWriteMap.peakSize;
+        ownedValues = createIdentitySet();
+    }
+
+    /**
+     * Returns a new map which shares the backing map as well as the values with this map.
+     * <p/>
+     * Afterwards, neither this map nor the fork owns any of the current values anymore. This map notices it on its
+     * next modification.
+     */
+    public CopyOnWriteMap<K, V> fork() {
+        return fork(valueCopier);
+    }
+
+    /**
+     * Same as {@link #fork()} but the fork uses the given value copier.
+     */
+    public CopyOnWriteMap<K, V> fork(IValueCopier<V> theValueCopier) {
+        sharingState.isShared = true;
+        return new CopyOnWriteMap<>(this, theValueCopier);
+    }
+
+    /**
+     * Records all subsequent modifications on the given trail, pass null in order to stop recording.
+     * <p/>
+     * None of the current values is owned by this map as long as a trail is set, they are copied before they are
+     * modified. Once the trail is removed, the values which were owned before or while the trail was set are owned
+     * again, unless the map was forked in the meantime.
+     */
+    public void setTrail(Trail theTrail) {
+        //a fork created in the meantime is detected on the next modification, which disowns all values anyway
+        if (trail == null) {
+            if (theTrail != null) {
+                ownedValuesBeforeTrail = ownedValues;
+                ownedValues = createIdentitySet();
+            }
+        } else {
+            if (ownedValuesBeforeTrail != null) {
+                ownedValuesBeforeTrail.addAll(ownedValues);
+            }
+            if (theTrail == null) {
+                ownedValues = ownedValuesBeforeTrail;
+                ownedValuesBeforeTrail = null;
+            } else {
+                ownedValues = createIdentitySet();
+            }
+        }
+        trail = theTrail;
+    }
+
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    /**
+     * Returns the value for the given key which can be modified safely, the value is copied beforehand if it is
+     * shared with another fork.
+     */
+    public V getForWrite(K key) {
+        ensureMapIsOwned();
+        V value = map.get(key);
+        if (value != null && !isOwned(value)) {
+            value = valueCopier.copy(value);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(map.keySet());
+    }
+
+    public Collection<V> values() {
+        return Collections.unmodifiableCollection(map.values());
+    }
+
+    public Set<Map.Entry<K, V>> entrySet() {
+        return Collections.unmodifiableMap(map).entrySet();
+    }
+
+    /**
+     * Returns an unmodifiable view of the backing map, which is no longer up-to-date after the next modification.
+     */
+    public Map<K, V> asMap() {
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Puts the given value which is owned by this map afterwards.
+     */
+    public V put(K key, V value) {
+        recordOnTrail(key);
+        ensureMapIsOwned();
+        V oldValue = map.put(key, value);
+        disown(oldValue);
+        if (ownedValues != null) {
+            ownedValues.add(value);
+        }
+        if (map.size() > peakSize) {
+            peakSize = map.size();
+        }
+        return oldValue;
+    }
+
+    public V remove(K key) {
+        V value = null;
+        if (map.containsKey(key)) {
+            recordOnTrail(key);
+            ensureMapIsOwned();
+            value = map.remove(key);
+            disown(value);
+        }
+        return value;
+    }
+
+    /**
+     * Moves the value of the given old key (if it exists) to the given new key without changing its ownership.
+     */
+    public void move(K oldKey, K newKey) {
+        if (map.containsKey(oldKey)) {
+            recordOnTrail(oldKey);
+            recordOnTrail(newKey);
+            ensureMapIsOwned();
+            disown(map.put(newKey, map.remove(oldKey)));
+        }
+    }
+
+    /**
+     * Replaces the backing map with a copy which is sized according to the current number of entries if many entries
+     * were removed since the backing map was created.
+     * <p/>
+     * A backing map which is shared with a fork is copied in any case (it would be copied on the next modification
+     * anyway), an owned backing map only if it shrank to less than a quarter of its peak size.
+     */
+    public void trimToSize() {
+        if (sharingState.isShared) {
+            ensureMapIsOwned();
+        } else if (map.size() < peakSize / TRIM_FACTOR) {
+            map = new HashMap<>(map);
+            peakSize = map.size();
+        }
+    }
+
+    private void recordOnTrail(final K key) {
+        if (trail != null) {
+            final boolean hadKey = map.containsKey(key);
+            final V oldValue = map.get(key);
+            trail.push(new Trail.IUndoable()
+            {
+                @Override
+                public void undo() {
+                    //the restored value might be shared with a fork, hence it is not owned by this map
+                    ensureMapIsOwned();
+                    if (hadKey) {
+                        disown(map.put(key, oldValue));
+                    } else {
+                        disown(map.remove(key));
+                    }
+                }
+            });
+        }
+    }
+
+    private boolean isOwned(V value) {
+        return ownedValues == null || ownedValues.contains(value);
+    }
+
+    /**
+     * Copies the backing map if it was forked in the meantime, the current values are no longer owned in this case.
+     */
+    private void ensureMapIsOwned() {
+        if (sharingState.isShared) {
+            map = new HashMap<>(map);
+            peakSize = map.size();
+            disownAll();
+            sharingState = new SharingState();
+        }
+    }
+
+    /**
+     * Removes the given value, which is no longer part of this map, from the owned values in order that they do not
+     * grow without bounds. It is copied before it is modified in case it is put again (e.g. via an undo).
+     */
+    private void disown(V value) {
+        if (value != null) {
+            if (ownedValues != null) {
+                ownedValues.remove(value);
+            }
+            if (ownedValuesBeforeTrail != null) {
+                ownedValuesBeforeTrail.remove(value);
+            }
+        }
+    }
+
+    private void disownAll() {
+        ownedValues = createIdentitySet();
+        if (trail != null) {
+            ownedValuesBeforeTrail = createIdentitySet();
+        }
+    }
+
+    private Set<V> createIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<V, Boolean>());
+    }
+
+    /**
+     * Belongs to a backing map (or array) and indicates whether it is shared with a fork.
+     * <p/>
+     * It is the only state which is modified when a map is forked, forks of the same map (possibly created by
+     * different threads) set it to the same value.
+     */
+    static final class SharingState
+    {
+        volatile boolean isShared;
+    }
+
+    /**
+     * Copies a value of a {@link CopyOnWriteMap} before it is modified.
+     */
+    public interface IValueCopier<V>
+    {
+        V copy(V value);
+    }
+}
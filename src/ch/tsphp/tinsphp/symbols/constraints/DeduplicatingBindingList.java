@@ -0,0 +1,108 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A list of binding collections which drops binding collections on insertion if they are equivalent up to a renaming
+ * of type variables to a binding collection which is already in the list (see {@link BindingCollectionFingerprint}).
+ * <p/>
+ * Binding collections are indexed by the fingerprint they had when they were inserted. A binding collection which is
+ * modified afterwards is hence not necessarily detected as duplicate anymore but a binding collection is never dropped
+ * because of a stale fingerprint, the equivalence is checked against the current state.
+ */
+public class DeduplicatingBindingList extends AbstractList<IBindingCollection>
+{
+    private final List<IBindingCollection> bindings = new ArrayList<>();
+    private final Map<Long, List<IBindingCollection>> fingerprint2Bindings = new HashMap<>();
+
+    public DeduplicatingBindingList() {
+    }
+
+    public DeduplicatingBindingList(Collection<? extends IBindingCollection> theBindings) {
+        addAll(theBindings);
+    }
+
+    @Override
+    public IBindingCollection get(int index) {
+        return bindings.get(index);
+    }
+
+    @Override
+    public int size() {
+        return bindings.size();
+    }
+
+    /**
+     * Appends the given binding collection unless an equivalent one is already in this list.
+     *
+     * @return true if it was appended, false if it was dropped as duplicate.
+     */
+    @Override
+    public boolean add(IBindingCollection bindingCollection) {
+        BindingCollectionFingerprint fingerprint = BindingCollectionFingerprint.of(bindingCollection);
+        List<IBindingCollection> candidates = fingerprint2Bindings.get(fingerprint.getValue());
+        boolean isDuplicate = false;
+        if (candidates == null) {
+            candidates = new ArrayList<>(1);
+            fingerprint2Bindings.put(fingerprint.getValue(), candidates);
+        } else {
+            for (IBindingCollection candidate : candidates) {
+                if (fingerprint.isEquivalentTo(BindingCollectionFingerprint.of(candidate))) {
+                    isDuplicate = true;
+                    break;
+                }
+            }
+        }
+        if (!isDuplicate) {
+            candidates.add(bindingCollection);
+            bindings.add(bindingCollection);
+            ++modCount;
+        }
+        return !isDuplicate;
+    }
+
+    @Override
+    public IBindingCollection remove(int index) {
+        IBindingCollection bindingCollection = bindings.remove(index);
+        for (List<IBindingCollection> candidates : fingerprint2Bindings.values()) {
+            if (removeByIdentity(candidates, bindingCollection)) {
+                break;
+            }
+        }
+        ++modCount;
+        return bindingCollection;
+    }
+
+    private boolean removeByIdentity(List<IBindingCollection> candidates, IBindingCollection bindingCollection) {
+        boolean isRemoved = false;
+        Iterator<IBindingCollection> iterator = candidates.iterator();
+        while (!isRemoved && iterator.hasNext()) {
+            isRemoved = iterator.next() == bindingCollection;
+            if (isRemoved) {
+                iterator.remove();
+            }
+        }
+        return isRemoved;
+    }
+
+    @Override
+    public void clear() {
+        bindings.clear();
+        fingerprint2Bindings.clear();
+        ++modCount;
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.common.inference.constraints.BoundResultDto;
+import ch.tsphp.tinsphp.common.inference.constraints.EBindingCollectionMode;
+import ch.tsphp.tinsphp.common.inference.constraints.FixedTypeVariableReference;
+import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+import ch.tsphp.tinsphp.common.inference.constraints.IParametricType;
+import ch.tsphp.tinsphp.common.inference.constraints.ITypeVariableReference;
+import ch.tsphp.tinsphp.common.inference.constraints.OverloadApplicationDto;
+import ch.tsphp.tinsphp.common.inference.constraints.TypeVariableReference;
+import ch.tsphp.tinsphp.common.symbols.IContainerTypeSymbol;
+import ch.tsphp.tinsphp.common.symbols.IIntersectionTypeSymbol;
+import ch.tsphp.tinsphp.common.symbols.IParametricTypeSymbol;
+import ch.tsphp.tinsphp.common.symbols.IUnionTypeSymbol;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable, array based snapshot of a {@link BindingCollection}, see {@link BindingCollection#freeze()}.
+ * <p/>
+ * Variables and type variables are stored in sorted arrays and looked up via binary search, bounds and ref bounds are
+ * stored in arrays indexed by the position of the type variable. All fields are final and never modified after
+ * construction, hence a snapshot can be read by multiple threads without synchronisation. All modifying operations
+ * throw an UnsupportedOperationException.
+ * <p/>
+ * Non-fixed type bounds are copied and the parametric types they contain are rebound to the snapshot, otherwise the
+ * binding collection which was frozen would still change them when it fixes or renames type variables. Fixed type
+ * bounds are shared with the frozen binding collection and must not be modified by callers.
+ */
+public class FrozenBindingCollection implements IBindingCollection, IBoundsVisitable
+{
+    private static final int[] NO_INDICES = new int[0];
+
+    private final String[] variableIds;
+    private final int[] variable2TypeVariable;
+    private final boolean[] hasFixedType;
+    private final OverloadApplicationDto[] appliedOverloads;
+
+    private final String[] typeVariables;
+    private final int[][] typeVariable2Variables;
+    private final IUnionTypeSymbol[] lowerTypeBounds;
+    private final IIntersectionTypeSymbol[] upperTypeBounds;
+    private final int[][] lowerRefBounds;
+    private final int[][] upperRefBounds;
+
+    private final int numberOfConvertibleApplications;
+    private final EBindingCollectionMode mode;
+
+    FrozenBindingCollection(BindingCollection bindings) {
+        Set<String> variableIdSet = bindings.getVariableIds();
+        variableIds = variableIdSet.toArray(new String[variableIdSet.size()]);
+        Arrays.sort(variableIds);
+        Set<String> typeVariableSet = bindings.getTypeVariables();
+        typeVariables = typeVariableSet.toArray(new String[typeVariableSet.size()]);
+        Arrays.sort(typeVariables);
+
+        int numberOfVariables = variableIds.length;
+        variable2TypeVariable = new int[numberOfVariables];
+        hasFixedType = new boolean[numberOfVariables];
+        appliedOverloads = new OverloadApplicationDto[numberOfVariables];
+        for (int i = 0; i < numberOfVariables; ++i) {
+            ITypeVariableReference reference = bindings.getTypeVariableReference(variableIds[i]);
+            variable2TypeVariable[i] = indexOf(typeVariables, reference.getTypeVariable());
+            hasFixedType[i] = reference.hasFixedType();
+            appliedOverloads[i] = bindings.getAppliedOverload(variableIds[i]);
+        }
+
+        int numberOfTypeVariables = typeVariables.length;
+        typeVariable2Variables = new int[numberOfTypeVariables][];
+        lowerTypeBounds = new IUnionTypeSymbol[numberOfTypeVariables];
+        upperTypeBounds = new IIntersectionTypeSymbol[numberOfTypeVariables];
+        lowerRefBounds = new int[numberOfTypeVariables][];
+        upperRefBounds = new int[numberOfTypeVariables][];
+        Collection<IParametricTypeSymbol> parametricTypeSymbols = new ArrayDeque<>();
+        for (int i = 0; i < numberOfTypeVariables; ++i) {
+            String typeVariable = typeVariables[i];
+            typeVariable2Variables[i] = toIndices(variableIds, bindings.getVariableIds(typeVariable));
+            lowerTypeBounds[i] = copyIfNotFixed(bindings.getLowerTypeBounds(typeVariable), parametricTypeSymbols);
+            upperTypeBounds[i] = copyIfNotFixed(bindings.getUpperTypeBounds(typeVariable), parametricTypeSymbols);
+            lowerRefBounds[i] = toIndices(typeVariables, bindings.getLowerRefBounds(typeVariable));
+            upperRefBounds[i] = toIndices(typeVariables, bindings.getUpperRefBounds(typeVariable));
+        }
+
+        numberOfConvertibleApplications = bindings.getNumberOfConvertibleApplications();
+        mode = bindings.getMode();
+
+        //rebound as last step since the parametric types read their bounds from this snapshot from now on
+        for (IParametricTypeSymbol parametricTypeSymbol : parametricTypeSymbols) {
+            parametricTypeSymbol.rebind(this);
+        }
+        calculateAbsoluteNames(lowerTypeBounds);
+        calculateAbsoluteNames(upperTypeBounds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <TContainer extends IContainerTypeSymbol> TContainer copyIfNotFixed(
+            TContainer typeBound, Collection<IParametricTypeSymbol> parametricTypeSymbols) {
+        TContainer copy = typeBound;
+        if (typeBound != null && !typeBound.isFixed()) {
+            copy = (TContainer) typeBound.copy(parametricTypeSymbols);
+        }
+        return copy;
+    }
+
+    /**
+     * The absolute names of the type bounds are calculated lazily, hence they are calculated upfront in order that
+     * reading them does not modify this snapshot.
+     */
+    private static void calculateAbsoluteNames(IContainerTypeSymbol[] typeBounds) {
+        for (IContainerTypeSymbol typeBound : typeBounds) {
+            if (typeBound != null) {
+                typeBound.getAbsoluteName();
+            }
+        }
+    }
+
+    private static int indexOf(String[] sortedNames, String name) {
+        int index = -1;
+        if (name != null) {
+            index = Arrays.binarySearch(sortedNames, name);
+        }
+        return index >= 0 ? index : -1;
+    }
+
+    private static int[] toIndices(String[] sortedNames, Set<String> names) {
+        int[] indices = null;
+        if (names != null) {
+            if (names.isEmpty()) {
+                indices = NO_INDICES;
+            } else {
+                indices = new int[names.size()];
+                int i = 0;
+                for (String name : names) {
+                    indices[i++] = indexOf(sortedNames, name);
+                }
+                Arrays.sort(indices);
+            }
+        }
+        return indices;
+    }
+
+    private int getVariableIndex(String variableId) {
+        return indexOf(variableIds, variableId);
+    }
+
+    private int getTypeVariableIndex(String typeVariable) {
+        return indexOf(typeVariables, typeVariable);
+    }
+
+    @Override
+    public ITypeVariableReference createHelperVariable() {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public ITypeVariableReference getNextTypeVariable() {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void addVariable(String variableId, ITypeVariableReference reference) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsVariable(String variableId) {
+        return getVariableIndex(variableId) != -1;
+    }
+
+    @Override
+    public boolean containsTypeVariable(String typeVariable) {
+        return getTypeVariableIndex(typeVariable) != -1;
+    }
+
+    /**
+     * Returns a new reference for each call since references are mutable and would otherwise allow to modify this
+     * snapshot.
+     */
+    @Override
+    public ITypeVariableReference getTypeVariableReference(String variableId) {
+        ITypeVariableReference reference = null;
+        int index = getVariableIndex(variableId);
+        if (index != -1) {
+            reference = new TypeVariableReference(typeVariables[variable2TypeVariable[index]]);
+            if (hasFixedType[index]) {
+                reference = new FixedTypeVariableReference(reference);
+            }
+        }
+        return reference;
+    }
+
+    @Override
+    public String getTypeVariable(String variableId) {
+        String typeVariable = null;
+        int index = getVariableIndex(variableId);
+        if (index != -1) {
+            typeVariable = typeVariables[variable2TypeVariable[index]];
+        }
+        return typeVariable;
+    }
+
+    @Override
+    public Set<String> getVariableIds() {
+        return new NameSet(variableIds, null);
+    }
+
+    @Override
+    public Set<String> getVariableIds(String typeVariable) {
+        Set<String> ids = null;
+        int index = getTypeVariableIndex(typeVariable);
+        if (index != -1 && typeVariable2Variables[index] != null) {
+            ids = new NameSet(variableIds, typeVariable2Variables[index]);
+        }
+        return ids;
+    }
+
+    @Override
+    public BoundResultDto addLowerRefBound(String typeVariable, ITypeVariableReference reference) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public BoundResultDto addLowerTypeBound(String typeVariable, ITypeSymbol typeSymbol) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public BoundResultDto addUpperTypeBound(String typeVariable, ITypeSymbol typeSymbol) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasLowerRefBounds(String typeVariable) {
+        return hasIndices(lowerRefBounds, getTypeVariableIndex(typeVariable));
+    }
+
+    @Override
+    public boolean hasUpperRefBounds(String typeVariable) {
+        return hasIndices(upperRefBounds, getTypeVariableIndex(typeVariable));
+    }
+
+    private boolean hasIndices(int[][] refBounds, int index) {
+        return index != -1 && refBounds[index] != null && refBounds[index].length > 0;
+    }
+
+    @Override
+    public boolean hasLowerTypeBounds(String typeVariable) {
+        int index = getTypeVariableIndex(typeVariable);
+        return index != -1 && lowerTypeBounds[index] != null;
+    }
+
+    @Override
+    public boolean hasUpperTypeBounds(String typeVariable) {
+        int index = getTypeVariableIndex(typeVariable);
+        return index != -1 && upperTypeBounds[index] != null;
+    }
+
+    @Override
+    public boolean hasLowerBounds(String typeVariable) {
+        return hasLowerTypeBounds(typeVariable) || hasLowerRefBounds(typeVariable);
+    }
+
+    @Override
+    public boolean hasUpperBounds(String typeVariable) {
+        return hasUpperTypeBounds(typeVariable) || hasUpperRefBounds(typeVariable);
+    }
+
+    @Override
+    public IUnionTypeSymbol getLowerTypeBounds(String typeVariable) {
+        int index = getTypeVariableIndex(typeVariable);
+        return index != -1 ? lowerTypeBounds[index] : null;
+    }
+
+    @Override
+    public IIntersectionTypeSymbol getUpperTypeBounds(String typeVariable) {
+        int index = getTypeVariableIndex(typeVariable);
+        return index != -1 ? upperTypeBounds[index] : null;
+    }
+
+    @Override
+    public Set<String> getLowerRefBounds(String typeVariable) {
+        return getRefBounds(lowerRefBounds, getTypeVariableIndex(typeVariable));
+    }
+
+    @Override
+    public Set<String> getUpperRefBounds(String typeVariable) {
+        return getRefBounds(upperRefBounds, getTypeVariableIndex(typeVariable));
+    }
+
+    @Override
+    public void visitLowerBounds(String typeVariable, IBoundVisitor visitor) {
+        int index = getTypeVariableIndex(typeVariable);
+        if (index != -1) {
+            visitBounds(lowerTypeBounds[index], lowerRefBounds[index], visitor);
+        }
+    }
+
+    @Override
+    public void visitUpperBounds(String typeVariable, IBoundVisitor visitor) {
+        int index = getTypeVariableIndex(typeVariable);
+        if (index != -1) {
+            visitBounds(upperTypeBounds[index], upperRefBounds[index], visitor);
+        }
+    }
+
+    private void visitBounds(IContainerTypeSymbol typeBounds, int[] refBounds, IBoundVisitor visitor) {
+        if (typeBounds != null) {
+            for (Map.Entry<String, ITypeSymbol> entry : typeBounds.getTypeSymbols().entrySet()) {
+                visitor.visitTypeBound(entry.getKey(), entry.getValue());
+            }
+        }
+        if (refBounds != null) {
+            for (int refTypeVariable : refBounds) {
+                visitor.visitRefBound(typeVariables[refTypeVariable]);
+            }
+        }
+    }
+
+    private Set<String> getRefBounds(int[][] refBounds, int index) {
+        Set<String> names = null;
+        if (index != -1 && refBounds[index] != null) {
+            names = new NameSet(typeVariables, refBounds[index]);
+        }
+        return names;
+    }
+
+    //Warning! start code duplication - very similar to getUpperBoundConstraintIds
+    @Override
+    public Set<String> getLowerBoundConstraintIds(String typeVariable) {
+        Set<String> ids = new HashSet<>();
+        int index = getTypeVariableIndex(typeVariable);
+        if (index != -1) {
+            if (lowerTypeBounds[index] != null) {
+                ids.addAll(lowerTypeBounds[index].getTypeSymbols().keySet());
+            }
+            if (lowerRefBounds[index] != null) {
+                for (int refTypeVariable : lowerRefBounds[index]) {
+                    ids.add("@" + typeVariables[refTypeVariable]);
+                }
+            }
+        }
+        return ids;
+    }
+    //Warning! end code duplication - very similar to getUpperBoundConstraintIds
+
+    //Warning! start code duplication - very similar to getLowerBoundConstraintIds
+    @Override
+    public Set<String> getUpperBoundConstraintIds(String typeVariable) {
+        Set<String> ids = new HashSet<>();
+        int index = getTypeVariableIndex(typeVariable);
+        if (index != -1) {
+            if (upperTypeBounds[index] != null) {
+                ids.addAll(upperTypeBounds[index].getTypeSymbols().keySet());
+            }
+            if (upperRefBounds[index] != null) {
+                for (int refTypeVariable : upperRefBounds[index]) {
+                    ids.add("@" + typeVariables[refTypeVariable]);
+                }
+            }
+        }
+        return ids;
+    }
+    //Warning! end code duplication - very similar to getLowerBoundConstraintIds
+
+    @Override
+    public OverloadApplicationDto getAppliedOverload(String variableId) {
+        int index = getVariableIndex(variableId);
+        return index != -1 ? appliedOverloads[index] : null;
+    }
+
+    @Override
+    public void setAppliedOverload(String variableId, OverloadApplicationDto overloadApplicationDto) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void fixType(String variableId) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void fixTypeParameter(String typeParameter) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void fixTypeParameters() {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public Set<String> tryToFix(Set<String> parameterTypeVariables) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void mergeFirstIntoSecond(String firstTypeVariable, String secondTypeVariable) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void renameTypeVariable(String typeVariable, String newName) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void renameTypeVariableToNextFreeName(String typeVariable) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void bind(IParametricType parametricType, List<String> typeVariables) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public int getNumberOfConvertibleApplications() {
+        return numberOfConvertibleApplications;
+    }
+
+    @Override
+    public void setMode(EBindingCollectionMode newMode) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public EBindingCollectionMode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void setLowerTypeBounds(String typeVariable, IUnionTypeSymbol lowerTypeBound) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public void setUpperTypeBounds(String typeVariable, IIntersectionTypeSymbol upperTypeBound) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public IUnionTypeSymbol removeLowerTypeBounds(String typeVariable) {
+        throw createUnsupportedOperationException();
+    }
+
+    @Override
+    public IIntersectionTypeSymbol removeUpperTypeBounds(String typeVariable) {
+        throw createUnsupportedOperationException();
+    }
+
+    private UnsupportedOperationException createUnsupportedOperationException() {
+        return new UnsupportedOperationException("a frozen binding collection cannot be modified");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        BoundsAppender boundsAppender = new BoundsAppender(this);
+        sb.append("[");
+        for (int i = 0; i < variableIds.length; ++i) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            String typeVariable = typeVariables[variable2TypeVariable[i]];
+            sb.append(variableIds[i]).append(":").append(typeVariable);
+            boundsAppender.append(sb, typeVariable);
+            if (hasFixedType[i]) {
+                sb.append("#");
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Read-only view of names given by indices of a sorted array, all names of the array are included if no indices
+     * are given.
+     */
+    private static final class NameSet extends AbstractSet<String>
+    {
+        private final String[] names;
+        private final int[] indices;
+
+        NameSet(String[] theNames, int[] theIndices) {
+            names = theNames;
+            indices = theIndices;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>()
+            {
+                private int position = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return position < size();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String name = indices != null ? names[indices[position]] : names[position];
+                    ++position;
+                    return name;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("a frozen binding collection cannot be modified");
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return indices != null ? indices.length : names.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            boolean contains = false;
+            if (o instanceof String) {
+                int index = indexOf(names, (String) o);
+                if (index != -1) {
+                    contains = indices == null || Arrays.binarySearch(indices, index) >= 0;
+                }
+            }
+            return contains;
+        }
+    }
+}
@@ -19,6 +19,9 @@ import ch.tsphp.tinsphp.common.symbols.IConvertibleTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IIntersectionTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IParametricTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IUnionTypeSymbol;
+import ch.tsphp.tinsphp.common.utils.Pair;
+import ch.tsphp.tinsphp.symbols.utils.IMemoryFootprintProvider;
+import ch.tsphp.tinsphp.symbols.utils.MemoryFootprint;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -31,7 +34,9 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-public class FunctionType implements IFunctionType
+import static ch.tsphp.tinsphp.common.utils.Pair.pair;
+
+public class FunctionType implements IFunctionType, IMemoryFootprintProvider
 {
     private final Map<String, String> suffices = new HashMap<>(2);
     private final String name;
@@ -365,6 +370,10 @@ public class FunctionType implements IFunctionType
             typeParameter2BindingTypeParameter.put(typeParameter, bindingTypeParameter);
         }
 
+        //a BindingCollection can check and propagate the type bounds of all type parameters at once
+        boolean transferTypeBoundsInBulk = newBindingCollection instanceof BindingCollection;
+        List<Pair<String, ITypeSymbol>> lowerTypeBounds = new ArrayList<>(size);
+        List<Pair<String, ITypeSymbol>> upperTypeBounds = new ArrayList<>(size);
         for (int i = 0; i < size; ++i) {
             String typeParameter = typeParameters.get(i);
             String bindingTypeParameter = bindingTypeParameters.get(i);
@@ -373,15 +382,33 @@ public class FunctionType implements IFunctionType
             // parametric types need to be bound to the newOverload bindings as well
 
             if (bindingCollection.hasLowerTypeBounds(typeParameter)) {
-                IUnionTypeSymbol lowerTypeBounds = bindingCollection.getLowerTypeBounds(typeParameter);
-                newBindingCollection.addLowerTypeBound(bindingTypeParameter, lowerTypeBounds);
+                IUnionTypeSymbol lowerTypeBound = bindingCollection.getLowerTypeBounds(typeParameter);
+                if (transferTypeBoundsInBulk) {
+                    lowerTypeBounds.add(pair(bindingTypeParameter, (ITypeSymbol) lowerTypeBound));
+                } else {
+                    newBindingCollection.addLowerTypeBound(bindingTypeParameter, lowerTypeBound);
+                }
             }
 
             if (bindingCollection.hasUpperTypeBounds(typeParameter)) {
-                IIntersectionTypeSymbol upperTypeBounds = bindingCollection.getUpperTypeBounds(typeParameter);
-                newBindingCollection.addUpperTypeBound(bindingTypeParameter, upperTypeBounds);
+                IIntersectionTypeSymbol upperTypeBound = bindingCollection.getUpperTypeBounds(typeParameter);
+                if (transferTypeBoundsInBulk) {
+                    upperTypeBounds.add(pair(bindingTypeParameter, (ITypeSymbol) upperTypeBound));
+                } else {
+                    newBindingCollection.addUpperTypeBound(bindingTypeParameter, upperTypeBound);
+                }
             }
+        }
+
+        if (transferTypeBoundsInBulk) {
+            BindingCollection newBindings = (BindingCollection) newBindingCollection;
+            newBindings.addLowerTypeBounds(lowerTypeBounds);
+            newBindings.addUpperTypeBounds(upperTypeBounds);
+        }
 
+        for (int i = 0; i < size; ++i) {
+            String typeParameter = typeParameters.get(i);
+            String bindingTypeParameter = bindingTypeParameters.get(i);
             if (bindingCollection.hasLowerRefBounds(typeParameter)) {
                 for (String refTypeParameter : bindingCollection.getLowerRefBounds(typeParameter)) {
                     String refBindingTypeParameter = typeParameter2BindingTypeParameter.get(refTypeParameter);
@@ -413,6 +440,22 @@ public class FunctionType implements IFunctionType
         return nonFixedTypeParameters;
     }
 
+    /**
+     * Replaces the binding collection of this function type with an immutable snapshot (see
+     * {@link BindingCollection#freeze()}) so that callers of this function can be inferred in parallel.
+     * <p/>
+     * Can only be called after the function was simplified and the binding collection is not modified any more.
+     */
+    public void freeze() {
+        if (!wasSimplified) {
+            throw new IllegalStateException("function " + name + " was not yet simplified, cannot freeze it yet.");
+        }
+
+        if (bindingCollection instanceof BindingCollection) {
+            bindingCollection = ((BindingCollection) bindingCollection).freeze();
+        }
+    }
+
     @Override
     public IBindingCollection getBindingCollection() {
         return bindingCollection;
@@ -557,47 +600,71 @@ public class FunctionType implements IFunctionType
         }
     }
 
+    @Override
+    public MemoryFootprint estimateMemoryFootprint() {
+        MemoryFootprint footprint = new MemoryFootprint("FunctionType " + name);
+        footprint.addListEntries("parameters", parameters.size());
+        if (typeParameters != null) {
+            footprint.addListEntries("typeParameters", typeParameters.size());
+        }
+        footprint.addHashMapEntries("suffices", suffices.size());
+        if (bindingCollection instanceof IMemoryFootprintProvider) {
+            footprint.addChild(((IMemoryFootprintProvider) bindingCollection).estimateMemoryFootprint());
+        }
+        return footprint;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
+        BoundsAppender boundsAppender = null;
+        if (bindingCollection instanceof BindingCollection) {
+            boundsAppender = new BoundsAppender((BindingCollection) bindingCollection);
+        }
         sb.append(name).append("{").append(getNumberOfNonOptionalParameters()).append("}").append("[");
         if (!wasSimplified) {
             for (IVariable parameter : parameters) {
-                appendVariable(sb, parameter.getAbsoluteName()).append(", ");
+                appendVariable(sb, boundsAppender, parameter.getAbsoluteName()).append(", ");
             }
-            appendVariable(sb, TinsPHPConstants.RETURN_VARIABLE_NAME);
+            appendVariable(sb, boundsAppender, TinsPHPConstants.RETURN_VARIABLE_NAME);
         } else {
             //-1 since last is the return type variable
             int numberOfParameters = parameterAndReturn2TypeParameterIndex.size() - 1;
             for (int index = 0; index < numberOfParameters; ++index) {
                 String typeVariable = typeParameters.get(parameterAndReturn2TypeParameterIndex.get(index));
                 sb.append(parameters.get(index).getAbsoluteName()).append(":");
-                appendVariable(sb, typeVariable, !nonFixedTypeParameters.contains(typeVariable)).append(", ");
+                boolean isFixed = !nonFixedTypeParameters.contains(typeVariable);
+                appendVariable(sb, boundsAppender, typeVariable, isFixed).append(", ");
             }
             String typeVariable = typeParameters.get(parameterAndReturn2TypeParameterIndex.get(numberOfParameters));
             sb.append(TinsPHPConstants.RETURN_VARIABLE_NAME).append(":");
-            appendVariable(sb, typeVariable, !nonFixedTypeParameters.contains(typeVariable)).append(", ");
+            boolean isFixed = !nonFixedTypeParameters.contains(typeVariable);
+            appendVariable(sb, boundsAppender, typeVariable, isFixed).append(", ");
         }
         sb.append("]");
         return sb.toString();
     }
 
-
-    private StringBuilder appendVariable(StringBuilder sb, String variableName) {
+    private StringBuilder appendVariable(StringBuilder sb, BoundsAppender boundsAppender, String variableName) {
         sb.append(variableName).append(":");
         ITypeVariableReference reference = bindingCollection.getTypeVariableReference(variableName);
         boolean isFixed = reference.hasFixedType();
         String typeVariable = reference.getTypeVariable();
-        return appendVariable(sb, typeVariable, isFixed);
+        return appendVariable(sb, boundsAppender, typeVariable, isFixed);
     }
 
-    private StringBuilder appendVariable(StringBuilder sb, String typeVariable, boolean isFixed) {
-        sb.append(typeVariable)
-                .append("<")
-                .append(bindingCollection.getLowerBoundConstraintIds(typeVariable))
-                .append(",")
-                .append(bindingCollection.getUpperBoundConstraintIds(typeVariable))
-                .append(">");
+    private StringBuilder appendVariable(
+            StringBuilder sb, BoundsAppender boundsAppender, String typeVariable, boolean isFixed) {
+        sb.append(typeVariable);
+        if (boundsAppender != null) {
+            boundsAppender.append(sb, typeVariable);
+        } else {
+            sb.append("<")
+                    .append(bindingCollection.getLowerBoundConstraintIds(typeVariable))
+                    .append(",")
+                    .append(bindingCollection.getUpperBoundConstraintIds(typeVariable))
+                    .append(">");
+        }
         if (isFixed) {
             sb.append("#");
         }
@@ -0,0 +1,22 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+
+/**
+ * Visitor for the bounds of a type variable, see {@link BindingCollection#visitLowerBounds(String, IBoundVisitor)}
+ * and {@link BindingCollection#visitUpperBounds(String, IBoundVisitor)}.
+ * <p/>
+ * Type bounds are visited first, ref bounds afterwards.
+ */
+public interface IBoundVisitor
+{
+    void visitTypeBound(String absoluteName, ITypeSymbol typeSymbol);
+
+    void visitRefBound(String refTypeVariable);
+}
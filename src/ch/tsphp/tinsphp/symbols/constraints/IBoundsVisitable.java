@@ -0,0 +1,17 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+/**
+ * A binding collection which can pass the bounds of its type variables to an {@link IBoundVisitor}.
+ */
+interface IBoundsVisitable
+{
+    void visitLowerBounds(String typeVariable, IBoundVisitor visitor);
+
+    void visitUpperBounds(String typeVariable, IBoundVisitor visitor);
+}
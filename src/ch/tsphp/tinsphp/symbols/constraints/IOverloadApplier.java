@@ -0,0 +1,26 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+import ch.tsphp.tinsphp.common.inference.constraints.IFunctionType;
+
+/**
+ * Tries to apply an overload on a binding collection, see {@link OverloadExplorer}.
+ * <p/>
+ * An applier used by a parallel {@link OverloadExplorer} is called concurrently (each time with another binding
+ * collection) and hence must not modify shared state without synchronisation.
+ */
+public interface IOverloadApplier
+{
+    /**
+     * Applies the given overload on the given binding collection.
+     *
+     * @return true if the overload is applicable, false otherwise in which case the binding collection is discarded.
+     */
+    boolean tryToApply(IBindingCollection bindingCollection, IFunctionType overload);
+}
@@ -0,0 +1,178 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+import ch.tsphp.tinsphp.common.inference.constraints.IFunctionType;
+import ch.tsphp.tinsphp.common.symbols.ISymbolFactory;
+import ch.tsphp.tinsphp.common.utils.Pair;
+import ch.tsphp.tinsphp.symbols.utils.TypeHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static ch.tsphp.tinsphp.common.utils.Pair.pair;
+
+/**
+ * Tries the overloads of a function on independent copies of a binding collection, either one after another or in
+ * parallel on a {@link ForkJoinPool}.
+ * <p/>
+ * The result does not depend on the execution mode: the successful applications are returned in the iteration order
+ * of the given overloads, regardless of the order in which they finished, and {@link #exploreAndSelect} picks the
+ * first of them. The given binding collection itself is not modified.
+ * <p/>
+ * Copying a {@link BindingCollection} as well as reading it does not modify it, the copies can hence be created by
+ * several threads concurrently. Yet, in parallel mode the type helper of the binding collection is used by several
+ * threads as well, hence the explorer requires an immutable {@link TypeHelper} (created via {@link
+ * TypeHelper.Builder}) and only explores binding collections which use this type helper.
+ */
+public class OverloadExplorer
+{
+    private final ISymbolFactory symbolFactory;
+    private final TypeHelper typeHelper;
+    private final ForkJoinPool pool;
+    private final int minNumberOfOverloadsForParallelism;
+
+    /**
+     * Creates an explorer which tries the overloads one after another on the calling thread.
+     */
+    public OverloadExplorer(ISymbolFactory theSymbolFactory) {
+        this(theSymbolFactory, null, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param theSymbolFactory                      Used to copy the binding collection per overload.
+     * @param theTypeHelper                         The type helper of the explored binding collections, needs to be
+     *                                              immutable if a pool is given.
+     * @param thePool                               The pool on which the overloads are tried, null in order to try
+     *                                              them on the calling thread.
+     * @param theMinNumberOfOverloadsForParallelism Functions with less overloads are tried on the calling thread since
+     *                                              the overhead of the pool does not pay off.
+     */
+    public OverloadExplorer(
+            ISymbolFactory theSymbolFactory,
+            TypeHelper theTypeHelper,
+            ForkJoinPool thePool,
+            int theMinNumberOfOverloadsForParallelism) {
+        if (theMinNumberOfOverloadsForParallelism < 1) {
+            throw new IllegalArgumentException("minNumberOfOverloadsForParallelism needs to be at least 1, was "
+                    + theMinNumberOfOverloadsForParallelism);
+        }
+        if (thePool != null && (theTypeHelper == null || !theTypeHelper.isImmutable())) {
+            throw new IllegalArgumentException("overloads can only be explored in parallel with an immutable "
+                    + "TypeHelper, use a TypeHelper created by a TypeHelper.Builder");
+        }
+        symbolFactory = theSymbolFactory;
+        typeHelper = theTypeHelper;
+        pool = thePool;
+        minNumberOfOverloadsForParallelism = theMinNumberOfOverloadsForParallelism;
+    }
+
+    /**
+     * Applies each overload on its own copy of the given binding collection.
+     *
+     * @return The applicable overloads with the corresponding binding collection in the iteration order of the given
+     * overloads.
+     */
+    public List<Pair<IFunctionType, IBindingCollection>> explore(
+            IBindingCollection bindingCollection,
+            Collection<IFunctionType> overloads,
+            IOverloadApplier overloadApplier) {
+
+        List<Pair<IFunctionType, IBindingCollection>> applications;
+        if (pool != null && overloads.size() >= minNumberOfOverloadsForParallelism) {
+            applications = exploreInParallel(bindingCollection, overloads, overloadApplier);
+        } else {
+            applications = new ArrayList<>();
+            for (IFunctionType overload : overloads) {
+                IBindingCollection copy = symbolFactory.createBindingCollection(bindingCollection);
+                if (overloadApplier.tryToApply(copy, overload)) {
+                    applications.add(pair(overload, copy));
+                }
+            }
+        }
+        return applications;
+    }
+
+    /**
+     * Applies each overload on its own copy of the given binding collection and picks the winner, which is the
+     * applicable overload which comes first in the iteration order of the given overloads.
+     *
+     * @return The winning overload with the corresponding binding collection or null if no overload is applicable.
+     */
+    public Pair<IFunctionType, IBindingCollection> exploreAndSelect(
+            IBindingCollection bindingCollection,
+            Collection<IFunctionType> overloads,
+            IOverloadApplier overloadApplier) {
+
+        List<Pair<IFunctionType, IBindingCollection>> applications
+                = explore(bindingCollection, overloads, overloadApplier);
+        return !applications.isEmpty() ? applications.get(0) : null;
+    }
+
+    private List<Pair<IFunctionType, IBindingCollection>> exploreInParallel(
+            final IBindingCollection bindingCollection,
+            Collection<IFunctionType> overloads,
+            final IOverloadApplier overloadApplier) {
+
+        if (!(bindingCollection instanceof BindingCollection)
+                || ((BindingCollection) bindingCollection).getTypeHelper() != typeHelper) {
+            throw new IllegalArgumentException("the binding collection does not use the immutable TypeHelper of "
+                    + "this explorer and hence cannot be explored in parallel");
+        }
+
+        List<Callable<IBindingCollection>> tasks = new ArrayList<>(overloads.size());
+        for (final IFunctionType overload : overloads) {
+            tasks.add(new Callable<IBindingCollection>()
+            {
+                @Override
+                public IBindingCollection call() {
+                    //no synchronisation needed, copying only reads the parent apart from fork() which sets the
+                    //volatile SharingState.isShared of the parent's maps
+                    IBindingCollection copy = symbolFactory.createBindingCollection(bindingCollection);
+                    return overloadApplier.tryToApply(copy, overload) ? copy : null;
+                }
+            });
+        }
+
+        //invokeAll returns the futures in the order of the tasks, hence the result is deterministic
+        List<Future<IBindingCollection>> futures = pool.invokeAll(tasks);
+        List<Pair<IFunctionType, IBindingCollection>> applications = new ArrayList<>();
+        int index = 0;
+        for (IFunctionType overload : overloads) {
+            IBindingCollection copy = getResult(futures.get(index));
+            if (copy != null) {
+                applications.add(pair(overload, copy));
+            }
+            ++index;
+        }
+        return applications;
+    }
+
+    private IBindingCollection getResult(Future<IBindingCollection> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("overload exploration was interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("overload application failed", cause);
+        }
+    }
+}
@@ -11,20 +11,26 @@ import java.util.Set;
 
 public class PropagationDto
 {
-    public final String returnTypeVariable;
-    public final Set<String> parameterTypeVariables;
-    public final Map<String, Set<String>> typeVariablesToVisit;
-    public final Set<String> typeParameters;
-    public final Set<String> recursiveTypeParameters;
-    public final Set<String> removeReturnTypeVariable;
+    public final int returnTypeVariable;
+    public final Set<Integer> parameterTypeVariables;
+    public final Map<Integer, Set<String>> typeVariablesToVisit;
+    public final Set<Integer> typeParameters;
+    public final Set<Integer> recursiveTypeParameters;
+    public final Set<Integer> removeReturnTypeVariable;
+    /**
+     * Type variables which were already visited when propagating the return type variable downwards, once for paths
+     * which did not pass a type parameter and once for paths which did.
+     */
+    public final TypeVariableSet visitedWithoutTypeParameter = new TypeVariableSet();
+    public final TypeVariableSet visitedAfterTypeParameter = new TypeVariableSet();
 
     public PropagationDto(
-            String theReturnTypeVariable,
-            Set<String> theParameterTypeVariables,
-            Map<String, Set<String>> theTypeVariablesToVisit,
-            Set<String> theParametricParameterTypeVariables,
-            Set<String> theRecursiveParameters,
-            Set<String> theRemoveReturnTypeVariable) {
+            int theReturnTypeVariable,
+            Set<Integer> theParameterTypeVariables,
+            Map<Integer, Set<String>> theTypeVariablesToVisit,
+            Set<Integer> theParametricParameterTypeVariables,
+            Set<Integer> theRecursiveParameters,
+            Set<Integer> theRemoveReturnTypeVariable) {
         returnTypeVariable = theReturnTypeVariable;
         parameterTypeVariables = theParameterTypeVariables;
         typeVariablesToVisit = theTypeVariablesToVisit;
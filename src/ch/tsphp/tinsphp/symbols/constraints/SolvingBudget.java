@@ -0,0 +1,59 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+/**
+ * Limits the work a binding collection spends on bound propagation in order that pathological code (e.g. huge arrays
+ * of mixed literals or very long concatenation chains) cannot make the inference run for a very long time.
+ * <p/>
+ * The number of propagation steps is counted per binding collection. A copy gets the budget of the binding collection
+ * it was copied from but starts without any propagation steps, and steps made after a checkpoint are not counted
+ * anymore once the checkpoint is rolled back. If a limit is exceeded then the binding collection either widens the affected lower type
+ * bounds to mixed or throws a {@link BudgetExceededException}. Upper type bounds cannot be widened, a binding
+ * collection hence always throws a BudgetExceededException if it exceeds the propagation steps while propagating an
+ * upper type bound.
+ */
+public final class SolvingBudget
+{
+    public static final SolvingBudget UNLIMITED = new SolvingBudget(Integer.MAX_VALUE, Integer.MAX_VALUE, false);
+
+    private final int maxPropagationSteps;
+    private final int maxUnionSize;
+    private final boolean widenToMixed;
+
+    /**
+     * @param theMaxPropagationSteps The maximum number of bounds which are propagated along ref bounds.
+     * @param theMaxUnionSize        The maximum number of types in a lower type bound.
+     * @param shallWidenToMixed      Whether lower type bounds shall be widened to mixed if a limit is exceeded instead
+     *                               of throwing a BudgetExceededException.
+     */
+    public SolvingBudget(int theMaxPropagationSteps, int theMaxUnionSize, boolean shallWidenToMixed) {
+        if (theMaxPropagationSteps < 0) {
+            throw new IllegalArgumentException("the maximum number of propagation steps cannot be negative, given "
+                    + theMaxPropagationSteps);
+        }
+        if (theMaxUnionSize < 1) {
+            throw new IllegalArgumentException("the maximum union size needs to be at least 1, given "
+                    + theMaxUnionSize);
+        }
+        maxPropagationSteps = theMaxPropagationSteps;
+        maxUnionSize = theMaxUnionSize;
+        widenToMixed = shallWidenToMixed;
+    }
+
+    public int getMaxPropagationSteps() {
+        return maxPropagationSteps;
+    }
+
+    public int getMaxUnionSize() {
+        return maxUnionSize;
+    }
+
+    public boolean shallWidenToMixed() {
+        return widenToMixed;
+    }
+}
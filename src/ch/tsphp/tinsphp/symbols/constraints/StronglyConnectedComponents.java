@@ -0,0 +1,112 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the cycles of a graph, i.e. its strongly connected components which consist of more than one node.
+ * <p/>
+ * Uses an iterative variant of Tarjan's algorithm in order that deep graphs do not lead to a StackOverflowError.
+ */
+public final class StronglyConnectedComponents
+{
+    private static final int UNVISITED = -1;
+
+    private StronglyConnectedComponents() {
+    }
+
+    /**
+     * Returns the strongly connected components with more than one node of the graph given by successors.
+     *
+     * @param successors    The successors per node, nodes without an entry do not have any successors.
+     * @param numberOfNodes All nodes are within [0, numberOfNodes).
+     */
+    public static List<List<Integer>> findCycles(
+            CopyOnWriteIntMap<? extends Set<Integer>> successors, int numberOfNodes) {
+        List<List<Integer>> cycles = new ArrayList<>();
+        int[] index = new int[numberOfNodes];
+        Arrays.fill(index, UNVISITED);
+        int[] lowLink = new int[numberOfNodes];
+        boolean[] isOnStack = new boolean[numberOfNodes];
+        Deque<Integer> stack = new ArrayDeque<>();
+        Deque<Integer> path = new ArrayDeque<>();
+        Deque<Iterator<Integer>> pathIterators = new ArrayDeque<>();
+        int counter = 0;
+
+        for (int root = 0; root < numberOfNodes; ++root) {
+            //a node without successors cannot be part of a cycle
+            if (index[root] != UNVISITED || !successors.containsKey(root)) {
+                continue;
+            }
+
+            counter = visit(root, counter, index, lowLink, isOnStack, stack, path, pathIterators, successors);
+            while (!path.isEmpty()) {
+                int node = path.peek();
+                Iterator<Integer> iterator = pathIterators.peek();
+                if (iterator.hasNext()) {
+                    int successor = iterator.next();
+                    if (successor >= numberOfNodes) {
+                        //not a node of this graph
+                        continue;
+                    }
+                    if (index[successor] == UNVISITED) {
+                        counter = visit(
+                                successor, counter, index, lowLink, isOnStack, stack, path, pathIterators, successors);
+                    } else if (isOnStack[successor]) {
+                        lowLink[node] = Math.min(lowLink[node], index[successor]);
+                    }
+                } else {
+                    path.pop();
+                    pathIterators.pop();
+                    if (!path.isEmpty()) {
+                        int parent = path.peek();
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                    if (lowLink[node] == index[node]) {
+                        List<Integer> component = new ArrayList<>();
+                        int member;
+                        do {
+                            member = stack.pop();
+                            isOnStack[member] = false;
+                            component.add(member);
+                        } while (member != node);
+                        if (component.size() > 1) {
+                            cycles.add(component);
+                        }
+                    }
+                }
+            }
+        }
+        return cycles;
+    }
+
+    @SuppressWarnings("checkstyle:parameternumber")
+    private static int visit(int node, int counter, int[] index, int[] lowLink, boolean[] isOnStack,
+            Deque<Integer> stack, Deque<Integer> path, Deque<Iterator<Integer>> pathIterators,
+            CopyOnWriteIntMap<? extends Set<Integer>> successors) {
+        index[node] = counter;
+        lowLink[node] = counter;
+        stack.push(node);
+        isOnStack[node] = true;
+        path.push(node);
+        Set<Integer> nodeSuccessors = successors.get(node);
+        if (nodeSuccessors != null) {
+            pathIterators.push(nodeSuccessors.iterator());
+        } else {
+            pathIterators.push(Collections.<Integer>emptyIterator());
+        }
+        return counter + 1;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An undo log (in the style of the trail of the Warren Abstract Machine) which allows to revert modifications back
+ * to a previously recorded position.
+ */
+public class Trail
+{
+    private final List<IUndoable> entries = new ArrayList<>();
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void push(IUndoable undoable) {
+        entries.add(undoable);
+    }
+
+    /**
+     * Undoes all entries which were pushed after the given position in reverse order.
+     */
+    public void undoTo(int position) {
+        if (position < 0 || position > entries.size()) {
+            throw new IllegalArgumentException("position " + position + " is not within the trail of size "
+                    + entries.size());
+        }
+
+        for (int i = entries.size() - 1; i >= position; --i) {
+            entries.remove(i).undo();
+        }
+    }
+
+    /**
+     * Reverts a single modification.
+     */
+    public interface IUndoable
+    {
+        void undo();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.constraints;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of type variable ids backed by a bitset.
+ * <p/>
+ * Type variable ids are dense (see BindingCollection) and hence a bitset needs considerably less memory than a
+ * HashSet with boxed entries. Moreover, union, intersection test and containment are word-parallel operations if both
+ * operands are TypeVariableSets. The iteration order is ascending.
+ */
+public class TypeVariableSet extends AbstractSet<Integer>
+{
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final long[] EMPTY = new long[0];
+
+    private long[] words;
+    private int size;
+    private int modCount;
+
+    public TypeVariableSet() {
+        words = EMPTY;
+    }
+
+    public TypeVariableSet(TypeVariableSet set) {
+        words = set.words.clone();
+        size = set.size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of 64-bit words which back this set.
+     */
+    public int getNumberOfWords() {
+        return words.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object obj) {
+        return obj instanceof Integer && contains(((Integer) obj).intValue());
+    }
+
+    public boolean contains(int typeVariable) {
+        int wordIndex = typeVariable >> ADDRESS_BITS_PER_WORD;
+        return typeVariable >= 0 && wordIndex < words.length && (words[wordIndex] & (1L << typeVariable)) != 0;
+    }
+
+    @Override
+    public boolean add(Integer typeVariable) {
+        return add(typeVariable.intValue());
+    }
+
+    public boolean add(int typeVariable) {
+        if (typeVariable < 0) {
+            throw new IllegalArgumentException("type variable ids are non-negative, given " + typeVariable);
+        }
+        int wordIndex = typeVariable >> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= words.length) {
+            words = Arrays.copyOf(words, Math.max(wordIndex + 1, words.length * 2));
+        }
+        long mask = 1L << typeVariable;
+        boolean isNew = (words[wordIndex] & mask) == 0;
+        if (isNew) {
+            words[wordIndex] |= mask;
+            ++size;
+            ++modCount;
+        }
+        return isNew;
+    }
+
+    @Override
+    public boolean remove(Object obj) {
+        return obj instanceof Integer && remove(((Integer) obj).intValue());
+    }
+
+    public boolean remove(int typeVariable) {
+        boolean isRemoved = contains(typeVariable);
+        if (isRemoved) {
+            words[typeVariable >> ADDRESS_BITS_PER_WORD] &= ~(1L << typeVariable);
+            --size;
+            ++modCount;
+        }
+        return isRemoved;
+    }
+
+    @Override
+    public void clear() {
+        if (size != 0) {
+            Arrays.fill(words, 0);
+            size = 0;
+            ++modCount;
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> collection) {
+        boolean hasChanged;
+        if (collection instanceof TypeVariableSet) {
+            hasChanged = addAll((TypeVariableSet) collection);
+        } else {
+            hasChanged = super.addAll(collection);
+        }
+        return hasChanged;
+    }
+
+    /**
+     * Word-parallel union, adds all type variables of the given set to this set.
+     */
+    public boolean addAll(TypeVariableSet set) {
+        long[] otherWords = set.words;
+        if (otherWords.length > words.length) {
+            words = Arrays.copyOf(words, otherWords.length);
+        }
+        int newSize = 0;
+        for (int i = 0; i < otherWords.length; ++i) {
+            words[i] |= otherWords[i];
+            newSize += Long.bitCount(words[i]);
+        }
+        for (int i = otherWords.length; i < words.length; ++i) {
+            newSize += Long.bitCount(words[i]);
+        }
+        boolean hasChanged = newSize != size;
+        if (hasChanged) {
+            size = newSize;
+            ++modCount;
+        }
+        return hasChanged;
+    }
+
+    /**
+     * Word-parallel intersection test, returns true if this set and the given set have at least one type variable in
+     * common.
+     */
+    public boolean intersects(TypeVariableSet set) {
+        int length = Math.min(words.length, set.words.length);
+        for (int i = 0; i < length; ++i) {
+            if ((words[i] & set.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new TypeVariableIterator();
+    }
+
+    /**
+     * Returns the smallest type variable of this set which is greater than or equal to the given one or -1 if there
+     * is none. Allows to iterate without boxing:
+     * {@code for (int t = set.next(0); t != -1; t = set.next(t + 1))}
+     */
+    public int next(int fromTypeVariable) {
+        return nextSetBit(fromTypeVariable);
+    }
+
+    private int nextSetBit(int fromIndex) {
+        int wordIndex = fromIndex >> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (word == 0) {
+            ++wordIndex;
+            if (wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+        return (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+    }
+
+    private class TypeVariableIterator implements Iterator<Integer>
+    {
+        private int next = nextSetBit(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != -1;
+        }
+
+        @Override
+        public Integer next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == -1) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = nextSetBit(next + 1);
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) {
+                throw new IllegalStateException("next was not called or remove was already called");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            TypeVariableSet.this.remove(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
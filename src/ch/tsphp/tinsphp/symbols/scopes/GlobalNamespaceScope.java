@@ -23,11 +23,13 @@ import ch.tsphp.tinsphp.common.scopes.IGlobalNamespaceScope;
 import ch.tsphp.tinsphp.common.scopes.IScopeHelper;
 import ch.tsphp.tinsphp.common.utils.MapHelper;
 import ch.tsphp.tinsphp.symbols.constraints.ConstraintCollection;
+import ch.tsphp.tinsphp.symbols.utils.IMemoryFootprintProvider;
+import ch.tsphp.tinsphp.symbols.utils.MemoryFootprint;
 
 import java.util.List;
 
 
-public class GlobalNamespaceScope extends AScope implements IGlobalNamespaceScope
+public class GlobalNamespaceScope extends AScope implements IGlobalNamespaceScope, IMemoryFootprintProvider
 {
 
     private final ILowerCaseStringMap<List<ISymbol>> symbolsCaseInsensitive = new LowerCaseStringMap<>();
@@ -124,4 +126,27 @@ public class GlobalNamespaceScope extends AScope implements IGlobalNamespaceScop
         constraintCollection.setBindings(theBindings);
     }
     //Warning! end code duplication - same as in MethodSymbol
+
+    /**
+     * Estimates the memory retained by this scope including its constraint collection and the symbols defined in it
+     * which can estimate their memory (e.g. functions).
+     */
+    @Override
+    public MemoryFootprint estimateMemoryFootprint() {
+        MemoryFootprint footprint = new MemoryFootprint("GlobalNamespaceScope " + scopeName);
+        footprint.addHashMapEntries("symbols", symbols.size());
+        footprint.addHashMapEntries("symbolsCaseInsensitive", symbolsCaseInsensitive.size());
+        footprint.addHashMapEntries("initialisedSymbols", initialisedSymbols.size());
+        if (constraintCollection instanceof IMemoryFootprintProvider) {
+            footprint.addChild(((IMemoryFootprintProvider) constraintCollection).estimateMemoryFootprint());
+        }
+        for (List<ISymbol> symbolList : symbols.values()) {
+            for (ISymbol symbol : symbolList) {
+                if (symbol instanceof IMemoryFootprintProvider) {
+                    footprint.addChild(((IMemoryFootprintProvider) symbol).estimateMemoryFootprint());
+                }
+            }
+        }
+        return footprint;
+    }
 }
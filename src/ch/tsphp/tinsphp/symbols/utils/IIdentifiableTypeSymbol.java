@@ -0,0 +1,21 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.utils;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+
+/**
+ * A type which provides a canonical identity, see {@link TypeIdentities}.
+ */
+public interface IIdentifiableTypeSymbol extends ITypeSymbol
+{
+    /**
+     * Returns the absolute name of this type as canonical instance, i.e. two types are the same if and only if their
+     * identities are the same reference.
+     */
+    String getTypeIdentity();
+}
@@ -0,0 +1,26 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.utils;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+
+/**
+ * A nominal type which can be labelled by a {@link TypeHierarchyIndex}.
+ */
+public interface IIndexedTypeSymbol extends ITypeSymbol
+{
+    /**
+     * Returns the up-to-date label of this type in the given index.
+     */
+    TypeHierarchyIndex.Label getHierarchyLabel(TypeHierarchyIndex index);
+
+    /**
+     * Registers the given index which labelled this type or one of its descendants, it is invalidated when a parent
+     * type is added to this type or its absolute name changes.
+     */
+    void registerTypeHierarchyIndex(TypeHierarchyIndex index);
+}
@@ -0,0 +1,15 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.utils;
+
+/**
+ * Implemented by objects which can estimate the memory they retain, see {@link MemoryFootprint}.
+ */
+public interface IMemoryFootprintProvider
+{
+    MemoryFootprint estimateMemoryFootprint();
+}
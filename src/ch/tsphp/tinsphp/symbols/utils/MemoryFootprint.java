@@ -0,0 +1,109 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An estimate of the memory retained by an object (e.g. a binding collection or a method symbol) together with the
+ * number of entries per internal map or list and the estimates of the objects it owns.
+ * <p/>
+ * The estimates assume a 64-bit JVM without compressed references and are meant to find hotspots, not to be exact.
+ * Objects which are shared (e.g. type symbols of classes or bounds shared by copy-on-write) are counted by every
+ * owner, hence the estimate is an upper bound.
+ */
+public class MemoryFootprint
+{
+    public static final int OBJECT_HEADER_BYTES = 16;
+    public static final int REFERENCE_BYTES = 8;
+    public static final int HASH_MAP_ENTRY_BYTES = 2 * OBJECT_HEADER_BYTES + 3 * REFERENCE_BYTES;
+    public static final int BOXED_INTEGER_BYTES = OBJECT_HEADER_BYTES;
+
+    private final String name;
+    private final Map<String, Integer> entryCounts = new LinkedHashMap<>();
+    private final List<MemoryFootprint> children = new ArrayList<>();
+    private long ownBytes = OBJECT_HEADER_BYTES;
+
+    public MemoryFootprint(String theName) {
+        name = theName;
+    }
+
+    /**
+     * Registers an internal map or list with the given number of entries which retains the given number of bytes
+     * (excluding the objects of children).
+     */
+    public void addEntries(String mapName, int count, long bytes) {
+        entryCounts.put(mapName, count);
+        ownBytes += bytes;
+    }
+
+    public void addHashMapEntries(String mapName, int count) {
+        addEntries(mapName, count, OBJECT_HEADER_BYTES + (long) count * HASH_MAP_ENTRY_BYTES);
+    }
+
+    public void addListEntries(String listName, int count) {
+        addEntries(listName, count, 2 * OBJECT_HEADER_BYTES + (long) count * REFERENCE_BYTES);
+    }
+
+    public void addBytes(long bytes) {
+        ownBytes += bytes;
+    }
+
+    public void addChild(MemoryFootprint child) {
+        children.add(child);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Integer> getEntryCounts() {
+        return Collections.unmodifiableMap(entryCounts);
+    }
+
+    public List<MemoryFootprint> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Returns the estimated bytes of this object without its children.
+     */
+    public long getOwnBytes() {
+        return ownBytes;
+    }
+
+    /**
+     * Returns the estimated bytes of this object including its children.
+     */
+    public long getEstimatedBytes() {
+        long bytes = ownBytes;
+        for (MemoryFootprint child : children) {
+            bytes += child.getEstimatedBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        append(sb, "");
+        return sb.toString();
+    }
+
+    private void append(StringBuilder sb, String indentation) {
+        sb.append(indentation).append(name).append(": ").append(getEstimatedBytes()).append(" bytes ")
+                .append(entryCounts).append("\n");
+        String childIndentation = indentation + "  ";
+        for (MemoryFootprint child : children) {
+            child.append(sb, childIndentation);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.utils;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.common.utils.ERelation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache for outcomes of checks between two types (e.g. subtype relations) which evicts the least recently
+ * used outcome once it is full.
+ * <p/>
+ * Outcomes are keyed by the two types and flags which describe the further input of the check. Types are compared by
+ * identity. Outcomes which were cached before the given type hierarchy index was invalidated (see
+ * {@link TypeHierarchyIndex#invalidate()}) are not returned anymore. The cache is thread-safe, it is split into
+ * segments with a lock each according to the given concurrency level, the least recently used outcome is evicted per
+ * segment in this case.
+ */
+public class RelationCache<V>
+{
+    private final int maxSize;
+    private final TypeHierarchyIndex typeHierarchyIndex;
+    private final Segment<V>[] segments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RelationCache(int theMaxSize) {
+        this(theMaxSize, 1);
+    }
+
+    public RelationCache(int theMaxSize, int concurrencyLevel) {
+        this(theMaxSize, concurrencyLevel, new TypeHierarchyIndex());
+    }
+
+    /**
+     * @param theMaxSize The maximum number of cached outcomes, 0 in order to disable the cache.
+     * @param concurrencyLevel The number of segments which can be accessed concurrently.
+     * @param theTypeHierarchyIndex The index whose invalidation invalidates the cached outcomes.
+     */
+    @SuppressWarnings("unchecked")
+    public RelationCache(int theMaxSize, int concurrencyLevel, TypeHierarchyIndex theTypeHierarchyIndex) {
+        if (theMaxSize < 0) {
+            throw new IllegalArgumentException("maxSize cannot be negative, was " + theMaxSize);
+        }
+        if (concurrencyLevel < 1) {
+            throw new IllegalArgumentException("concurrencyLevel needs to be at least 1, was " + concurrencyLevel);
+        }
+        maxSize = theMaxSize;
+        typeHierarchyIndex = theTypeHierarchyIndex;
+        int numberOfSegments = Math.max(1, Math.min(concurrencyLevel, maxSize));
+        int segmentSize = (maxSize + numberOfSegments - 1) / numberOfSegments;
+        segments = (Segment<V>[]) new Segment<?>[numberOfSegments];
+        for (int i = 0; i < numberOfSegments; ++i) {
+            segments[i] = new Segment<>(segmentSize);
+        }
+    }
+
+    /**
+     * Returns the cached outcome or null if it is not cached.
+     */
+    public V get(ITypeSymbol fromType, ITypeSymbol toType, int flags) {
+        V value = null;
+        if (maxSize > 0) {
+            Key key = new Key(fromType, toType, flags);
+            Slot<V> slot = getSegment(key).get(key);
+            if (slot != null && slot.generation == typeHierarchyIndex.getGeneration()) {
+                value = slot.value;
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+        return value;
+    }
+
+    public void put(ITypeSymbol fromType, ITypeSymbol toType, int flags, V value) {
+        if (maxSize > 0) {
+            Key key = new Key(fromType, toType, flags);
+            getSegment(key).put(key, new Slot<>(typeHierarchyIndex.getGeneration(), value));
+        }
+    }
+
+    private Segment<V> getSegment(Key key) {
+        int hash = key.hashCode();
+        //spread the higher bits since the identity hash codes of the types are combined by a multiplication
+        hash ^= hash >>> 16;
+        return segments[(hash & Integer.MAX_VALUE) % segments.length];
+    }
+
+    /**
+     * Removes all cached outcomes, e.g. because the conversions changed.
+     */
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getNumberOfHits() {
+        return hits.get();
+    }
+
+    public long getNumberOfMisses() {
+        return misses.get();
+    }
+
+    /**
+     * The cached outcome of a relation check.
+     */
+    public static final class Entry
+    {
+        public final ERelation relation;
+        /**
+         * Whether implicit conversions shall still be considered after the check (it is switched off once implicit
+         * conversions were considered).
+         */
+        public final boolean shallConsiderImplicitConversions;
+
+        public Entry(ERelation theRelation, boolean theShallConsiderImplicitConversions) {
+            relation = theRelation;
+            shallConsiderImplicitConversions = theShallConsiderImplicitConversions;
+        }
+    }
+
+    private static final class Segment<V>
+    {
+        private final LinkedHashMap<Key, Slot<V>> relations;
+
+        private Segment(final int maxSize) {
+            relations = new LinkedHashMap<Key, Slot<V>>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Slot<V>> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        private synchronized Slot<V> get(Key key) {
+            return relations.get(key);
+        }
+
+        private synchronized void put(Key key, Slot<V> slot) {
+            relations.put(key, slot);
+        }
+
+        private synchronized void clear() {
+            relations.clear();
+        }
+
+        private synchronized int size() {
+            return relations.size();
+        }
+    }
+
+    private static final class Slot<V>
+    {
+        private final long generation;
+        private final V value;
+
+        private Slot(long theGeneration, V theValue) {
+            generation = theGeneration;
+            value = theValue;
+        }
+    }
+
+    private static final class Key
+    {
+        private final ITypeSymbol fromType;
+        private final ITypeSymbol toType;
+        private final int flags;
+
+        private Key(ITypeSymbol theFromType, ITypeSymbol theToType, int theFlags) {
+            fromType = theFromType;
+            toType = theToType;
+            flags = theFlags;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            boolean isEqual = false;
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                isEqual = fromType == other.fromType && toType == other.toType && flags == other.flags;
+            }
+            return isEqual;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(fromType);
+            hash = 31 * hash + System.identityHashCode(toType);
+            return 31 * hash + flags;
+        }
+    }
+}
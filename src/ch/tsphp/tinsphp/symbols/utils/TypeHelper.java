@@ -9,6 +9,7 @@ package ch.tsphp.tinsphp.symbols.utils;
 import ch.tsphp.common.symbols.ITypeSymbol;
 import ch.tsphp.tinsphp.common.IConversionMethod;
 import ch.tsphp.tinsphp.common.core.IConversionsProvider;
+import ch.tsphp.tinsphp.common.inference.constraints.IPolymorphicType;
 import ch.tsphp.tinsphp.common.symbols.IConvertibleTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IIntersectionTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IUnionTypeSymbol;
@@ -18,6 +19,7 @@ import ch.tsphp.tinsphp.common.utils.MapHelper;
 import ch.tsphp.tinsphp.common.utils.Pair;
 import ch.tsphp.tinsphp.common.utils.TypeHelperDto;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,25 +31,104 @@ import static ch.tsphp.tinsphp.common.utils.ERelation.HAS_COERCIVE_RELATION;
 import static ch.tsphp.tinsphp.common.utils.ERelation.HAS_NO_RELATION;
 import static ch.tsphp.tinsphp.common.utils.ERelation.HAS_RELATION;
 
+/**
+ * Checks the relation between types.
+ * <p/>
+ * A TypeHelper created via its constructors is configured via {@link #setMixedTypeSymbol(ITypeSymbol)} and
+ * {@link #setConversionsProvider(IConversionsProvider)}. A TypeHelper created via {@link Builder} is immutable, its
+ * setters accept the already configured values but throw an UnsupportedOperationException on any change, and it can be
+ * shared by multiple threads.
+ */
 public class TypeHelper implements ITypeHelper
 {
+    public static final int DEFAULT_RELATION_CACHE_SIZE = 4096;
+
+    private static final String TYPE_PARAMETER_PLACEHOLDER = "!typeParameter";
+    private static final String TYPE_VARIABLE_PLACEHOLDER = "!typeVariable";
+
+    private final TypeHierarchyIndex typeHierarchyIndex = new TypeHierarchyIndex();
+    private final RelationCache<RelationCache.Entry> relationCache;
+    private final RelationCache<ConversionDto> conversionClosure;
+    private final boolean isImmutable;
+    private volatile ITypeSymbol mixedTypeSymbol;
+    private volatile IConversionsProvider conversionsProvider;
+
+    public TypeHelper() {
+        this(DEFAULT_RELATION_CACHE_SIZE);
+    }
+
+    /**
+     * @param relationCacheSize The maximum number of relations and conversions between two nominal types which are
+     *                          cached (each), 0 in order to disable the caches.
+     */
+    public TypeHelper(int relationCacheSize) {
+        relationCache = new RelationCache<>(relationCacheSize, 1, typeHierarchyIndex);
+        conversionClosure = new RelationCache<>(relationCacheSize, 1, typeHierarchyIndex);
+        isImmutable = false;
+    }
 
-    private ITypeSymbol mixedTypeSymbol;
-    private IConversionsProvider conversionsProvider;
+    private TypeHelper(Builder builder) {
+        relationCache = new RelationCache<>(builder.relationCacheSize, builder.concurrencyLevel, typeHierarchyIndex);
+        conversionClosure = new RelationCache<>(
+                builder.relationCacheSize, builder.concurrencyLevel, typeHierarchyIndex);
+        mixedTypeSymbol = builder.mixedTypeSymbol;
+        conversionsProvider = builder.conversionsProvider;
+        isImmutable = true;
+    }
 
     @Override
     public void setConversionsProvider(IConversionsProvider theConversionProvider) {
-        conversionsProvider = theConversionProvider;
+        if (theConversionProvider != conversionsProvider) {
+            checkIsMutable();
+            conversionsProvider = theConversionProvider;
+            invalidateRelationCache();
+        }
     }
 
     @Override
     public void setMixedTypeSymbol(ITypeSymbol typeSymbol) {
-        mixedTypeSymbol = typeSymbol;
+        if (typeSymbol != mixedTypeSymbol) {
+            checkIsMutable();
+            mixedTypeSymbol = typeSymbol;
+            invalidateRelationCache();
+        }
+    }
+
+    private void checkIsMutable() {
+        if (isImmutable) {
+            throw new UnsupportedOperationException("this TypeHelper was created by a Builder and is immutable");
+        }
+    }
+
+    public boolean isImmutable() {
+        return isImmutable;
+    }
+
+    /**
+     * Removes all cached relations between nominal types, needs to be called if the conversions of the conversions
+     * provider change after relations were checked. Changes of the parent types of indexed types invalidate the
+     * cached relations automatically (see {@link TypeHierarchyIndex}), others need to call this method as well.
+     */
+    public void invalidateRelationCache() {
+        relationCache.clear();
+        conversionClosure.clear();
+    }
+
+    public RelationCache<RelationCache.Entry> getRelationCache() {
+        return relationCache;
+    }
+
+    /**
+     * Returns the cache which contains the outcome of conversion searches from a nominal type to another nominal type
+     * including the conversions of its parent types and the conversions to subtypes of the target type.
+     */
+    public RelationCache<ConversionDto> getConversionClosure() {
+        return conversionClosure;
     }
 
     @Override
     public boolean areSame(ITypeSymbol firstType, ITypeSymbol secondType) {
-        return firstType == secondType || firstType.getAbsoluteName().equals(secondType.getAbsoluteName());
+        return TypeIdentities.areSame(firstType, secondType);
     }
 
     @Override
@@ -94,6 +175,33 @@ public class TypeHelper implements ITypeHelper
         return dto;
     }
 
+    /**
+     * Returns the relation between the given types without constraints.
+     * <p/>
+     * Does not allocate anything if both types are the same or if both are nominal types and their relation was
+     * already cached.
+     */
+    public ERelation getRelation(
+            ITypeSymbol potentialSubType, ITypeSymbol typeSymbol, boolean shallConsiderImplicitConversions) {
+        ERelation relation;
+        if (areSame(potentialSubType, typeSymbol)) {
+            relation = HAS_RELATION;
+        } else if (isNominal(potentialSubType) && isNominal(typeSymbol)
+                && isFixed(potentialSubType) && isFixed(typeSymbol)) {
+            relation = getCachedRelation(potentialSubType, typeSymbol, shallConsiderImplicitConversions).relation;
+        } else {
+            relation = isFirstSameOrSubTypeOfSecond(
+                    potentialSubType, typeSymbol, shallConsiderImplicitConversions).relation;
+        }
+        return relation;
+    }
+
+    private boolean isNominal(ITypeSymbol typeSymbol) {
+        return !(typeSymbol instanceof IUnionTypeSymbol)
+                && !(typeSymbol instanceof IIntersectionTypeSymbol)
+                && !(typeSymbol instanceof IConvertibleTypeSymbol);
+    }
+
     private void isFirstSameOrSubTypeOfSecond(TypeHelperDto dto) {
         if (areSame(dto.fromType, dto.toType)) {
             dto.relation = HAS_RELATION;
@@ -133,9 +241,7 @@ public class TypeHelper implements ITypeHelper
             if (dto.relation == HAS_COERCIVE_RELATION) {
                 //does not have a coercive subtyping relation if the opposite has a regular relation
                 //see TINS-513 implicit conversions and num addition for an explanation
-                TypeHelperDto oppositeDto = new TypeHelperDto(dto.toType, dto.fromType, false);
-                isFirstSameOrSubTypeOfSecond(oppositeDto);
-                if (oppositeDto.relation == HAS_RELATION) {
+                if (getRelation(dto.toType, dto.fromType, false) == HAS_RELATION) {
                     dto.relation = HAS_NO_RELATION;
                 }
             }
@@ -267,18 +373,107 @@ public class TypeHelper implements ITypeHelper
     }
 
     private void hasExplicitOrImplicitConversion(TypeHelperDto dto, String typeParameter, TypeHelperDto copy) {
-        hasConversionFromNominalToTarget(copy, typeParameter, conversionsProvider.getImplicitConversions());
+        hasConversionFromNominalToTarget(copy, typeParameter, conversionsProvider.getImplicitConversions(), true);
 
         if (copy.relation == HAS_NO_RELATION) {
             copy.shallConsiderImplicitConversions = dto.shallConsiderImplicitConversions;
-            hasConversionFromNominalToTarget(copy, typeParameter, conversionsProvider.getExplicitConversions());
+            hasConversionFromNominalToTarget(
+                    copy, typeParameter, conversionsProvider.getExplicitConversions(), false);
         }
     }
 
     private void hasConversionFromNominalToTarget(
             TypeHelperDto dto,
             String typeParameter,
-            Map<String, Map<String, Pair<ITypeSymbol, IConversionMethod>>> conversionMap) {
+            Map<String, Map<String, Pair<ITypeSymbol, IConversionMethod>>> conversionMap,
+            boolean isImplicit) {
+
+        ConversionDto conversionDto = null;
+        if (isFixed(dto.fromType) && isFixed(dto.toType)
+                && !(dto.fromType instanceof IPolymorphicType) && !(dto.toType instanceof IPolymorphicType)) {
+            int flags = getConversionFlags(dto, typeParameter, isImplicit);
+            conversionDto = conversionClosure.get(dto.fromType, dto.toType, flags);
+            if (conversionDto == null) {
+                conversionDto = calculateConversion(dto, typeParameter, conversionMap, isImplicit);
+                if (conversionDto != null) {
+                    conversionClosure.put(dto.fromType, dto.toType, flags, conversionDto);
+                }
+            }
+        }
+
+        if (conversionDto != null) {
+            dto.relation = conversionDto.relation;
+            dto.shallConsiderImplicitConversions = conversionDto.shallConsiderImplicitConversions;
+            transferPlaceholderConstraints(conversionDto.lowerConstraints, dto.lowerConstraints, dto, typeParameter);
+            transferPlaceholderConstraints(conversionDto.upperConstraints, dto.upperConstraints, dto, typeParameter);
+        } else {
+            hasConversionFromNominalToTargetUncached(dto, typeParameter, conversionMap, isImplicit);
+        }
+    }
+
+    private int getConversionFlags(TypeHelperDto dto, String typeParameter, boolean isImplicit) {
+        int flags = dto.shallConsiderImplicitConversions ? 1 : 0;
+        flags |= typeParameter != null ? 2 : 0;
+        flags |= dto.typeVariable != null ? 4 : 0;
+        flags |= isImplicit ? 8 : 0;
+        return flags | (dto.relation.ordinal() << 4);
+    }
+
+    /**
+     * Searches the conversion on a copy of the given dto with placeholders for the type parameter and type variable
+     * in order that the outcome can be reused for other type parameters and type variables.
+     *
+     * @return The outcome or null if it cannot be reused.
+     */
+    private ConversionDto calculateConversion(
+            TypeHelperDto dto,
+            String typeParameter,
+            Map<String, Map<String, Pair<ITypeSymbol, IConversionMethod>>> conversionMap,
+            boolean isImplicit) {
+
+        TypeHelperDto copy = new TypeHelperDto(dto.fromType, dto.toType, dto.shallConsiderImplicitConversions);
+        copy.relation = dto.relation;
+        copy.typeVariable = dto.typeVariable != null ? TYPE_VARIABLE_PLACEHOLDER : null;
+        String placeholder = typeParameter != null ? TYPE_PARAMETER_PLACEHOLDER : null;
+        hasConversionFromNominalToTargetUncached(copy, placeholder, conversionMap, isImplicit);
+
+        ConversionDto conversionDto = null;
+        if (hasOnlyPlaceholders(copy.lowerConstraints) && hasOnlyPlaceholders(copy.upperConstraints)) {
+            conversionDto = new ConversionDto(
+                    copy.relation, copy.shallConsiderImplicitConversions, copy.lowerConstraints, copy.upperConstraints);
+        }
+        return conversionDto;
+    }
+
+    private boolean hasOnlyPlaceholders(Map<String, Set<ITypeSymbol>> constraints) {
+        boolean hasOnlyPlaceholders = true;
+        for (String typeVariable : constraints.keySet()) {
+            if (!TYPE_PARAMETER_PLACEHOLDER.equals(typeVariable) && !TYPE_VARIABLE_PLACEHOLDER.equals(typeVariable)) {
+                hasOnlyPlaceholders = false;
+                break;
+            }
+        }
+        return hasOnlyPlaceholders;
+    }
+
+    private void transferPlaceholderConstraints(
+            Map<String, Set<ITypeSymbol>> from,
+            Map<String, Set<ITypeSymbol>> to,
+            TypeHelperDto dto,
+            String typeParameter) {
+        for (Map.Entry<String, Set<ITypeSymbol>> entry : from.entrySet()) {
+            String typeVariable = TYPE_PARAMETER_PLACEHOLDER.equals(entry.getKey()) ? typeParameter : dto.typeVariable;
+            for (ITypeSymbol typeSymbol : entry.getValue()) {
+                MapHelper.addToSetInMap(to, typeVariable, typeSymbol);
+            }
+        }
+    }
+
+    private void hasConversionFromNominalToTargetUncached(
+            TypeHelperDto dto,
+            String typeParameter,
+            Map<String, Map<String, Pair<ITypeSymbol, IConversionMethod>>> conversionMap,
+            boolean isImplicit) {
 
         String fromAbsoluteName = dto.fromType.getAbsoluteName();
         String toTargetAbsoluteName = dto.toType.getAbsoluteName();
@@ -298,7 +493,7 @@ public class TypeHelper implements ITypeHelper
             }
         }
         if (dto.relation == HAS_NO_RELATION) {
-            haveParentsConversionToTarget(dto, typeParameter, conversionMap);
+            haveParentsConversionToTarget(dto, typeParameter, conversionMap, isImplicit);
         }
     }
 
@@ -341,12 +536,13 @@ public class TypeHelper implements ITypeHelper
     private void haveParentsConversionToTarget(
             TypeHelperDto dto,
             String typeParameter,
-            Map<String, Map<String, Pair<ITypeSymbol, IConversionMethod>>> conversionMap) {
+            Map<String, Map<String, Pair<ITypeSymbol, IConversionMethod>>> conversionMap,
+            boolean isImplicit) {
 
         ITypeSymbol tmpFromType = dto.fromType;
         for (ITypeSymbol typeSymbol : dto.fromType.getParentTypeSymbols()) {
             dto.fromType = typeSymbol;
-            hasConversionFromNominalToTarget(dto, typeParameter, conversionMap);
+            hasConversionFromNominalToTarget(dto, typeParameter, conversionMap, isImplicit);
             if (dto.relation == HAS_RELATION) {
                 break;
             }
@@ -356,18 +552,16 @@ public class TypeHelper implements ITypeHelper
 
     //Warning! start code duplication - very similar to allAreSameOrParentTypesOfFromType
     private void allAreSameOrSubtypesOfToType(Collection<ITypeSymbol> typeSymbols, TypeHelperDto dto) {
-        Map<String, Set<ITypeSymbol>> lowerConstraints = new HashMap<>();
-        Map<String, Set<ITypeSymbol>> upperConstraints = new HashMap<>();
+        // constraints are only collected if one of the types actually has constraints, the result dto is reused
+        Map<String, Set<ITypeSymbol>> lowerConstraints = null;
+        Map<String, Set<ITypeSymbol>> upperConstraints = null;
+        TypeHelperDto resultDto = new TypeHelperDto(null, dto.toType, dto.shallConsiderImplicitConversions);
 
         ERelation subtypeRelation = HAS_RELATION;
         forLoop:
         for (ITypeSymbol typeSymbol : typeSymbols) {
-            TypeHelperDto resultDto;
-            if (dto.shallConsiderImplicitConversions) {
-                resultDto = isFirstSameOrSubTypeOfSecond(typeSymbol, dto.toType, dto.typeVariable);
-            } else {
-                resultDto = isFirstSameOrSubTypeOfSecond(typeSymbol, dto.toType, false);
-            }
+            resetForNextQuery(resultDto, typeSymbol, dto.toType, dto);
+            isFirstSameOrSubTypeOfSecond(resultDto);
             switch (resultDto.relation) {
                 case HAS_NO_RELATION:
                     subtypeRelation = HAS_NO_RELATION;
@@ -376,20 +570,55 @@ public class TypeHelper implements ITypeHelper
                     subtypeRelation = HAS_COERCIVE_RELATION;
                     //fall through on purpose
                 default:
-                    transferConstraintsFromTo(resultDto.lowerConstraints, lowerConstraints);
-                    transferConstraintsFromTo(resultDto.upperConstraints, upperConstraints);
+                    lowerConstraints = collectConstraints(resultDto.lowerConstraints, lowerConstraints);
+                    upperConstraints = collectConstraints(resultDto.upperConstraints, upperConstraints);
             }
         }
 
         if (subtypeRelation != HAS_NO_RELATION) {
             dto.relation = subtypeRelation;
-            transferConstraintsFromTo(lowerConstraints, dto.lowerConstraints);
-            transferConstraintsFromTo(upperConstraints, dto.upperConstraints);
+            if (lowerConstraints != null) {
+                transferConstraintsFromTo(lowerConstraints, dto.lowerConstraints);
+            }
+            if (upperConstraints != null) {
+                transferConstraintsFromTo(upperConstraints, dto.upperConstraints);
+            }
         }
     }
     //Warning! end code duplication - very similar to allAreSameOrParentTypesOfFromType
 
 
+    /**
+     * Prepares the given result dto for the next query in the same way as a new dto would be set up by
+     * isFirstSameOrSubTypeOfSecond with a type variable (if implicit conversions are considered) or without.
+     */
+    private void resetForNextQuery(
+            TypeHelperDto resultDto, ITypeSymbol fromType, ITypeSymbol toType, TypeHelperDto dto) {
+        resultDto.fromType = fromType;
+        resultDto.toType = toType;
+        resultDto.shallConsiderImplicitConversions = dto.shallConsiderImplicitConversions;
+        resultDto.typeVariable = dto.shallConsiderImplicitConversions ? dto.typeVariable : null;
+        resultDto.relation = HAS_NO_RELATION;
+        if (!resultDto.lowerConstraints.isEmpty()) {
+            resultDto.lowerConstraints.clear();
+        }
+        if (!resultDto.upperConstraints.isEmpty()) {
+            resultDto.upperConstraints.clear();
+        }
+    }
+
+    private Map<String, Set<ITypeSymbol>> collectConstraints(
+            Map<String, Set<ITypeSymbol>> from, Map<String, Set<ITypeSymbol>> to) {
+        Map<String, Set<ITypeSymbol>> constraints = to;
+        if (!from.isEmpty()) {
+            if (constraints == null) {
+                constraints = new HashMap<>();
+            }
+            transferConstraintsFromTo(from, constraints);
+        }
+        return constraints;
+    }
+
     private void transferConstraintsFromTo(Map<String, Set<ITypeSymbol>> from, Map<String, Set<ITypeSymbol>> to) {
         for (Map.Entry<String, Set<ITypeSymbol>> entry : from.entrySet()) {
             String typeVariable = entry.getKey();
@@ -406,18 +635,16 @@ public class TypeHelper implements ITypeHelper
 
     //Warning! start code duplication - very similar to allAreSameOrSubtypesOfToType
     private void allAreSameOrParentTypesOfFromType(Collection<ITypeSymbol> typeSymbols, TypeHelperDto dto) {
-        Map<String, Set<ITypeSymbol>> lowerConstraints = new HashMap<>();
-        Map<String, Set<ITypeSymbol>> upperConstraints = new HashMap<>();
+        // constraints are only collected if one of the types actually has constraints, the result dto is reused
+        Map<String, Set<ITypeSymbol>> lowerConstraints = null;
+        Map<String, Set<ITypeSymbol>> upperConstraints = null;
+        TypeHelperDto resultDto = new TypeHelperDto(dto.fromType, null, dto.shallConsiderImplicitConversions);
 
         ERelation parentTypeRelation = HAS_RELATION;
         forLoop:
         for (ITypeSymbol typeSymbol : typeSymbols) {
-            TypeHelperDto resultDto;
-            if (dto.shallConsiderImplicitConversions) {
-                resultDto = isFirstSameOrParentTypeOfSecond(typeSymbol, dto.fromType, dto.typeVariable);
-            } else {
-                resultDto = isFirstSameOrParentTypeOfSecond(typeSymbol, dto.fromType, false);
-            }
+            resetForNextQuery(resultDto, dto.fromType, typeSymbol, dto);
+            isFirstSameOrSubTypeOfSecond(resultDto);
             switch (resultDto.relation) {
                 case HAS_NO_RELATION:
                     parentTypeRelation = HAS_NO_RELATION;
@@ -426,15 +653,19 @@ public class TypeHelper implements ITypeHelper
                     parentTypeRelation = HAS_COERCIVE_RELATION;
                     //fall through on purpose
                 default:
-                    transferConstraintsFromTo(resultDto.lowerConstraints, lowerConstraints);
-                    transferConstraintsFromTo(resultDto.upperConstraints, upperConstraints);
+                    lowerConstraints = collectConstraints(resultDto.lowerConstraints, lowerConstraints);
+                    upperConstraints = collectConstraints(resultDto.upperConstraints, upperConstraints);
             }
         }
 
         if (parentTypeRelation != HAS_NO_RELATION) {
             dto.relation = parentTypeRelation;
-            transferConstraintsFromTo(lowerConstraints, dto.lowerConstraints);
-            transferConstraintsFromTo(upperConstraints, dto.upperConstraints);
+            if (lowerConstraints != null) {
+                transferConstraintsFromTo(lowerConstraints, dto.lowerConstraints);
+            }
+            if (upperConstraints != null) {
+                transferConstraintsFromTo(upperConstraints, dto.upperConstraints);
+            }
         }
     }
     //Warning! end code duplication - very similar to allAreSameOrSubtypesOfToType
@@ -488,8 +719,7 @@ public class TypeHelper implements ITypeHelper
         } else {
             // if intersection type (dto.fromType) is a subtype of the constraint,
             // then we restrict it to the subtype instead
-            TypeHelperDto resultDto = isFirstSameOrSubTypeOfSecond(dto.fromType, typeSymbol, false);
-            if (resultDto.relation == HAS_RELATION) {
+            if (getRelation(dto.fromType, typeSymbol, false) == HAS_RELATION) {
                 MapHelper.addToSetInMap(constraintMap, typeVariable, dto.fromType);
             } else {
                 MapHelper.addToSetInMap(constraintMap, typeVariable, typeSymbol);
@@ -521,10 +751,41 @@ public class TypeHelper implements ITypeHelper
 
 
     private void hasUpRelationFromNominalToNominal(TypeHelperDto dto) {
+        // only a check which starts without relation and without type variable is cached since the outcome depends
+        // on the previous relation and a type variable leads to constraints
+        if (dto.relation == HAS_NO_RELATION && dto.typeVariable == null
+                && isFixed(dto.fromType) && isFixed(dto.toType)) {
+            RelationCache.Entry entry = getCachedRelation(
+                    dto.fromType, dto.toType, dto.shallConsiderImplicitConversions);
+            dto.relation = entry.relation;
+            dto.shallConsiderImplicitConversions = entry.shallConsiderImplicitConversions;
+        } else {
+            hasUpRelationFromNominalToNominalUncached(dto);
+        }
+    }
+
+    private RelationCache.Entry getCachedRelation(
+            ITypeSymbol fromType, ITypeSymbol toType, boolean shallConsiderImplicitConversions) {
+        int flags = shallConsiderImplicitConversions ? 1 : 0;
+        RelationCache.Entry entry = relationCache.get(fromType, toType, flags);
+        if (entry == null) {
+            TypeHelperDto dto = new TypeHelperDto(fromType, toType, shallConsiderImplicitConversions);
+            hasUpRelationFromNominalToNominalUncached(dto);
+            entry = new RelationCache.Entry(dto.relation, dto.shallConsiderImplicitConversions);
+            relationCache.put(fromType, toType, flags, entry);
+        }
+        return entry;
+    }
+
+    private boolean isFixed(ITypeSymbol typeSymbol) {
+        return !(typeSymbol instanceof IPolymorphicType) || ((IPolymorphicType) typeSymbol).isFixed();
+    }
+
+    private void hasUpRelationFromNominalToNominalUncached(TypeHelperDto dto) {
         hasUpRelationViaNominalSubtyping(dto);
         if (dto.relation != HAS_RELATION && dto.shallConsiderImplicitConversions && conversionsProvider != null) {
             dto.shallConsiderImplicitConversions = false;
-            hasConversionFromNominalToTarget(dto, null, conversionsProvider.getImplicitConversions());
+            hasConversionFromNominalToTarget(dto, null, conversionsProvider.getImplicitConversions(), true);
             if (dto.relation == HAS_RELATION) {
                 dto.relation = ERelation.HAS_COERCIVE_RELATION;
             }
@@ -532,11 +793,28 @@ public class TypeHelper implements ITypeHelper
     }
 
     private void hasUpRelationViaNominalSubtyping(TypeHelperDto dto) {
+        TypeHierarchyIndex.Label label = null;
+        BitSet ancestorNameIds = null;
+        if (dto.fromType instanceof IIndexedTypeSymbol) {
+            label = ((IIndexedTypeSymbol) dto.fromType).getHierarchyLabel(typeHierarchyIndex);
+            ancestorNameIds = label.getAncestorNameIds();
+        }
+        if (ancestorNameIds != null) {
+            int nameId = label.findNameId(dto.toType.getAbsoluteName());
+            if (nameId != TypeHierarchyIndex.UNKNOWN_NAME && ancestorNameIds.get(nameId)) {
+                dto.relation = HAS_RELATION;
+            }
+        } else {
+            hasUpRelationViaParentTypes(dto);
+        }
+    }
+
+    private void hasUpRelationViaParentTypes(TypeHelperDto dto) {
         if (!areSame(dto.fromType, dto.toType)) {
             for (ITypeSymbol parentType : dto.fromType.getParentTypeSymbols()) {
                 ITypeSymbol tmp = dto.fromType;
                 dto.fromType = parentType;
-                hasUpRelationViaNominalSubtyping(dto);
+                hasUpRelationViaParentTypes(dto);
                 dto.fromType = tmp;
                 if (dto.relation == HAS_RELATION) {
                     break;
@@ -546,4 +824,83 @@ public class TypeHelper implements ITypeHelper
             dto.relation = HAS_RELATION;
         }
     }
+
+    /**
+     * The outcome of a conversion search, constraints are stored with placeholders as type variables.
+     */
+    public static final class ConversionDto
+    {
+        public final ERelation relation;
+        public final boolean shallConsiderImplicitConversions;
+        public final Map<String, Set<ITypeSymbol>> lowerConstraints;
+        public final Map<String, Set<ITypeSymbol>> upperConstraints;
+
+        public ConversionDto(
+                ERelation theRelation,
+                boolean theShallConsiderImplicitConversions,
+                Map<String, Set<ITypeSymbol>> theLowerConstraints,
+                Map<String, Set<ITypeSymbol>> theUpperConstraints) {
+            relation = theRelation;
+            shallConsiderImplicitConversions = theShallConsiderImplicitConversions;
+            lowerConstraints = theLowerConstraints;
+            upperConstraints = theUpperConstraints;
+        }
+    }
+
+    /**
+     * Builds an immutable TypeHelper which can be shared by multiple threads.
+     */
+    public static final class Builder
+    {
+        private ITypeSymbol mixedTypeSymbol;
+        private IConversionsProvider conversionsProvider;
+        private int relationCacheSize = DEFAULT_RELATION_CACHE_SIZE;
+        private int concurrencyLevel = Runtime.getRuntime().availableProcessors();
+
+        public Builder mixedTypeSymbol(ITypeSymbol typeSymbol) {
+            mixedTypeSymbol = typeSymbol;
+            return this;
+        }
+
+        public Builder conversionsProvider(IConversionsProvider theConversionsProvider) {
+            conversionsProvider = theConversionsProvider;
+            return this;
+        }
+
+        /**
+         * @param theRelationCacheSize The maximum number of relations and conversions between two nominal types which
+         *                             are cached (each), 0 in order to disable the caches.
+         */
+        public Builder relationCacheSize(int theRelationCacheSize) {
+            if (theRelationCacheSize < 0) {
+                throw new IllegalArgumentException(
+                        "relationCacheSize cannot be negative, was " + theRelationCacheSize);
+            }
+            relationCacheSize = theRelationCacheSize;
+            return this;
+        }
+
+        /**
+         * @param theConcurrencyLevel The estimated number of threads which use the TypeHelper concurrently.
+         */
+        public Builder concurrencyLevel(int theConcurrencyLevel) {
+            if (theConcurrencyLevel < 1) {
+                throw new IllegalArgumentException(
+                        "concurrencyLevel needs to be at least 1, was " + theConcurrencyLevel);
+            }
+            concurrencyLevel = theConcurrencyLevel;
+            return this;
+        }
+
+        public TypeHelper build() {
+            if (mixedTypeSymbol == null) {
+                throw new IllegalStateException("mixedTypeSymbol needs to be defined before building a TypeHelper");
+            }
+            if (conversionsProvider == null) {
+                throw new IllegalStateException(
+                        "conversionsProvider needs to be defined before building a TypeHelper");
+            }
+            return new TypeHelper(this);
+        }
+    }
 }
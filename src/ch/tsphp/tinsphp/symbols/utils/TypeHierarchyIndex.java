@@ -0,0 +1,145 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.utils;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Labels nominal types with the set of their ancestors in order that nominal subtyping can be checked in constant
+ * time instead of walking the parent types.
+ * <p/>
+ * Each absolute name is given a dense id and each {@link IIndexedTypeSymbol} carries a label with the ids of the
+ * absolute names of itself and all its ancestors. Names are used rather than identities since two types with the
+ * same absolute name are considered to be the same (see {@link TypeHelper#areSame(ITypeSymbol, ITypeSymbol)}).
+ * <p/>
+ * Each {@link TypeHelper} has its own index. The labels are computed lazily and belong to a generation of the index,
+ * {@link #invalidate()} starts a new generation with new name ids. An indexed type invalidates the indices which
+ * labelled itself or one of its descendants (see {@link IIndexedTypeSymbol#registerTypeHierarchyIndex}) whenever a
+ * parent type is added to it or its absolute name changes. Labels of an older generation are computed anew on their
+ * next use.
+ */
+public final class TypeHierarchyIndex
+{
+    public static final int UNKNOWN_NAME = -1;
+
+    private final AtomicLong lastGenerationNumber = new AtomicLong();
+    private volatile Generation generation = new Generation(0);
+
+    public void invalidate() {
+        generation = new Generation(lastGenerationNumber.incrementAndGet());
+    }
+
+    public long getGeneration() {
+        return generation.number;
+    }
+
+    /**
+     * Returns the given label if it is still up-to-date or a new label for the given type otherwise.
+     */
+    public Label getUpToDateLabel(IIndexedTypeSymbol typeSymbol, Label label) {
+        Generation currentGeneration = generation;
+        Label upToDateLabel = label;
+        if (upToDateLabel == null || upToDateLabel.generation != currentGeneration) {
+            upToDateLabel = new Label(currentGeneration, computeAncestorNameIds(typeSymbol, currentGeneration));
+        }
+        return upToDateLabel;
+    }
+
+    private BitSet computeAncestorNameIds(ITypeSymbol typeSymbol, Generation currentGeneration) {
+        BitSet ancestorNameIds = new BitSet();
+        Set<ITypeSymbol> visited = Collections.newSetFromMap(new IdentityHashMap<ITypeSymbol, Boolean>());
+        Deque<ITypeSymbol> toVisit = new ArrayDeque<>();
+        toVisit.add(typeSymbol);
+        visited.add(typeSymbol);
+        while (ancestorNameIds != null && !toVisit.isEmpty()) {
+            ITypeSymbol ancestor = toVisit.poll();
+            if (ancestor instanceof IIndexedTypeSymbol) {
+                //registered before the parent types are read in order that a later change invalidates the label
+                ((IIndexedTypeSymbol) ancestor).registerTypeHierarchyIndex(this);
+                ancestorNameIds.set(currentGeneration.getOrCreateNameId(ancestor.getAbsoluteName()));
+                for (ITypeSymbol parentTypeSymbol : ancestor.getParentTypeSymbols()) {
+                    if (visited.add(parentTypeSymbol)) {
+                        toVisit.add(parentTypeSymbol);
+                    }
+                }
+            } else {
+                //cannot be labelled, the parent types need to be walked instead
+                ancestorNameIds = null;
+            }
+        }
+        return ancestorNameIds;
+    }
+
+    /**
+     * The name ids of a generation, they are released together with the generation.
+     */
+    private static final class Generation
+    {
+        private final long number;
+        private final ConcurrentMap<String, Integer> nameIds = new ConcurrentHashMap<>();
+        private final AtomicInteger nextNameId = new AtomicInteger();
+
+        private Generation(long theNumber) {
+            number = theNumber;
+        }
+
+        private int getOrCreateNameId(String absoluteName) {
+            Integer id = nameIds.get(absoluteName);
+            if (id == null) {
+                Integer newId = nextNameId.getAndIncrement();
+                id = nameIds.putIfAbsent(absoluteName, newId);
+                if (id == null) {
+                    id = newId;
+                }
+            }
+            return id;
+        }
+    }
+
+    /**
+     * The ancestors of a type in a certain generation, immutable.
+     */
+    public static final class Label
+    {
+        private final Generation generation;
+        private final BitSet ancestorNameIds;
+
+        private Label(Generation theGeneration, BitSet theAncestorNameIds) {
+            generation = theGeneration;
+            ancestorNameIds = theAncestorNameIds;
+        }
+
+        /**
+         * Returns the name ids of the labelled type and all its ancestors or null if one of its ancestors is not
+         * indexed. The returned bit set must not be modified.
+         */
+        public BitSet getAncestorNameIds() {
+            return ancestorNameIds;
+        }
+
+        /**
+         * Returns the id of the given absolute name in the generation of this label or {@link #UNKNOWN_NAME} if no
+         * indexed type with this name was labelled in this generation, in which case it is neither an indexed type nor
+         * an ancestor of one.
+         */
+        public int findNameId(String absoluteName) {
+            Integer id = generation.nameIds.get(absoluteName);
+            return id != null ? id : UNKNOWN_NAME;
+        }
+    }
+}
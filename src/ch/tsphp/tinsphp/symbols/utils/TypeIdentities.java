@@ -0,0 +1,43 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.utils;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+
+/**
+ * Interns the absolute names of types in order that two types can be compared by reference instead of comparing
+ * their absolute names character by character.
+ * <p/>
+ * The absolute name of a union, intersection or convertible type is its canonical form (the names of its types in a
+ * sorted order), hence structurally equal container types share the same identity even though they are different
+ * (mutable) instances. Interned names are garbage collected once no type refers to them anymore.
+ */
+public final class TypeIdentities
+{
+    private TypeIdentities() {
+    }
+
+    /**
+     * Returns the canonical instance of the given absolute name.
+     */
+    public static String intern(String absoluteName) {
+        return absoluteName.intern();
+    }
+
+    public static boolean areSame(ITypeSymbol firstType, ITypeSymbol secondType) {
+        boolean areSame = firstType == secondType;
+        if (!areSame) {
+            if (firstType instanceof IIdentifiableTypeSymbol && secondType instanceof IIdentifiableTypeSymbol) {
+                areSame = ((IIdentifiableTypeSymbol) firstType).getTypeIdentity()
+                        == ((IIdentifiableTypeSymbol) secondType).getTypeIdentity();
+            } else {
+                areSame = firstType.getAbsoluteName().equals(secondType.getAbsoluteName());
+            }
+        }
+        return areSame;
+    }
+}
@@ -24,6 +24,8 @@ import ch.tsphp.tinsphp.common.utils.ITypeHelper;
 import ch.tsphp.tinsphp.common.utils.Pair;
 import ch.tsphp.tinsphp.symbols.ModifierHelper;
 import ch.tsphp.tinsphp.symbols.constraints.BindingCollection;
+import ch.tsphp.tinsphp.symbols.constraints.BudgetExceededException;
+import ch.tsphp.tinsphp.symbols.constraints.SolvingBudget;
 import ch.tsphp.tinsphp.symbols.scopes.ScopeHelper;
 import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
 import org.junit.Assert;
@@ -42,6 +44,7 @@ import static ch.tsphp.tinsphp.symbols.test.integration.testutils.TypeParameterC
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.mockito.Matchers.any;
@@ -3030,6 +3033,303 @@ public class BindingCollectionAddBoundTest extends ATypeHelperTest
         assertThat(resultDto.usedImplicitConversion, is(false));
     }
 
+    @Test
+    public void addLowerTypeBound_LongChainOfUpperRefs_PropagatesToTheEndWithoutStackOverflow() {
+        //pre-act necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        int length = 20000;
+        bindingCollection.addVariable("$x0", new TypeVariableReference("T0"));
+        for (int i = 1; i < length; ++i) {
+            bindingCollection.addVariable("$x" + i, new TypeVariableReference("T" + i));
+            bindingCollection.addLowerRefBound("T" + i, new TypeVariableReference("T" + (i - 1)));
+        }
+
+        //act
+        BoundResultDto resultDto = bindingCollection.addLowerTypeBound("T0", intType);
+
+        assertThat(resultDto.hasChanged, is(true));
+        assertThat(bindingCollection.getLowerTypeBounds("T" + (length - 1)).getAbsoluteName(), is("int"));
+    }
+
+    @Test
+    public void addUpperTypeBound_LongChainOfLowerRefs_PropagatesToTheEndWithoutStackOverflow() {
+        //pre-act necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        int length = 20000;
+        bindingCollection.addVariable("$x0", new TypeVariableReference("T0"));
+        for (int i = 1; i < length; ++i) {
+            bindingCollection.addVariable("$x" + i, new TypeVariableReference("T" + i));
+            bindingCollection.addLowerRefBound("T" + (i - 1), new TypeVariableReference("T" + i));
+        }
+
+        //act
+        BoundResultDto resultDto = bindingCollection.addUpperTypeBound("T0", numType);
+
+        assertThat(resultDto.hasChanged, is(true));
+        assertThat(bindingCollection.getUpperTypeBounds("T" + (length - 1)).getAbsoluteName(), is("num"));
+    }
+
+    @Test
+    public void addLowerTypeBound_CycleOfRefs_PropagatesToAll() {
+        //pre-act necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$x", new TypeVariableReference("Tx"));
+        bindingCollection.addVariable("$y", new TypeVariableReference("Ty"));
+        bindingCollection.addVariable("$z", new TypeVariableReference("Tz"));
+        bindingCollection.addLowerRefBound("Ty", new TypeVariableReference("Tx"));
+        bindingCollection.addLowerRefBound("Tz", new TypeVariableReference("Ty"));
+        bindingCollection.addLowerRefBound("Tx", new TypeVariableReference("Tz"));
+
+        //act
+        bindingCollection.addLowerTypeBound("Tx", intType);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$x", "Tx", asList("int", "@Tz"), asList("@Ty"), false),
+                varBinding("$y", "Ty", asList("int", "@Tx"), asList("@Tz"), false),
+                varBinding("$z", "Tz", asList("int", "@Ty"), asList("@Tx"), false)
+        ));
+    }
+
+    @Test
+    public void addLowerTypeBound_WithResultDtoAndSameAsExistingLower_ResetsResultDto() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        String typeVariable = "T";
+        bindingCollection.addVariable("$a", new TypeVariableReference("T"));
+        bindingCollection.addLowerTypeBound(typeVariable, intType);
+        BoundResultDto resultDto = new BoundResultDto();
+        resultDto.hasChanged = true;
+        resultDto.usedImplicitConversion = true;
+        resultDto.lowerConstraints = new HashMap<>();
+
+        //act
+        bindingCollection.addLowerTypeBound(typeVariable, intType, resultDto);
+
+        assertThat(resultDto.hasChanged, is(false));
+        assertThat(resultDto.usedImplicitConversion, is(false));
+        assertThat(resultDto.lowerConstraints, is(nullValue()));
+        assertThat(resultDto.upperConstraints, is(nullValue()));
+    }
+
+    @Test
+    public void addUpperTypeBound_WithResultDtoReusedTwice_FirstChangedSecondNot() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        String typeVariable = "T";
+        bindingCollection.addVariable("$a", new TypeVariableReference("T"));
+        BoundResultDto resultDto = new BoundResultDto();
+
+        //act
+        bindingCollection.addUpperTypeBound(typeVariable, numType, resultDto);
+        boolean firstHasChanged = resultDto.hasChanged;
+        bindingCollection.addUpperTypeBound(typeVariable, numType, resultDto);
+        boolean secondHasChanged = resultDto.hasChanged;
+
+        assertThat(firstHasChanged, is(true));
+        assertThat(secondHasChanged, is(false));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T", null, asList("num"), false)
+        ));
+    }
+
+    @Test
+    public void addLowerRefBound_WithResultDtoReusedTwice_FirstChangedSecondNot() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerTypeBound("Tb", intType);
+        BoundResultDto resultDto = new BoundResultDto();
+
+        //act
+        bindingCollection.addLowerRefBound("Ta", new TypeVariableReference("Tb"), resultDto);
+        boolean firstHasChanged = resultDto.hasChanged;
+        bindingCollection.addLowerRefBound("Ta", new TypeVariableReference("Tb"), resultDto);
+        boolean secondHasChanged = resultDto.hasChanged;
+
+        assertThat(firstHasChanged, is(true));
+        assertThat(secondHasChanged, is(false));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "Ta", asList("int", "@Tb"), null, false),
+                varBinding("$b", "Tb", asList("int"), asList("@Ta"), false)
+        ));
+    }
+
+    @Test
+    public void addLowerTypeBounds_SeveralForSameAndOtherTypeVariable_CombinesAndPropagates() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addVariable("$c", new TypeVariableReference("Tc"));
+        bindingCollection.addLowerRefBound("Tc", new TypeVariableReference("Ta"));
+        bindingCollection.addLowerRefBound("Tc", new TypeVariableReference("Tb"));
+
+        //act
+        Map<String, BoundResultDto> result = bindingCollection.addLowerTypeBounds(asList(
+                pair("Ta", intType), pair("Tb", floatType), pair("Ta", stringType)));
+
+        assertThat(result.keySet(), contains("Ta", "Tb"));
+        assertThat(result.get("Ta").hasChanged, is(true));
+        assertThat(result.get("Tb").hasChanged, is(true));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "Ta", asList("int", "string"), asList("@Tc"), false),
+                varBinding("$b", "Tb", asList("float"), asList("@Tc"), false),
+                varBinding("$c", "Tc", asList("int", "float", "string", "@Ta", "@Tb"), null, false)
+        ));
+    }
+
+    @Test
+    public void addUpperTypeBounds_SeveralForSameTypeVariable_CombinesAndPropagates() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerRefBound("Ta", new TypeVariableReference("Tb"));
+
+        //act
+        Map<String, BoundResultDto> result = bindingCollection.addUpperTypeBounds(asList(
+                pair("Ta", scalarType), pair("Ta", numType)));
+
+        assertThat(result.get("Ta").hasChanged, is(true));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "Ta", asList("@Tb"), asList("num"), false),
+                varBinding("$b", "Tb", null, asList("num", "@Ta"), false)
+        ));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addLowerTypeBounds_NonExistingTypeVariable_ThrowsIllegalArgumentException() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+
+        //act
+        bindingCollection.addLowerTypeBounds(asList(pair("Ta", intType), pair("Tb", intType)));
+
+        //assert in annotation
+    }
+
+    @Test(expected = BudgetExceededException.class)
+    public void addLowerTypeBound_PropagationStepsExceededAndNoWidening_ThrowsBudgetExceededException() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addVariable("$c", new TypeVariableReference("Tc"));
+        bindingCollection.addLowerRefBound("Tb", new TypeVariableReference("Ta"));
+        bindingCollection.addLowerRefBound("Tc", new TypeVariableReference("Tb"));
+        bindingCollection.setSolvingBudget(new SolvingBudget(1, 10, false));
+
+        //act
+        bindingCollection.addLowerTypeBound("Ta", intType);
+
+        //assert in annotation
+    }
+
+    @Test
+    public void addLowerTypeBound_PropagationStepsExceededAndWidening_WidensRemainingToMixed() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addVariable("$c", new TypeVariableReference("Tc"));
+        bindingCollection.addLowerRefBound("Tb", new TypeVariableReference("Ta"));
+        bindingCollection.addLowerRefBound("Tc", new TypeVariableReference("Tb"));
+        bindingCollection.setSolvingBudget(new SolvingBudget(1, 10, true));
+
+        //act
+        bindingCollection.addLowerTypeBound("Ta", intType);
+
+        assertThat(bindingCollection.getNumberOfPropagationSteps(), is(1));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "Ta", asList("int"), asList("@Tb"), false),
+                varBinding("$b", "Tb", asList("int", "@Ta"), asList("@Tc"), false),
+                varBinding("$c", "Tc", asList("mixed", "@Tb"), null, false)
+        ));
+    }
+
+    @Test
+    public void addLowerTypeBound_MaxUnionSizeExceededAndWidening_WidensToMixedAndPropagatesIt() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerRefBound("Tb", new TypeVariableReference("Ta"));
+        bindingCollection.setSolvingBudget(new SolvingBudget(100, 2, true));
+
+        //act
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.addLowerTypeBound("Ta", stringType);
+        bindingCollection.addLowerTypeBound("Ta", boolType);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "Ta", asList("mixed"), asList("@Tb"), false),
+                varBinding("$b", "Tb", asList("mixed", "@Ta"), null, false)
+        ));
+    }
+
+    @Test(expected = BudgetExceededException.class)
+    public void addLowerTypeBound_MaxUnionSizeExceededButUpperIsNotMixed_ThrowsBudgetExceededException() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addUpperTypeBound("Ta", scalarType);
+        bindingCollection.setSolvingBudget(new SolvingBudget(100, 2, true));
+
+        //act
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.addLowerTypeBound("Ta", stringType);
+        bindingCollection.addLowerTypeBound("Ta", boolType);
+
+        //assert in annotation
+    }
+
+    @Test(expected = BudgetExceededException.class)
+    public void addUpperTypeBound_PropagationStepsExceededAndWidening_ThrowsBudgetExceededException() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addVariable("$c", new TypeVariableReference("Tc"));
+        bindingCollection.addLowerRefBound("Tb", new TypeVariableReference("Ta"));
+        bindingCollection.addLowerRefBound("Tc", new TypeVariableReference("Tb"));
+        bindingCollection.setSolvingBudget(new SolvingBudget(1, 10, true));
+
+        //act
+        bindingCollection.addUpperTypeBound("Tc", numType);
+
+        //assert in annotation
+    }
+
     private IBindingCollection createBindingCollection() {
         return createBindingCollection(symbolFactory, typeHelper);
     }
@@ -0,0 +1,282 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.integration.constraints;
+
+import ch.tsphp.tinsphp.common.inference.constraints.ITypeVariableReference;
+import ch.tsphp.tinsphp.common.inference.constraints.LowerBoundException;
+import ch.tsphp.tinsphp.common.inference.constraints.TypeVariableReference;
+import ch.tsphp.tinsphp.common.symbols.IConvertibleTypeSymbol;
+import ch.tsphp.tinsphp.symbols.constraints.BindingCollection;
+import ch.tsphp.tinsphp.symbols.constraints.SolvingBudget;
+import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
+import org.junit.Test;
+
+import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollectionMatcher.varBinding;
+import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollectionMatcher.withVariableBindings;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class BindingCollectionCheckpointTest extends ATypeHelperTest
+{
+    @Test
+    public void rollback_AddedLowerTypeBound_IsRemoved() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T"));
+        bindingCollection.addLowerTypeBound("T", intType);
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("T", floatType);
+        bindingCollection.rollback(checkpoint);
+
+        assertThat(bindingCollection, withVariableBindings(varBinding("$a", "T", asList("int"), null, false)));
+    }
+
+    @Test
+    public void rollback_AddedUpperTypeBound_IsRemoved() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T"));
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.addUpperTypeBound("T", interfaceAType);
+        bindingCollection.rollback(checkpoint);
+
+        assertThat(bindingCollection, withVariableBindings(varBinding("$a", "T", null, null, false)));
+    }
+
+    @Test
+    public void rollback_AfterBoundException_IsSameAsBefore() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T1"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("T2"));
+        bindingCollection.addLowerRefBound("T1", new TypeVariableReference("T2"));
+        bindingCollection.addLowerTypeBound("T2", intType);
+
+        int checkpoint = bindingCollection.checkpoint();
+        try {
+            bindingCollection.addUpperTypeBound("T1", numType);
+            bindingCollection.addUpperTypeBound("T2", boolType);
+        } catch (LowerBoundException ex) {
+            bindingCollection.rollback(checkpoint);
+        }
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T1", asList("int", "@T2"), null, false),
+                varBinding("$b", "T2", asList("int"), asList("@T1"), false)
+        ));
+    }
+
+    @Test
+    public void rollback_AddedLowerRefBound_IsRemovedOnBothSides() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T1"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("T2"));
+        bindingCollection.addLowerTypeBound("T2", intType);
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerRefBound("T1", new TypeVariableReference("T2"));
+        bindingCollection.rollback(checkpoint);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T1", null, null, false),
+                varBinding("$b", "T2", asList("int"), null, false)
+        ));
+    }
+
+    @Test
+    public void rollback_RenamedTypeVariable_HasOldNameAgain() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T1"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("T2"));
+        bindingCollection.addLowerRefBound("T1", new TypeVariableReference("T2"));
+        bindingCollection.addLowerTypeBound("T2", intType);
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.renameTypeVariable("T2", "T3");
+        bindingCollection.rollback(checkpoint);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T1", asList("int", "@T2"), null, false),
+                varBinding("$b", "T2", asList("int"), asList("@T1"), false)
+        ));
+    }
+
+    @Test
+    public void rollback_MergedTypeVariables_AreSeparatedAgain() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T1"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("T2"));
+        bindingCollection.addLowerTypeBound("T1", intType);
+        bindingCollection.addLowerTypeBound("T2", floatType);
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.mergeFirstIntoSecond("T1", "T2");
+        bindingCollection.rollback(checkpoint);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T1", asList("int"), null, false),
+                varBinding("$b", "T2", asList("float"), null, false)
+        ));
+    }
+
+    @Test
+    public void rollback_RenamedTypeVariableWithBoundConvertible_ConvertibleHasOldNameAgain() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T1"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("T2"));
+        IConvertibleTypeSymbol convertibleTypeSymbol = createConvertibleTypeSymbol();
+        bindingCollection.bind(convertibleTypeSymbol, asList("T2"));
+        bindingCollection.addUpperTypeBound("T1", convertibleTypeSymbol);
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.renameTypeVariable("T2", "T3");
+        bindingCollection.rollback(checkpoint);
+
+        assertThat(convertibleTypeSymbol.getTypeVariable(), is("T2"));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T1", null, asList("{as T2}"), false),
+                varBinding("$b", "T2", null, null, false)
+        ));
+    }
+
+    @Test
+    public void rollback_CreatedHelperVariable_IsRemovedAndNameIsReused() {
+        BindingCollection bindingCollection = createBindingCollection();
+
+        int checkpoint = bindingCollection.checkpoint();
+        ITypeVariableReference reference1 = bindingCollection.createHelperVariable();
+        bindingCollection.rollback(checkpoint);
+        ITypeVariableReference reference2 = bindingCollection.createHelperVariable();
+
+        assertThat(bindingCollection.getVariableIds().size(), is(1));
+        assertThat(reference2.getTypeVariable(), is(reference1.getTypeVariable()));
+    }
+
+    @Test
+    public void rollback_NestedCheckpointRolledBack_KeepsModificationsOfOuter() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T"));
+
+        bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("T", intType);
+        int innerCheckpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("T", floatType);
+        bindingCollection.rollback(innerCheckpoint);
+
+        assertThat(bindingCollection, withVariableBindings(varBinding("$a", "T", asList("int"), null, false)));
+    }
+
+    @Test
+    public void rollback_OuterCheckpointAfterCommittedInner_UndoesAll() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T"));
+
+        int outerCheckpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("T", intType);
+        int innerCheckpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("T", floatType);
+        bindingCollection.commit(innerCheckpoint);
+        bindingCollection.rollback(outerCheckpoint);
+
+        assertThat(bindingCollection, withVariableBindings(varBinding("$a", "T", null, null, false)));
+    }
+
+    @Test
+    public void commit_Standard_KeepsModifications() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T"));
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("T", intType);
+        bindingCollection.commit(checkpoint);
+
+        assertThat(bindingCollection, withVariableBindings(varBinding("$a", "T", asList("int"), null, false)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rollback_CommittedCheckpoint_ThrowsIllegalArgumentException() {
+        //pre-act necessary for arrange
+        BindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.commit(checkpoint);
+
+        //act
+        bindingCollection.rollback(checkpoint);
+
+        //assert in annotation
+    }
+
+    @Test
+    public void rollback_CopyCreatedAfterCheckpoint_CopyIsNotAffected() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("T"));
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("T", intType);
+        BindingCollection copy = new BindingCollection(bindingCollection);
+        bindingCollection.rollback(checkpoint);
+
+        assertThat(bindingCollection, withVariableBindings(varBinding("$a", "T", null, null, false)));
+        assertThat(copy, withVariableBindings(varBinding("$a", "T", asList("int"), null, false)));
+    }
+
+    @Test
+    public void rollback_PropagationStepsMadeAfterCheckpoint_AreNotCountedAnymore() {
+        BindingCollection bindingCollection = createBindingCollectionWithRefBound();
+        bindingCollection.setSolvingBudget(new SolvingBudget(1, 10, false));
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.rollback(checkpoint);
+        int result = bindingCollection.getNumberOfPropagationSteps();
+
+        assertThat(result, is(0));
+    }
+
+    @Test
+    public void rollback_BudgetUsedUpAfterCheckpoint_CanPropagateAgain() {
+        BindingCollection bindingCollection = createBindingCollectionWithRefBound();
+        bindingCollection.setSolvingBudget(new SolvingBudget(1, 10, false));
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.rollback(checkpoint);
+        bindingCollection.addLowerTypeBound("Ta", floatType);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "Ta", asList("float"), asList("@Tb"), false),
+                varBinding("$b", "Tb", asList("float", "@Ta"), null, false)
+        ));
+    }
+
+    @Test
+    public void commit_PropagationStepsMadeAfterCheckpoint_AreStillCounted() {
+        BindingCollection bindingCollection = createBindingCollectionWithRefBound();
+        bindingCollection.setSolvingBudget(new SolvingBudget(1, 10, false));
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.commit(checkpoint);
+        int result = bindingCollection.getNumberOfPropagationSteps();
+
+        assertThat(result, is(1));
+    }
+
+    private BindingCollection createBindingCollectionWithRefBound() {
+        BindingCollection bindingCollection = createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerRefBound("Tb", new TypeVariableReference("Ta"));
+        return bindingCollection;
+    }
+
+    protected BindingCollection createBindingCollection() {
+        return new BindingCollection(symbolFactory, typeHelper);
+    }
+}
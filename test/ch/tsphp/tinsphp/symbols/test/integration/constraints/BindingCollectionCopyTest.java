@@ -15,6 +15,7 @@ import ch.tsphp.tinsphp.common.symbols.IConvertibleTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IIntersectionTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.IUnionTypeSymbol;
 import ch.tsphp.tinsphp.symbols.constraints.BindingCollection;
+import ch.tsphp.tinsphp.symbols.constraints.SolvingBudget;
 import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
 import org.junit.Test;
 
@@ -298,6 +299,151 @@ public class BindingCollectionCopyTest extends ATypeHelperTest
         assertThat(lowerTypeBounds.isFixed(), is(true));
     }
 
+    @Test
+    public void copyConstructor_AddLowerTypeBoundToCopy_OriginalIsUnchanged() {
+        BindingCollection bindings1 = new BindingCollection(symbolFactory, typeHelper);
+        bindings1.addVariable("$a", new TypeVariableReference("T"));
+        bindings1.addLowerTypeBound("T", intType);
+
+        IBindingCollection bindingCollection = createBindingCollection(bindings1);
+        bindingCollection.addLowerTypeBound("T", floatType);
+
+        assertThat(bindings1, withVariableBindings(varBinding("$a", "T", asList("int"), null, false)));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T", asList("int", "float"), null, false)));
+    }
+
+    @Test
+    public void copyConstructor_AddUpperTypeBoundToCopy_OriginalIsUnchanged() {
+        BindingCollection bindings1 = new BindingCollection(symbolFactory, typeHelper);
+        bindings1.addVariable("$a", new TypeVariableReference("T"));
+        bindings1.addUpperTypeBound("T", interfaceAType);
+
+        IBindingCollection bindingCollection = createBindingCollection(bindings1);
+        bindingCollection.addUpperTypeBound("T", interfaceBType);
+
+        assertThat(bindings1, withVariableBindings(varBinding("$a", "T", null, asList("IA"), false)));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T", null, asList("IA", "IB"), false)));
+    }
+
+    @Test
+    public void copyConstructor_AddLowerRefBoundToCopy_OriginalIsUnchanged() {
+        BindingCollection bindings1 = new BindingCollection(symbolFactory, typeHelper);
+        bindings1.addVariable("$a", new TypeVariableReference("T1"));
+        bindings1.addVariable("$b", new TypeVariableReference("T2"));
+        bindings1.addVariable("$c", new TypeVariableReference("T3"));
+        bindings1.addLowerRefBound("T1", new TypeVariableReference("T2"));
+
+        IBindingCollection bindingCollection = createBindingCollection(bindings1);
+        bindingCollection.addLowerRefBound("T1", new TypeVariableReference("T3"));
+
+        assertThat(bindings1, withVariableBindings(
+                varBinding("$a", "T1", asList("@T2"), null, false),
+                varBinding("$b", "T2", null, asList("@T1"), false),
+                varBinding("$c", "T3", null, null, false)
+        ));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T1", asList("@T2", "@T3"), null, false),
+                varBinding("$b", "T2", null, asList("@T1"), false),
+                varBinding("$c", "T3", null, asList("@T1"), false)
+        ));
+    }
+
+    @Test
+    public void copyConstructor_RenameTypeVariableInCopy_OriginalIsUnchanged() {
+        BindingCollection bindings1 = new BindingCollection(symbolFactory, typeHelper);
+        bindings1.addVariable("$a", new TypeVariableReference("T1"));
+        bindings1.addVariable("$b", new TypeVariableReference("T2"));
+        bindings1.addLowerRefBound("T1", new TypeVariableReference("T2"));
+        bindings1.addLowerTypeBound("T2", intType);
+
+        IBindingCollection bindingCollection = createBindingCollection(bindings1);
+        bindingCollection.renameTypeVariable("T2", "T3");
+
+        assertThat(bindings1, withVariableBindings(
+                varBinding("$a", "T1", asList("int", "@T2"), null, false),
+                varBinding("$b", "T2", asList("int"), asList("@T1"), false)
+        ));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T1", asList("int", "@T3"), null, false),
+                varBinding("$b", "T3", asList("int"), asList("@T1"), false)
+        ));
+    }
+
+    @Test
+    public void copyConstructor_MergeTypeVariablesInCopy_OriginalIsUnchanged() {
+        BindingCollection bindings1 = new BindingCollection(symbolFactory, typeHelper);
+        bindings1.addVariable("$a", new TypeVariableReference("T1"));
+        bindings1.addVariable("$b", new TypeVariableReference("T2"));
+        bindings1.addLowerTypeBound("T1", intType);
+        bindings1.addLowerTypeBound("T2", floatType);
+
+        IBindingCollection bindingCollection = createBindingCollection(bindings1);
+        bindingCollection.mergeFirstIntoSecond("T1", "T2");
+
+        assertThat(bindings1, withVariableBindings(
+                varBinding("$a", "T1", asList("int"), null, false),
+                varBinding("$b", "T2", asList("float"), null, false)
+        ));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "T2", asList("int", "float"), null, false),
+                varBinding("$b", "T2", asList("int", "float"), null, false)
+        ));
+    }
+
+    @Test
+    public void copyConstructor_FixTypeInCopy_OriginalIsUnchanged() {
+        BindingCollection bindings1 = new BindingCollection(symbolFactory, typeHelper);
+        bindings1.addVariable("$a", new TypeVariableReference("T"));
+        bindings1.addLowerTypeBound("T", intType);
+
+        IBindingCollection bindingCollection = createBindingCollection(bindings1);
+        bindingCollection.fixType("$a");
+
+        assertThat(bindings1, withVariableBindings(varBinding("$a", "T", asList("int"), null, false)));
+        assertThat(bindingCollection, withVariableBindings(varBinding("$a", "T", asList("int"), null, true)));
+    }
+
+    @Test
+    public void copyConstructor_CopyOfCopyAndModifyAll_AreIndependent() {
+        BindingCollection bindings1 = new BindingCollection(symbolFactory, typeHelper);
+        bindings1.addVariable("$a", new TypeVariableReference("T"));
+        bindings1.addLowerTypeBound("T", intType);
+
+        BindingCollection bindings2 = new BindingCollection(bindings1);
+        IBindingCollection bindings3 = createBindingCollection(bindings2);
+        bindings1.addLowerTypeBound("T", floatType);
+        bindings2.addLowerTypeBound("T", boolType);
+        bindings3.addLowerTypeBound("T", stringType);
+
+        assertThat(bindings1, withVariableBindings(varBinding("$a", "T", asList("int", "float"), null, false)));
+        assertThat(bindings2, withVariableBindings(varBinding("$a", "T", asList("int", "bool"), null, false)));
+        assertThat(bindings3, withVariableBindings(varBinding("$a", "T", asList("int", "string"), null, false)));
+    }
+
+    @Test
+    public void copyConstructor_OriginalUsedUpPropagationSteps_CopyHasSameBudgetButNoSteps() {
+        BindingCollection bindings1 = new BindingCollection(symbolFactory, typeHelper);
+        bindings1.addVariable("$a", new TypeVariableReference("Ta"));
+        bindings1.addVariable("$b", new TypeVariableReference("Tb"));
+        bindings1.addLowerRefBound("Tb", new TypeVariableReference("Ta"));
+        SolvingBudget budget = new SolvingBudget(1, 10, false);
+        bindings1.setSolvingBudget(budget);
+        bindings1.addLowerTypeBound("Ta", intType);
+
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection(bindings1);
+        bindingCollection.addLowerTypeBound("Ta", floatType);
+
+        assertThat(bindingCollection.getSolvingBudget(), is(budget));
+        assertThat(bindingCollection.getNumberOfPropagationSteps(), is(1));
+        assertThat(bindings1.getNumberOfPropagationSteps(), is(1));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "Ta", asList("int", "float"), asList("@Tb"), false),
+                varBinding("$b", "Tb", asList("int", "float", "@Ta"), null, false)
+        ));
+    }
+
     protected IBindingCollection createBindingCollection(BindingCollection bindings) {
         return new BindingCollection(bindings);
     }
@@ -23,6 +23,8 @@ import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollect
 import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollectionMatcher.withVariableBindings;
 import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -568,6 +570,56 @@ public class BindingCollectionMergeTypeVariablesTest extends ATypeHelperTest
         ));
     }
 
+    @Test
+    public void mergeFirstIntoSecond_LongChainOfMerges_AllVariablesPointToLastTypeVariable() {
+        //pre act - necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        int numberOfVariables = 20000;
+        for (int i = 0; i < numberOfVariables; ++i) {
+            bindingCollection.addVariable("$t" + i, new TypeVariableReference("T" + i));
+        }
+        bindingCollection.addLowerTypeBound("T0", intType);
+
+        //act
+        for (int i = 0; i < numberOfVariables - 1; ++i) {
+            bindingCollection.mergeFirstIntoSecond("T" + i, "T" + (i + 1));
+        }
+
+        String last = "T" + (numberOfVariables - 1);
+        assertThat(bindingCollection.getTypeVariable("$t0"), is(last));
+        assertThat(bindingCollection.getTypeVariable("$t" + (numberOfVariables / 2)), is(last));
+        assertThat(bindingCollection.getTypeVariableReference("$t1").getTypeVariable(), is(last));
+        assertThat(bindingCollection.getLowerTypeBounds(last).getTypeSymbols().keySet(), contains("int"));
+        assertThat(bindingCollection.containsTypeVariable("T0"), is(false));
+    }
+
+    @Test
+    public void mergeFirstIntoSecond_AfterCopy_CopyStillPointsToOldTypeVariable() {
+        //pre act - necessary for arrange
+        BindingCollection bindingCollection = (BindingCollection) createBindingCollection();
+
+        //arrange
+        String t1 = "T1";
+        String t2 = "T2";
+        bindingCollection.addVariable("$t1", new TypeVariableReference(t1));
+        bindingCollection.addVariable("$t2", new TypeVariableReference(t2));
+        IBindingCollection copy = createBindingCollection(bindingCollection);
+
+        //act
+        bindingCollection.mergeFirstIntoSecond(t1, t2);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$t1", t2, null, null, false),
+                varBinding("$t2", t2, null, null, false)
+        ));
+        assertThat(copy, withVariableBindings(
+                varBinding("$t1", t1, null, null, false),
+                varBinding("$t2", t2, null, null, false)
+        ));
+    }
+
     private IBindingCollection createBindingCollection() {
         return createBindingCollection(symbolFactory, typeHelper);
     }
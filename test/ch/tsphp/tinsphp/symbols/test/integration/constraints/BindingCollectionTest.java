@@ -6,6 +6,7 @@
 
 package ch.tsphp.tinsphp.symbols.test.integration.constraints;
 
+import ch.tsphp.common.symbols.ITypeSymbol;
 import ch.tsphp.tinsphp.common.inference.constraints.FixedTypeVariableReference;
 import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
 import ch.tsphp.tinsphp.common.inference.constraints.IFunctionType;
@@ -15,10 +16,14 @@ import ch.tsphp.tinsphp.common.inference.constraints.TypeVariableReference;
 import ch.tsphp.tinsphp.common.symbols.ISymbolFactory;
 import ch.tsphp.tinsphp.common.utils.ITypeHelper;
 import ch.tsphp.tinsphp.symbols.constraints.BindingCollection;
+import ch.tsphp.tinsphp.symbols.constraints.IBoundVisitor;
 import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
+import ch.tsphp.tinsphp.symbols.utils.MemoryFootprint;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -282,6 +287,136 @@ public class BindingCollectionTest extends ATypeHelperTest
         assertThat(bindingCollection.getUpperTypeBounds("T"), is(Matchers.nullValue()));
     }
 
+    @Test
+    public void getDirtyTypeVariables_LowerTypeBoundAdded_ContainsOnlyThatTypeVariable() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        Set<String> result = bindingCollection.getDirtyTypeVariables();
+
+        assertThat(result, Matchers.containsInAnyOrder("Ta"));
+        assertThat(bindingCollection.isDirty("Ta"), is(true));
+        assertThat(bindingCollection.isDirty("Tb"), is(false));
+    }
+
+    @Test
+    public void getDirtyTypeVariables_AfterClear_IsEmpty() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addLowerTypeBound("Ta", intType);
+
+        bindingCollection.clearDirtyTypeVariables();
+        Set<String> result = bindingCollection.getDirtyTypeVariables();
+
+        assertThat(result, Matchers.<String>empty());
+    }
+
+    @Test
+    public void getDirtyTypeVariables_SameBoundAddedAfterClear_IsEmpty() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.clearDirtyTypeVariables();
+
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        Set<String> result = bindingCollection.getDirtyTypeVariables();
+
+        assertThat(result, Matchers.<String>empty());
+    }
+
+    @Test
+    public void getAffectedTypeVariables_DirtyIsConnectedViaRefBounds_ContainsConnectedButNotUnrelated() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addVariable("$c", new TypeVariableReference("Tc"));
+        bindingCollection.addVariable("$d", new TypeVariableReference("Td"));
+        bindingCollection.addLowerRefBound("Tb", new TypeVariableReference("Ta"));
+        bindingCollection.addLowerRefBound("Tc", new TypeVariableReference("Tb"));
+        bindingCollection.clearDirtyTypeVariables();
+
+        bindingCollection.addUpperTypeBound("Tc", numType);
+        Set<String> result = bindingCollection.getAffectedTypeVariables();
+
+        assertThat(result, Matchers.containsInAnyOrder("Ta", "Tb", "Tc"));
+    }
+
+    @Test
+    public void getDirtyTypeVariables_AfterRollback_IsAsBeforeCheckpoint() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerTypeBound("Ta", intType);
+
+        int checkpoint = bindingCollection.checkpoint();
+        bindingCollection.clearDirtyTypeVariables();
+        bindingCollection.addLowerTypeBound("Tb", intType);
+        bindingCollection.rollback(checkpoint);
+        Set<String> result = bindingCollection.getDirtyTypeVariables();
+
+        assertThat(result, Matchers.containsInAnyOrder("Ta"));
+    }
+
+    @Test
+    public void visitLowerBounds_HasTypeAndRefBounds_VisitsTypeBoundsFirstThenRefBounds() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.addLowerRefBound("Ta", new TypeVariableReference("Tb"));
+        final List<String> visited = new ArrayList<>();
+
+        bindingCollection.visitLowerBounds("Ta", new IBoundVisitor()
+        {
+            @Override
+            public void visitTypeBound(String absoluteName, ITypeSymbol typeSymbol) {
+                visited.add(absoluteName);
+            }
+
+            @Override
+            public void visitRefBound(String refTypeVariable) {
+                visited.add("@" + refTypeVariable);
+            }
+        });
+
+        assertThat(visited, contains("int", "@Tb"));
+    }
+
+    @Test
+    public void toString_HasTypeAndRefBounds_ContainsBoundsOfEachVariable() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.addLowerRefBound("Ta", new TypeVariableReference("Tb"));
+
+        String result = bindingCollection.toString();
+
+        assertThat(result, Matchers.containsString("$a:Ta<[int, @Tb],[]>"));
+        assertThat(result, Matchers.containsString("$b:Tb<[],[@Ta]>"));
+    }
+
+    @Test
+    public void estimateMemoryFootprint_HasTypeAndRefBounds_ReportsEntriesPerMap() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addVariable("$c", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.addLowerRefBound("Ta", new TypeVariableReference("Tb"));
+
+        MemoryFootprint result = bindingCollection.estimateMemoryFootprint();
+
+        assertThat(result.getEntryCounts().get("variable2TypeVariable"), is(3));
+        assertThat(result.getEntryCounts().get("typeVariable2Id"), is(2));
+        assertThat(result.getEntryCounts().get("lowerTypeBounds"), is(1));
+        assertThat(result.getEntryCounts().get("lowerRefBounds"), is(1));
+        assertThat(result.getEntryCounts().get("upperRefBounds"), is(1));
+        assertThat(result.getEstimatedBytes() > 0, is(true));
+    }
+
     private IBindingCollection createBindingCollection() {
         return createBindingCollection(symbolFactory, typeHelper);
     }
@@ -7,6 +7,7 @@
 package ch.tsphp.tinsphp.symbols.test.integration.constraints;
 
 import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+import ch.tsphp.tinsphp.common.inference.constraints.ITypeVariableReference;
 import ch.tsphp.tinsphp.common.inference.constraints.TypeVariableReference;
 import ch.tsphp.tinsphp.common.symbols.IConvertibleTypeSymbol;
 import ch.tsphp.tinsphp.common.symbols.ISymbolFactory;
@@ -23,6 +24,8 @@ import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollect
 import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollectionMatcher.withVariableBindings;
 import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
 
 public class BindingCollectionTryToFixTest extends ATypeHelperTest
 {
@@ -2711,6 +2714,165 @@ public class BindingCollectionTryToFixTest extends ATypeHelperTest
         ));
     }
 
+    @Test
+    public void tryToFix_CycleOfLocalVariables_CycleIsMergedAndAllVariablesAreConstant() {
+        //corresponds: function foo(){ $a = 1; $b = $a; $c = $b; $a = $c; return $a;}
+        //pre-act necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        String ta = "Ta";
+        String tb = "Tb";
+        String tc = "Tc";
+        String tReturn = "Treturn";
+
+        bindingCollection.addVariable("$a", new TypeVariableReference(ta));
+        bindingCollection.addVariable("$b", new TypeVariableReference(tb));
+        bindingCollection.addVariable("$c", new TypeVariableReference(tc));
+        bindingCollection.addVariable(RETURN_VARIABLE_NAME, new TypeVariableReference(tReturn));
+        bindingCollection.addLowerTypeBound(ta, intType);
+        bindingCollection.addLowerRefBound(tb, new TypeVariableReference(ta));
+        bindingCollection.addLowerRefBound(tc, new TypeVariableReference(tb));
+        bindingCollection.addLowerRefBound(ta, new TypeVariableReference(tc));
+        bindingCollection.addLowerRefBound(tReturn, new TypeVariableReference(ta));
+
+        //act
+        bindingCollection.tryToFix(new HashSet<String>());
+
+        String representative = bindingCollection.getTypeVariable("$a");
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", representative, asList("int"), null, true),
+                varBinding("$b", representative, asList("int"), null, true),
+                varBinding("$c", representative, asList("int"), null, true),
+                varBinding(RETURN_VARIABLE_NAME, tReturn, asList("int"), null, true)
+        ));
+    }
+
+    @Test
+    public void tryToFix_CycleOfParameterAndLocalVariable_LocalIsMergedIntoParameter() {
+        //corresponds: function foo($x){ $a = $x; $x = $a; return $a;}
+        //pre-act necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        String tx = "Tx";
+        String ta = "Ta";
+        String tReturn = "Treturn";
+
+        bindingCollection.addVariable("$x", new TypeVariableReference(tx));
+        bindingCollection.addVariable("$a", new TypeVariableReference(ta));
+        bindingCollection.addVariable(RETURN_VARIABLE_NAME, new TypeVariableReference(tReturn));
+        bindingCollection.addLowerRefBound(ta, new TypeVariableReference(tx));
+        bindingCollection.addLowerRefBound(tx, new TypeVariableReference(ta));
+        bindingCollection.addLowerRefBound(tReturn, new TypeVariableReference(ta));
+        Set<String> parameterTypeVariables = new HashSet<>();
+        parameterTypeVariables.add(tx);
+
+        //act
+        bindingCollection.tryToFix(parameterTypeVariables);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$x", tx, null, null, false),
+                varBinding("$a", tx, null, null, false),
+                varBinding(RETURN_VARIABLE_NAME, tx, null, null, false)
+        ));
+    }
+
+    @Test(timeout = 10000)
+    public void tryToFix_ManyDiamondsBetweenParameterAndReturn_DoesNotWalkEachPath() {
+        //corresponds: function foo($x){ $a0 = $x; $b0 = $x; $a1 = $a0; $a1 = $b0; $b1 = $a0; $b1 = $b0; ...}
+
+        //pre-act necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        String tx = "Tx";
+        String tReturn = "Treturn";
+        bindingCollection.addVariable("$x", new TypeVariableReference(tx));
+        bindingCollection.addVariable(RETURN_VARIABLE_NAME, new TypeVariableReference(tReturn));
+        String previousA = tx;
+        String previousB = tx;
+        int numberOfDiamonds = 40;
+        for (int i = 0; i < numberOfDiamonds; ++i) {
+            String ta = "Ta" + i;
+            String tb = "Tb" + i;
+            bindingCollection.addVariable("$a" + i, new TypeVariableReference(ta));
+            bindingCollection.addVariable("$b" + i, new TypeVariableReference(tb));
+            bindingCollection.addLowerRefBound(ta, new TypeVariableReference(previousA));
+            bindingCollection.addLowerRefBound(ta, new TypeVariableReference(previousB));
+            bindingCollection.addLowerRefBound(tb, new TypeVariableReference(previousA));
+            bindingCollection.addLowerRefBound(tb, new TypeVariableReference(previousB));
+            previousA = ta;
+            previousB = tb;
+        }
+        bindingCollection.addLowerRefBound(tReturn, new TypeVariableReference(previousA));
+        bindingCollection.addLowerRefBound(tReturn, new TypeVariableReference(previousB));
+        Set<String> parameterTypeVariables = new HashSet<>();
+        parameterTypeVariables.add(tx);
+
+        //act
+        Set<String> result = bindingCollection.tryToFix(parameterTypeVariables);
+
+        assertThat(result, containsInAnyOrder(tx));
+        assertThat(bindingCollection.getTypeVariable(RETURN_VARIABLE_NAME), is(tx));
+        assertThat(bindingCollection.getTypeVariable("$a0"), is(tx));
+        assertThat(bindingCollection.getTypeVariable("$b" + (numberOfDiamonds - 1)), is(tx));
+    }
+
+    @Test
+    public void tryToFix_UnreachableHelperVariable_IsRemoved() {
+        //pre-act necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        String ta = "Ta";
+        String tReturn = "Treturn";
+        bindingCollection.addVariable("$a", new TypeVariableReference(ta));
+        bindingCollection.addVariable(RETURN_VARIABLE_NAME, new TypeVariableReference(tReturn));
+        bindingCollection.addLowerTypeBound(ta, intType);
+        bindingCollection.addLowerRefBound(tReturn, new TypeVariableReference(ta));
+        ITypeVariableReference helper = bindingCollection.createHelperVariable();
+        bindingCollection.addLowerTypeBound(helper.getTypeVariable(), floatType);
+
+        //act
+        bindingCollection.tryToFix(new HashSet<String>());
+
+        assertThat(bindingCollection.getVariableIds(), containsInAnyOrder("$a", RETURN_VARIABLE_NAME));
+        assertThat(bindingCollection.containsTypeVariable(helper.getTypeVariable()), is(false));
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", ta, asList("int"), null, true),
+                varBinding(RETURN_VARIABLE_NAME, tReturn, asList("int"), null, true)
+        ));
+    }
+
+    @Test
+    public void tryToFix_HelperVariableMergedIntoParameter_IsKept() {
+        //pre-act necessary for arrange
+        IBindingCollection bindingCollection = createBindingCollection();
+
+        //arrange
+        String tx = "Tx";
+        String tReturn = "Treturn";
+        bindingCollection.addVariable("$x", new TypeVariableReference(tx));
+        bindingCollection.addVariable(RETURN_VARIABLE_NAME, new TypeVariableReference(tReturn));
+        ITypeVariableReference helper = bindingCollection.createHelperVariable();
+        String tHelper = helper.getTypeVariable();
+        bindingCollection.addUpperTypeBound(tHelper, numType);
+        bindingCollection.addLowerRefBound(tHelper, new TypeVariableReference(tx));
+        bindingCollection.addLowerRefBound(tReturn, helper);
+        Set<String> parameterTypeVariables = new HashSet<>();
+        parameterTypeVariables.add(tx);
+
+        //act
+        bindingCollection.tryToFix(parameterTypeVariables);
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$x", tx, null, asList("num"), false),
+                varBinding(RETURN_VARIABLE_NAME, tx, null, asList("num"), false),
+                varBinding("!help0", tx, null, asList("num"), false)
+        ));
+    }
+
     private IBindingCollection createBindingCollection() {
         return createBindingCollection(symbolFactory, typeHelper);
     }
@@ -0,0 +1,102 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.integration.constraints;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+import ch.tsphp.tinsphp.common.inference.constraints.TypeVariableReference;
+import ch.tsphp.tinsphp.symbols.constraints.BindingCollection;
+import ch.tsphp.tinsphp.symbols.constraints.ConstraintCollection;
+import ch.tsphp.tinsphp.symbols.constraints.DeduplicatingBindingList;
+import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+
+public class DeduplicatingBindingListTest extends ATypeHelperTest
+{
+    @Test
+    public void fingerprint_SameBoundsButDifferentTypeVariableNames_AreEquivalent() {
+        BindingCollection bindingCollection1 = createBindingCollection("T1", "T2", intType);
+        BindingCollection bindingCollection2 = createBindingCollection("Tx", "Ty", intType);
+
+        boolean result = bindingCollection1.fingerprint().isEquivalentTo(bindingCollection2.fingerprint());
+
+        assertThat(result, is(true));
+        assertThat(bindingCollection1.fingerprint().getValue(), is(bindingCollection2.fingerprint().getValue()));
+    }
+
+    @Test
+    public void fingerprint_DifferentTypeBounds_AreNotEquivalent() {
+        BindingCollection bindingCollection1 = createBindingCollection("T1", "T2", intType);
+        BindingCollection bindingCollection2 = createBindingCollection("T1", "T2", floatType);
+
+        boolean result = bindingCollection1.fingerprint().isEquivalentTo(bindingCollection2.fingerprint());
+
+        assertThat(result, is(false));
+        assertThat(bindingCollection1.fingerprint().getValue(), is(not(bindingCollection2.fingerprint().getValue())));
+    }
+
+    @Test
+    public void add_EquivalentUpToRenaming_IsDropped() {
+        BindingCollection bindingCollection1 = createBindingCollection("T1", "T2", intType);
+        BindingCollection bindingCollection2 = createBindingCollection("Tx", "Ty", intType);
+        BindingCollection bindingCollection3 = createBindingCollection("Tx", "Ty", floatType);
+        DeduplicatingBindingList list = new DeduplicatingBindingList();
+
+        boolean result1 = list.add(bindingCollection1);
+        boolean result2 = list.add(bindingCollection2);
+        boolean result3 = list.add(bindingCollection3);
+
+        assertThat(result1, is(true));
+        assertThat(result2, is(false));
+        assertThat(result3, is(true));
+        assertThat(list, contains((IBindingCollection) bindingCollection1, bindingCollection3));
+    }
+
+    @Test
+    public void add_EquivalentWasRemovedBefore_IsAdded() {
+        BindingCollection bindingCollection1 = createBindingCollection("T1", "T2", intType);
+        BindingCollection bindingCollection2 = createBindingCollection("Tx", "Ty", intType);
+        DeduplicatingBindingList list = new DeduplicatingBindingList();
+        list.add(bindingCollection1);
+        list.remove(0);
+
+        boolean result = list.add(bindingCollection2);
+
+        assertThat(result, is(true));
+        assertThat(list, contains((IBindingCollection) bindingCollection2));
+    }
+
+    @Test
+    public void setBindings_ContainsEquivalentBindings_KeepsOnlyFirst() {
+        BindingCollection bindingCollection1 = createBindingCollection("T1", "T2", intType);
+        BindingCollection bindingCollection2 = createBindingCollection("Tx", "Ty", intType);
+        ConstraintCollection constraintCollection = new ConstraintCollection("foo()");
+
+        constraintCollection.setBindings(asList((IBindingCollection) bindingCollection1, bindingCollection2));
+        constraintCollection.addBindingCollection(createBindingCollection("Ta", "Tb", intType));
+        List<IBindingCollection> result = constraintCollection.getBindings();
+
+        assertThat(result, contains((IBindingCollection) bindingCollection1));
+    }
+
+    private BindingCollection createBindingCollection(String t1, String t2, ITypeSymbol typeSymbol) {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference(t1));
+        bindingCollection.addVariable("$b", new TypeVariableReference(t2));
+        bindingCollection.addLowerTypeBound(t1, typeSymbol);
+        bindingCollection.addLowerRefBound(t2, new TypeVariableReference(t1));
+        return bindingCollection;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.integration.constraints;
+
+import ch.tsphp.tinsphp.common.inference.constraints.FixedTypeVariableReference;
+import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+import ch.tsphp.tinsphp.common.inference.constraints.TypeVariableReference;
+import ch.tsphp.tinsphp.common.symbols.IConvertibleTypeSymbol;
+import ch.tsphp.tinsphp.common.symbols.IUnionTypeSymbol;
+import ch.tsphp.tinsphp.symbols.constraints.BindingCollection;
+import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
+import org.junit.Test;
+
+import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollectionMatcher.varBinding;
+import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollectionMatcher.withVariableBindings;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+
+public class FrozenBindingCollectionTest extends ATypeHelperTest
+{
+    @Test
+    public void freeze_HasTypeAndRefBounds_SnapshotHasSameBindings() {
+        BindingCollection bindingCollection = createBindingCollectionWithBounds();
+
+        IBindingCollection result = bindingCollection.freeze();
+
+        assertThat(result, withVariableBindings(
+                varBinding("$a", "Ta", asList("int", "@Tb"), asList("num"), false),
+                varBinding("$b", "Tb", null, asList("num", "@Ta"), false),
+                varBinding("$c", "Tb", null, asList("num", "@Ta"), false),
+                varBinding("$d", "Td", asList("float"), null, true)
+        ));
+        assertThat(result.getVariableIds(), containsInAnyOrder("$a", "$b", "$c", "$d"));
+        assertThat(result.getVariableIds("Tb"), containsInAnyOrder("$b", "$c"));
+        assertThat(result.containsVariable("$e"), is(false));
+        assertThat(result.containsTypeVariable("Td"), is(true));
+    }
+
+    @Test
+    public void freeze_OriginalIsModifiedAfterwards_SnapshotIsUnchanged() {
+        BindingCollection bindingCollection = createBindingCollectionWithBounds();
+
+        IBindingCollection result = bindingCollection.freeze();
+        bindingCollection.addLowerTypeBound("Ta", floatType);
+        bindingCollection.addVariable("$e", new TypeVariableReference("Te"));
+
+        assertThat(result, withVariableBindings(
+                varBinding("$a", "Ta", asList("int", "@Tb"), asList("num"), false),
+                varBinding("$b", "Tb", null, asList("num", "@Ta"), false),
+                varBinding("$c", "Tb", null, asList("num", "@Ta"), false),
+                varBinding("$d", "Td", asList("float"), null, true)
+        ));
+    }
+
+    @Test
+    public void freeze_HasConvertibleInLowerBoundAndOriginalFixesItAfterwards_SnapshotIsNotFixed() {
+        BindingCollection bindingCollection = createBindingCollectionWithConvertibleInLowerBound();
+
+        IBindingCollection result = bindingCollection.freeze();
+        bindingCollection.fixTypeParameter("T2");
+
+        IUnionTypeSymbol lowerTypeBounds = result.getLowerTypeBounds("T1");
+        assertThat(lowerTypeBounds.isFixed(), is(false));
+        assertThat(lowerTypeBounds.getAbsoluteName(), is("{as T2}"));
+    }
+
+    @Test
+    public void freeze_HasConvertibleInLowerBoundAndOriginalRenamesItAfterwards_SnapshotIsUnchanged() {
+        BindingCollection bindingCollection = createBindingCollectionWithConvertibleInLowerBound();
+
+        IBindingCollection result = bindingCollection.freeze();
+        bindingCollection.renameTypeVariable("T2", "T3");
+
+        assertThat(result.getLowerTypeBounds("T1").getAbsoluteName(), is("{as T2}"));
+    }
+
+    @Test
+    public void freeze_HasConvertibleInLowerBound_IsReboundToSnapshot() {
+        BindingCollection bindingCollection = createBindingCollectionWithConvertibleInLowerBound();
+
+        IBindingCollection frozenBindingCollection = bindingCollection.freeze();
+        IUnionTypeSymbol lowerTypeBounds = frozenBindingCollection.getLowerTypeBounds("T1");
+        IConvertibleTypeSymbol result
+                = (IConvertibleTypeSymbol) lowerTypeBounds.getTypeSymbols().values().iterator().next();
+
+        assertThat(result.getBindingCollection(), is(frozenBindingCollection));
+    }
+
+    @Test
+    public void toString_HasTypeAndRefBounds_SameFormatAsOriginalSortedByVariable() {
+        BindingCollection bindingCollection = createBindingCollectionWithBounds();
+        IBindingCollection frozenBindingCollection = bindingCollection.freeze();
+
+        String result = frozenBindingCollection.toString();
+
+        assertThat(result, is("[$a:Ta<[int, @Tb],[num]>, $b:Tb<[],[num, @Ta]>, $c:Tb<[],[num, @Ta]>, "
+                + "$d:Td<[float],[]>#]"));
+    }
+
+    @Test
+    public void getTypeVariableReference_ModifyReturnedReference_SnapshotIsUnchanged() {
+        BindingCollection bindingCollection = createBindingCollectionWithBounds();
+        IBindingCollection frozenBindingCollection = bindingCollection.freeze();
+
+        frozenBindingCollection.getTypeVariableReference("$a").setTypeVariable("Tz");
+        String result = frozenBindingCollection.getTypeVariable("$a");
+
+        assertThat(result, is("Ta"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void addLowerTypeBound_Frozen_ThrowsUnsupportedOperationException() {
+        BindingCollection bindingCollection = createBindingCollectionWithBounds();
+        IBindingCollection frozenBindingCollection = bindingCollection.freeze();
+
+        frozenBindingCollection.addLowerTypeBound("Ta", floatType);
+
+        //assert in annotation
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void freeze_CheckpointIsActive_ThrowsIllegalStateException() {
+        BindingCollection bindingCollection = createBindingCollectionWithBounds();
+        bindingCollection.checkpoint();
+
+        bindingCollection.freeze();
+
+        //assert in annotation
+    }
+
+    private BindingCollection createBindingCollectionWithConvertibleInLowerBound() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("T1"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("T2"));
+        IConvertibleTypeSymbol convertibleTypeSymbol = createConvertibleTypeSymbol();
+        bindingCollection.bind(convertibleTypeSymbol, asList("T2"));
+        bindingCollection.addLowerTypeBound("T1", convertibleTypeSymbol);
+        return bindingCollection;
+    }
+
+    private BindingCollection createBindingCollectionWithBounds() {
+        BindingCollection bindingCollection = new BindingCollection(symbolFactory, typeHelper);
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addVariable("$c", new TypeVariableReference("Tb"));
+        bindingCollection.addVariable("$d", new FixedTypeVariableReference(new TypeVariableReference("Td")));
+        bindingCollection.addUpperTypeBound("Ta", numType);
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        bindingCollection.addLowerRefBound("Ta", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerTypeBound("Td", floatType);
+        return bindingCollection;
+    }
+}
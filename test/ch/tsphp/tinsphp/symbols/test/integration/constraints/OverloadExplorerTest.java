@@ -0,0 +1,348 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.integration.constraints;
+
+import ch.tsphp.common.ITSPHPAst;
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.common.core.IConversionsProvider;
+import ch.tsphp.tinsphp.common.inference.constraints.BoundException;
+import ch.tsphp.tinsphp.common.inference.constraints.IBindingCollection;
+import ch.tsphp.tinsphp.common.inference.constraints.IConstraint;
+import ch.tsphp.tinsphp.common.inference.constraints.IFunctionType;
+import ch.tsphp.tinsphp.common.inference.constraints.IVariable;
+import ch.tsphp.tinsphp.common.inference.constraints.TypeVariableReference;
+import ch.tsphp.tinsphp.common.symbols.IMinimalMethodSymbol;
+import ch.tsphp.tinsphp.common.symbols.ISymbolFactory;
+import ch.tsphp.tinsphp.common.utils.ITypeHelper;
+import ch.tsphp.tinsphp.common.utils.Pair;
+import ch.tsphp.tinsphp.symbols.ModifierHelper;
+import ch.tsphp.tinsphp.symbols.SymbolFactory;
+import ch.tsphp.tinsphp.symbols.constraints.IOverloadApplier;
+import ch.tsphp.tinsphp.symbols.constraints.OverloadExplorer;
+import ch.tsphp.tinsphp.symbols.scopes.ScopeHelper;
+import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
+import ch.tsphp.tinsphp.symbols.utils.TypeHelper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollectionMatcher.varBinding;
+import static ch.tsphp.tinsphp.symbols.test.integration.testutils.BindingCollectionMatcher.withVariableBindings;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.mockito.Mockito.mock;
+
+public class OverloadExplorerTest extends ATypeHelperTest
+{
+    @Test
+    public void explore_Sequential_ReturnsApplicableOverloadsInOrder() {
+        ISymbolFactory symbolFactory = createSymbolFactory();
+        IBindingCollection bindingCollection = createBindingCollection(symbolFactory);
+        List<IFunctionType> overloads = createOverloads(20);
+        OverloadExplorer explorer = new OverloadExplorer(symbolFactory);
+
+        List<Pair<IFunctionType, IBindingCollection>> result
+                = explorer.explore(bindingCollection, overloads, createApplier(overloads));
+
+        assertThat(getOverloads(result), is(getApplicableOverloads(overloads)));
+    }
+
+    @Test
+    public void explore_Parallel_ReturnsSameOverloadsInSameOrderAsSequential() {
+        TypeHelper typeHelper = createThreadSafeTypeHelper();
+        ISymbolFactory symbolFactory = createSymbolFactory(typeHelper);
+        IBindingCollection bindingCollection = createBindingCollection(symbolFactory);
+        List<IFunctionType> overloads = createOverloads(20);
+        OverloadExplorer explorer = new OverloadExplorer(symbolFactory, typeHelper, new ForkJoinPool(4), 2);
+
+        List<Pair<IFunctionType, IBindingCollection>> result
+                = explorer.explore(bindingCollection, overloads, createApplier(overloads));
+
+        assertThat(getOverloads(result), is(getApplicableOverloads(overloads)));
+        assertThat(result.get(0).second, withVariableBindings(
+                varBinding("$a", "Ta", asList("int"), asList("num"), false)
+        ));
+        assertThat(result.get(1).second, withVariableBindings(
+                varBinding("$a", "Ta", asList("int"), asList("int"), false)
+        ));
+    }
+
+    @Test
+    public void explore_Parallel_DoesNotModifyGivenBindingCollection() {
+        TypeHelper typeHelper = createThreadSafeTypeHelper();
+        ISymbolFactory symbolFactory = createSymbolFactory(typeHelper);
+        IBindingCollection bindingCollection = createBindingCollection(symbolFactory);
+        List<IFunctionType> overloads = createOverloads(20);
+        OverloadExplorer explorer = new OverloadExplorer(symbolFactory, typeHelper, new ForkJoinPool(4), 2);
+
+        explorer.explore(bindingCollection, overloads, createApplier(overloads));
+
+        assertThat(bindingCollection, withVariableBindings(
+                varBinding("$a", "Ta", asList("int"), null, false)
+        ));
+    }
+
+    @Test
+    public void explore_ParallelAndSharedParentExploredConcurrently_SameResultAsSequentialAndParentUnchanged()
+            throws InterruptedException, ExecutionException {
+        TypeHelper typeHelper = createThreadSafeTypeHelper();
+        final ISymbolFactory symbolFactory = createSymbolFactory(typeHelper);
+        final IBindingCollection bindingCollection = createBindingCollection(symbolFactory);
+        bindingCollection.addVariable("$b", new TypeVariableReference("Tb"));
+        bindingCollection.addLowerRefBound("Tb", new TypeVariableReference("Ta"));
+        bindingCollection.renameTypeVariable("Tb", "Tc");
+        String parentBefore = bindingCollection.toString();
+        final List<IFunctionType> overloads = createOverloads(40);
+        final IOverloadApplier applier = createApplier(overloads);
+        List<String> expected = toStrings(
+                new OverloadExplorer(symbolFactory).explore(bindingCollection, overloads, applier));
+        final OverloadExplorer explorer = new OverloadExplorer(symbolFactory, typeHelper, new ForkJoinPool(4), 2);
+
+        List<Callable<List<String>>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            tasks.add(new Callable<List<String>>()
+            {
+                @Override
+                public List<String> call() {
+                    return toStrings(explorer.explore(bindingCollection, overloads, applier));
+                }
+            });
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<List<String>>> result;
+        try {
+            result = executorService.invokeAll(tasks);
+        } finally {
+            executorService.shutdown();
+        }
+
+        for (Future<List<String>> future : result) {
+            assertThat(future.get(), is(expected));
+        }
+        assertThat(bindingCollection.toString(), is(parentBefore));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void explore_ParallelAndApplierThrows_RethrowsException() {
+        TypeHelper typeHelper = createThreadSafeTypeHelper();
+        ISymbolFactory symbolFactory = createSymbolFactory(typeHelper);
+        IBindingCollection bindingCollection = createBindingCollection(symbolFactory);
+        List<IFunctionType> overloads = createOverloads(4);
+        OverloadExplorer explorer = new OverloadExplorer(symbolFactory, typeHelper, new ForkJoinPool(4), 2);
+
+        explorer.explore(bindingCollection, overloads, new IOverloadApplier()
+        {
+            @Override
+            public boolean tryToApply(IBindingCollection bindingCollection, IFunctionType overload) {
+                throw new IllegalStateException("failed");
+            }
+        });
+
+        //assert in annotation
+    }
+
+    @Test
+    public void exploreAndSelect_ParallelAndConstraintWithManyOverloads_SameWinnerAndBindingsAsSequential() {
+        TypeHelper typeHelper = createThreadSafeTypeHelper();
+        ISymbolFactory symbolFactory = createSymbolFactory(typeHelper);
+        IBindingCollection bindingCollection = createBindingCollection(symbolFactory);
+        IConstraint constraint = createConstraintWithOverloads(symbolFactory, 12);
+        List<IFunctionType> overloads = new ArrayList<>(constraint.getMethodSymbol().getOverloads());
+        IOverloadApplier applier = createApplierWithFirstApplicable(overloads, 5);
+        Pair<IFunctionType, IBindingCollection> sequential = new OverloadExplorer(symbolFactory)
+                .exploreAndSelect(bindingCollection, constraint.getMethodSymbol().getOverloads(), applier);
+        OverloadExplorer explorer = new OverloadExplorer(symbolFactory, typeHelper, new ForkJoinPool(4), 2);
+
+        Pair<IFunctionType, IBindingCollection> result
+                = explorer.exploreAndSelect(bindingCollection, constraint.getMethodSymbol().getOverloads(), applier);
+
+        assertThat(result.first, is(overloads.get(5)));
+        assertThat(result.first, is(sequential.first));
+        assertThat(result.second.toString(), is(sequential.second.toString()));
+        assertThat(result.second, withVariableBindings(
+                varBinding("$a", "Ta", asList("int"), asList("num"), false)
+        ));
+    }
+
+    @Test
+    public void exploreAndSelect_NoOverloadApplicable_ReturnsNull() {
+        ISymbolFactory symbolFactory = createSymbolFactory();
+        IBindingCollection bindingCollection = createBindingCollection(symbolFactory);
+        List<IFunctionType> overloads = createOverloads(4);
+        OverloadExplorer explorer = new OverloadExplorer(symbolFactory);
+
+        Pair<IFunctionType, IBindingCollection> result = explorer.exploreAndSelect(
+                bindingCollection, overloads, createApplierWithFirstApplicable(overloads, 4));
+
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void explore_ParallelAndBindingCollectionUsesOtherTypeHelper_ThrowsIllegalArgumentException() {
+        TypeHelper typeHelper = createThreadSafeTypeHelper();
+        ISymbolFactory symbolFactory = createSymbolFactory(typeHelper);
+        IBindingCollection bindingCollection = createBindingCollection(createSymbolFactory());
+        List<IFunctionType> overloads = createOverloads(4);
+        OverloadExplorer explorer = new OverloadExplorer(symbolFactory, typeHelper, new ForkJoinPool(4), 2);
+
+        explorer.explore(bindingCollection, overloads, createApplier(overloads));
+
+        //assert in annotation
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_MinNumberOfOverloadsIsZero_ThrowsIllegalArgumentException() {
+        TypeHelper typeHelper = createThreadSafeTypeHelper();
+        ISymbolFactory symbolFactory = createSymbolFactory(typeHelper);
+
+        new OverloadExplorer(symbolFactory, typeHelper, new ForkJoinPool(4), 0);
+
+        //assert in annotation
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_PoolAndMutableTypeHelper_ThrowsIllegalArgumentException() {
+        TypeHelper typeHelper = new TypeHelper();
+        typeHelper.setMixedTypeSymbol(mixedType);
+        ISymbolFactory symbolFactory = createSymbolFactory(typeHelper);
+
+        new OverloadExplorer(symbolFactory, typeHelper, new ForkJoinPool(4), 2);
+
+        //assert in annotation
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_PoolAndNoTypeHelper_ThrowsIllegalArgumentException() {
+        ISymbolFactory symbolFactory = createSymbolFactory();
+
+        new OverloadExplorer(symbolFactory, null, new ForkJoinPool(4), 2);
+
+        //assert in annotation
+    }
+
+    private ISymbolFactory createSymbolFactory() {
+        ITypeHelper typeHelper = new TypeHelper();
+        typeHelper.setMixedTypeSymbol(mixedType);
+        return createSymbolFactory(typeHelper);
+    }
+
+    private ISymbolFactory createSymbolFactory(ITypeHelper typeHelper) {
+        ISymbolFactory symbolFactory = new SymbolFactory(new ScopeHelper(), new ModifierHelper(), typeHelper);
+        symbolFactory.setMixedTypeSymbol(mixedType);
+        return symbolFactory;
+    }
+
+    private TypeHelper createThreadSafeTypeHelper() {
+        return new TypeHelper.Builder()
+                .mixedTypeSymbol(mixedType)
+                .conversionsProvider(mock(IConversionsProvider.class))
+                .concurrencyLevel(4)
+                .build();
+    }
+
+    private IConstraint createConstraintWithOverloads(ISymbolFactory symbolFactory, int numberOfOverloads) {
+        IMinimalMethodSymbol methodSymbol = symbolFactory.createMinimalMethodSymbol("+");
+        methodSymbol.setOverloads(createOverloads(numberOfOverloads));
+        return symbolFactory.createConstraint(
+                mock(ITSPHPAst.class), mock(IVariable.class), new ArrayList<IVariable>(), methodSymbol);
+    }
+
+    private IBindingCollection createBindingCollection(ISymbolFactory symbolFactory) {
+        IBindingCollection bindingCollection = symbolFactory.createBindingCollection();
+        bindingCollection.addVariable("$a", new TypeVariableReference("Ta"));
+        bindingCollection.addLowerTypeBound("Ta", intType);
+        return bindingCollection;
+    }
+
+    private List<IFunctionType> createOverloads(int numberOfOverloads) {
+        List<IFunctionType> overloads = new ArrayList<>(numberOfOverloads);
+        for (int i = 0; i < numberOfOverloads; ++i) {
+            overloads.add(mock(IFunctionType.class));
+        }
+        return overloads;
+    }
+
+    //every second overload is not applicable since int is not a subtype of bool
+    private IOverloadApplier createApplier(List<IFunctionType> overloads) {
+        final Map<IFunctionType, ITypeSymbol> upperBounds = new IdentityHashMap<>();
+        ITypeSymbol[] typeSymbols = new ITypeSymbol[]{numType, boolType, intType, boolType};
+        for (int i = 0; i < overloads.size(); ++i) {
+            upperBounds.put(overloads.get(i), typeSymbols[i % typeSymbols.length]);
+        }
+        return new IOverloadApplier()
+        {
+            @Override
+            public boolean tryToApply(IBindingCollection bindingCollection, IFunctionType overload) {
+                boolean isApplicable = true;
+                try {
+                    bindingCollection.addUpperTypeBound("Ta", upperBounds.get(overload));
+                } catch (BoundException ex) {
+                    isApplicable = false;
+                }
+                return isApplicable;
+            }
+        };
+    }
+
+    //the overloads before the given index are not applicable since int is not a subtype of bool
+    private IOverloadApplier createApplierWithFirstApplicable(List<IFunctionType> overloads, int index) {
+        final Map<IFunctionType, ITypeSymbol> upperBounds = new IdentityHashMap<>();
+        ITypeSymbol[] typeSymbols = new ITypeSymbol[]{intType, numType};
+        for (int i = 0; i < overloads.size(); ++i) {
+            upperBounds.put(overloads.get(i), i < index ? boolType : typeSymbols[i % typeSymbols.length]);
+        }
+        return new IOverloadApplier()
+        {
+            @Override
+            public boolean tryToApply(IBindingCollection bindingCollection, IFunctionType overload) {
+                boolean isApplicable = true;
+                try {
+                    bindingCollection.addUpperTypeBound("Ta", upperBounds.get(overload));
+                } catch (BoundException ex) {
+                    isApplicable = false;
+                }
+                return isApplicable;
+            }
+        };
+    }
+
+    private List<IFunctionType> getApplicableOverloads(List<IFunctionType> overloads) {
+        List<IFunctionType> applicableOverloads = new ArrayList<>();
+        for (int i = 0; i < overloads.size(); i += 2) {
+            applicableOverloads.add(overloads.get(i));
+        }
+        return applicableOverloads;
+    }
+
+    private List<String> toStrings(List<Pair<IFunctionType, IBindingCollection>> applications) {
+        List<String> strings = new ArrayList<>(applications.size());
+        for (Pair<IFunctionType, IBindingCollection> application : applications) {
+            strings.add(application.second.toString());
+        }
+        return strings;
+    }
+
+    private List<IFunctionType> getOverloads(List<Pair<IFunctionType, IBindingCollection>> applications) {
+        List<IFunctionType> overloads = new ArrayList<>(applications.size());
+        for (Pair<IFunctionType, IBindingCollection> application : applications) {
+            overloads.add(application.first);
+        }
+        return overloads;
+    }
+}
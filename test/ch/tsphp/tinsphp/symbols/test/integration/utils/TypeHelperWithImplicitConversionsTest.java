@@ -16,6 +16,7 @@ import ch.tsphp.tinsphp.common.utils.TypeHelperDto;
 import ch.tsphp.tinsphp.symbols.ModifierHelper;
 import ch.tsphp.tinsphp.symbols.scopes.ScopeHelper;
 import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
+import ch.tsphp.tinsphp.symbols.utils.TypeHelper;
 import org.junit.Test;
 
 import java.util.HashMap;
@@ -217,6 +218,28 @@ public class TypeHelperWithImplicitConversionsTest extends ATypeHelperTest
         assertThat(result.upperConstraints, isConstraints(pair("Ta", set("int"))));
     }
 
+    @Test
+    public void isFirstSameOrSubTypeOfSecond_IntToFloatWithImplicitConversionTwice_SecondConversionIsCached() {
+        //pre-act necessary for arrange
+        Map<String, Map<String, Pair<ITypeSymbol, IConversionMethod>>> implicitConversions
+                = createConversions(pair(intType, asList(floatType)));
+        Map<String, Map<String, Pair<ITypeSymbol, IConversionMethod>>> explicitConversions = new HashMap<>();
+        TypeHelper typeHelper = (TypeHelper) createTypeHelperAndInit(implicitConversions, explicitConversions);
+
+        //arrange
+        ITypeSymbol actual = intType;
+        ITypeSymbol formal = floatType;
+
+        //act
+        typeHelper.isFirstSameOrSubTypeOfSecond(actual, formal, "Ta");
+        TypeHelperDto result = typeHelper.isFirstSameOrSubTypeOfSecond(actual, formal, "Tb");
+
+        assertThat(result.relation, is(ERelation.HAS_COERCIVE_RELATION));
+        assertThat(result.lowerConstraints.size(), is(0));
+        assertThat(result.upperConstraints, isConstraints(pair("Tb", set("int"))));
+        assertThat(typeHelper.getConversionClosure().getNumberOfHits(), is(1L));
+    }
+
     private ISymbolFactory createSymbolFactory(ITypeHelper typeHelper) {
         return createSymbolFactory(new ScopeHelper(), new ModifierHelper(), typeHelper);
     }
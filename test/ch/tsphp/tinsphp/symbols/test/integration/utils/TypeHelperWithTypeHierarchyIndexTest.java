@@ -0,0 +1,129 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.integration.utils;
+
+import ch.tsphp.common.IScope;
+import ch.tsphp.common.ITSPHPAst;
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.common.scopes.IScopeHelper;
+import ch.tsphp.tinsphp.common.utils.TypeHelperDto;
+import ch.tsphp.tinsphp.symbols.ClassTypeSymbol;
+import ch.tsphp.tinsphp.symbols.ModifierSet;
+import ch.tsphp.tinsphp.symbols.PseudoTypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.TypeHelper;
+import ch.tsphp.tinsphp.symbols.utils.TypeHierarchyIndex;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static ch.tsphp.tinsphp.common.utils.ERelation.HAS_NO_RELATION;
+import static ch.tsphp.tinsphp.common.utils.ERelation.HAS_RELATION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class TypeHelperWithTypeHierarchyIndexTest
+{
+    @Test
+    public void isFirstSameOrSubTypeOfSecond_IndirectParent_HasRelation() {
+        PseudoTypeSymbol mixed = new PseudoTypeSymbol("mixed", null, false);
+        PseudoTypeSymbol num = new PseudoTypeSymbol("num", mixed, false);
+        PseudoTypeSymbol integer = new PseudoTypeSymbol("int", num, true);
+        TypeHelper typeHelper = createTypeHelper(mixed);
+
+        TypeHelperDto result = typeHelper.isFirstSameOrSubTypeOfSecond(integer, mixed, false);
+
+        assertThat(result.relation, is(HAS_RELATION));
+    }
+
+    @Test
+    public void isFirstSameOrSubTypeOfSecond_Child_HasNoRelation() {
+        PseudoTypeSymbol mixed = new PseudoTypeSymbol("mixed", null, false);
+        PseudoTypeSymbol num = new PseudoTypeSymbol("num", mixed, false);
+        PseudoTypeSymbol integer = new PseudoTypeSymbol("int", num, true);
+        TypeHelper typeHelper = createTypeHelper(mixed);
+
+        TypeHelperDto result = typeHelper.isFirstSameOrSubTypeOfSecond(num, integer, false);
+
+        assertThat(result.relation, is(HAS_NO_RELATION));
+    }
+
+    @Test
+    public void isFirstSameOrSubTypeOfSecond_ParentAddedAfterFirstCheck_HasRelation() {
+        PseudoTypeSymbol mixed = new PseudoTypeSymbol("mixed", null, false);
+        ClassTypeSymbol classA = createClassTypeSymbol("\\A", mixed);
+        ClassTypeSymbol classB = createClassTypeSymbol("\\B", mixed);
+        TypeHelper typeHelper = createTypeHelper(mixed);
+        typeHelper.isFirstSameOrSubTypeOfSecond(classB, classA, false);
+
+        classB.addParentTypeSymbol(classA);
+        TypeHelperDto result = typeHelper.isFirstSameOrSubTypeOfSecond(classB, classA, false);
+
+        assertThat(result.relation, is(HAS_RELATION));
+    }
+
+    @Test
+    public void isFirstSameOrSubTypeOfSecond_ParentAddedToTypeOfOtherTypeHelper_KeepsCachedRelations() {
+        PseudoTypeSymbol mixed = new PseudoTypeSymbol("mixed", null, false);
+        PseudoTypeSymbol num = new PseudoTypeSymbol("num", mixed, false);
+        PseudoTypeSymbol integer = new PseudoTypeSymbol("int", num, true);
+        ClassTypeSymbol classA = createClassTypeSymbol("\\A", mixed);
+        ClassTypeSymbol classB = createClassTypeSymbol("\\B", mixed);
+        TypeHelper typeHelper1 = createTypeHelper(mixed);
+        TypeHelper typeHelper2 = createTypeHelper(mixed);
+        typeHelper1.isFirstSameOrSubTypeOfSecond(classB, classA, false);
+        typeHelper2.isFirstSameOrSubTypeOfSecond(integer, num, false);
+
+        classB.addParentTypeSymbol(classA);
+        typeHelper2.isFirstSameOrSubTypeOfSecond(integer, num, false);
+        long result = typeHelper2.getRelationCache().getNumberOfHits();
+
+        assertThat(result, is(1L));
+    }
+
+    @Test
+    public void getHierarchyLabel_ParentIsNotIndexed_AncestorNameIdsAreNull() {
+        PseudoTypeSymbol typeSymbol = new PseudoTypeSymbol("foo", mock(ITypeSymbol.class), false);
+
+        BitSet result = typeSymbol.getHierarchyLabel(new TypeHierarchyIndex()).getAncestorNameIds();
+
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void getHierarchyLabel_IndexInvalidated_ReturnsNewLabel() {
+        PseudoTypeSymbol mixed = new PseudoTypeSymbol("mixed", null, false);
+        PseudoTypeSymbol num = new PseudoTypeSymbol("num", mixed, false);
+        TypeHierarchyIndex index = new TypeHierarchyIndex();
+        TypeHierarchyIndex.Label label = num.getHierarchyLabel(index);
+
+        index.invalidate();
+        TypeHierarchyIndex.Label result = num.getHierarchyLabel(index);
+
+        assertThat(result, is(not(sameInstance(label))));
+        assertThat(result.getAncestorNameIds().get(result.findNameId("mixed")), is(true));
+    }
+
+    private TypeHelper createTypeHelper(ITypeSymbol mixed) {
+        TypeHelper typeHelper = new TypeHelper();
+        typeHelper.setMixedTypeSymbol(mixed);
+        return typeHelper;
+    }
+
+    private ClassTypeSymbol createClassTypeSymbol(String name, ITypeSymbol parentTypeSymbol) {
+        return new ClassTypeSymbol(
+                mock(IScopeHelper.class),
+                mock(ITSPHPAst.class),
+                new ModifierSet(),
+                name,
+                mock(IScope.class),
+                parentTypeSymbol);
+    }
+}
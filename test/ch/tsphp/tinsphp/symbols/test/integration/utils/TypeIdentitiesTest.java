@@ -0,0 +1,52 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.integration.utils;
+
+import ch.tsphp.tinsphp.common.symbols.IUnionTypeSymbol;
+import ch.tsphp.tinsphp.symbols.PseudoTypeSymbol;
+import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
+import ch.tsphp.tinsphp.symbols.utils.TypeIdentities;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TypeIdentitiesTest extends ATypeHelperTest
+{
+    @Test
+    public void areSame_DifferentInstancesWithSameName_ReturnsTrue() {
+        PseudoTypeSymbol typeSymbol1 = new PseudoTypeSymbol(new String("foo"), null, false);
+        PseudoTypeSymbol typeSymbol2 = new PseudoTypeSymbol(new String("foo"), null, false);
+
+        boolean result = TypeIdentities.areSame(typeSymbol1, typeSymbol2);
+
+        assertThat(result, is(true));
+    }
+
+    @Test
+    public void areSame_UnionsWithSameTypes_ReturnsTrue() {
+        IUnionTypeSymbol unionTypeSymbol1 = createUnionTypeSymbol(intType, floatType);
+        IUnionTypeSymbol unionTypeSymbol2 = createUnionTypeSymbol(floatType, intType);
+
+        boolean result = TypeIdentities.areSame(unionTypeSymbol1, unionTypeSymbol2);
+
+        assertThat(result, is(true));
+    }
+
+    @Test
+    public void areSame_UnionChangedAfterwards_UsesNewIdentity() {
+        IUnionTypeSymbol unionTypeSymbol1 = createUnionTypeSymbol(intType);
+        IUnionTypeSymbol unionTypeSymbol2 = createUnionTypeSymbol(intType, floatType);
+        boolean resultBefore = TypeIdentities.areSame(unionTypeSymbol1, unionTypeSymbol2);
+
+        unionTypeSymbol1.addTypeSymbol(floatType);
+        boolean result = TypeIdentities.areSame(unionTypeSymbol1, unionTypeSymbol2);
+
+        assertThat(resultBefore, is(false));
+        assertThat(result, is(true));
+    }
+}
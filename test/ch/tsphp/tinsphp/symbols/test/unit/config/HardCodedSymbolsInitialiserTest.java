@@ -6,19 +6,35 @@
 
 package ch.tsphp.tinsphp.symbols.test.unit.config;
 
+import ch.tsphp.common.symbols.ITypeSymbol;
 import ch.tsphp.tinsphp.common.config.ISymbolsInitialiser;
+import ch.tsphp.tinsphp.common.core.IConversionsProvider;
 import ch.tsphp.tinsphp.common.scopes.IScopeFactory;
 import ch.tsphp.tinsphp.common.scopes.IScopeHelper;
 import ch.tsphp.tinsphp.common.symbols.IModifierHelper;
 import ch.tsphp.tinsphp.common.symbols.ISymbolFactory;
+import ch.tsphp.tinsphp.common.utils.ERelation;
 import ch.tsphp.tinsphp.common.utils.ITypeHelper;
 import ch.tsphp.tinsphp.symbols.config.HardCodedSymbolsInitialiser;
+import ch.tsphp.tinsphp.symbols.constraints.BindingCollection;
+import ch.tsphp.tinsphp.symbols.test.unit.testutils.ATypeTest;
+import ch.tsphp.tinsphp.symbols.utils.TypeHelper;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.mockito.Mockito.mock;
 
-public class HardCodedSymbolsInitialiserTest
+public class HardCodedSymbolsInitialiserTest extends ATypeTest
 {
 
     @Test
@@ -126,6 +142,90 @@ public class HardCodedSymbolsInitialiserTest
         assertThat(result, is(firstCall));
     }
 
+    @Test
+    public void createImmutableTypeHelper_Standard_IsImmutableAndNotSameAsGetTypeHelper() {
+        HardCodedSymbolsInitialiser initialiser = new HardCodedSymbolsInitialiser();
+
+        TypeHelper result = initialiser.createImmutableTypeHelper(
+                mock(ITypeSymbol.class), mock(IConversionsProvider.class));
+
+        assertThat(result.isImmutable(), is(true));
+        assertThat(result, is(not(initialiser.getTypeHelper())));
+    }
+
+    @Test
+    public void getTypeHelper_ImmutableTypeHelperPassed_ReturnsIt() {
+        TypeHelper typeHelper = createImmutableTypeHelper();
+
+        ISymbolsInitialiser initialiser = new HardCodedSymbolsInitialiser(typeHelper);
+        ITypeHelper result = initialiser.getTypeHelper();
+
+        assertThat(result, is((ITypeHelper) typeHelper));
+    }
+
+    @Test
+    public void getSymbolFactory_ImmutableTypeHelperPassedAndSameMixedTypeSet_BindingCollectionsUseIt() {
+        TypeHelper typeHelper = createImmutableTypeHelper();
+
+        ISymbolsInitialiser initialiser = new HardCodedSymbolsInitialiser(typeHelper);
+        ISymbolFactory symbolFactory = initialiser.getSymbolFactory();
+        symbolFactory.setMixedTypeSymbol(mixedType);
+        BindingCollection result = (BindingCollection) symbolFactory.createBindingCollection();
+
+        assertThat(result.getTypeHelper(), is((ITypeHelper) typeHelper));
+    }
+
+    @Test
+    public void getTypeHelper_ImmutableTypeHelperUsedByTwoThreads_ConsistentRelations()
+            throws InterruptedException, ExecutionException {
+        final ISymbolsInitialiser initialiser = new HardCodedSymbolsInitialiser(createImmutableTypeHelper());
+        List<ERelation> expected = getRelations(typeHelper);
+
+        List<Callable<List<ERelation>>> tasks = new ArrayList<>();
+        for (int i = 0; i < 2; ++i) {
+            tasks.add(new Callable<List<ERelation>>()
+            {
+                @Override
+                public List<ERelation> call() {
+                    List<ERelation> relations = null;
+                    for (int j = 0; j < 50; ++j) {
+                        relations = getRelations(initialiser.getTypeHelper());
+                    }
+                    return relations;
+                }
+            });
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        List<Future<List<ERelation>>> result;
+        try {
+            result = executorService.invokeAll(tasks);
+        } finally {
+            executorService.shutdown();
+        }
+
+        for (Future<List<ERelation>> future : result) {
+            assertThat(future.get(), is(expected));
+        }
+    }
+
+    private TypeHelper createImmutableTypeHelper() {
+        return new HardCodedSymbolsInitialiser().createImmutableTypeHelper(
+                mixedType, mock(IConversionsProvider.class));
+    }
+
+    private List<ERelation> getRelations(ITypeHelper theTypeHelper) {
+        ITypeSymbol[] typeSymbols = new ITypeSymbol[]{
+                mixedType, scalarType, numType, intType, floatType, boolType, interfaceAType, interfaceSubAType
+        };
+        List<ERelation> relations = new ArrayList<>();
+        for (ITypeSymbol typeSymbol1 : typeSymbols) {
+            for (ITypeSymbol typeSymbol2 : typeSymbols) {
+                relations.add(theTypeHelper.isFirstSameOrSubTypeOfSecond(typeSymbol1, typeSymbol2, false).relation);
+            }
+        }
+        return relations;
+    }
+
     protected ISymbolsInitialiser createInitialiser() {
         return new HardCodedSymbolsInitialiser();
     }
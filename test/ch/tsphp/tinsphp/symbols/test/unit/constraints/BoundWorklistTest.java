@@ -0,0 +1,71 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.unit.constraints;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.symbols.constraints.BoundWorklist;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class BoundWorklistTest
+{
+    @Test
+    public void add_SamePairTwice_IsOnlyAddedOnce() {
+        ITypeSymbol typeSymbol = mock(ITypeSymbol.class);
+        BoundWorklist worklist = new BoundWorklist();
+
+        boolean result1 = worklist.add(1, typeSymbol);
+        boolean result2 = worklist.add(1, typeSymbol);
+        worklist.poll();
+
+        assertThat(result1, is(true));
+        assertThat(result2, is(false));
+        assertThat(worklist.isEmpty(), is(true));
+    }
+
+    @Test
+    public void add_SamePairAfterPoll_IsNotAddedAgain() {
+        ITypeSymbol typeSymbol = mock(ITypeSymbol.class);
+        BoundWorklist worklist = new BoundWorklist();
+
+        worklist.add(1, typeSymbol);
+        worklist.poll();
+        boolean result = worklist.add(1, typeSymbol);
+
+        assertThat(result, is(false));
+        assertThat(worklist.isEmpty(), is(true));
+    }
+
+    @Test
+    public void add_SameTypeVariableDifferentBounds_BothAreAdded() {
+        ITypeSymbol typeSymbol1 = mock(ITypeSymbol.class);
+        ITypeSymbol typeSymbol2 = mock(ITypeSymbol.class);
+        BoundWorklist worklist = new BoundWorklist();
+
+        worklist.add(1, typeSymbol1);
+        boolean result = worklist.add(1, typeSymbol2);
+
+        assertThat(result, is(true));
+        assertThat(worklist.poll().typeSymbol, is(sameInstance(typeSymbol1)));
+        assertThat(worklist.poll().typeSymbol, is(sameInstance(typeSymbol2)));
+    }
+
+    @Test
+    public void add_OriginPairOfConstructor_IsNotAdded() {
+        ITypeSymbol typeSymbol = mock(ITypeSymbol.class);
+        BoundWorklist worklist = new BoundWorklist(1, typeSymbol);
+
+        boolean result = worklist.add(1, typeSymbol);
+
+        assertThat(result, is(false));
+        assertThat(worklist.isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.unit.constraints;
+
+import ch.tsphp.tinsphp.symbols.constraints.CopyOnWriteIntMap;
+import ch.tsphp.tinsphp.symbols.constraints.CopyOnWriteMap;
+import ch.tsphp.tinsphp.symbols.constraints.Trail;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class CopyOnWriteIntMapTest
+{
+    @Test
+    public void put_KeyBeyondCapacity_GrowsAndContainsIt() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+
+        map.put(100, list);
+
+        assertThat(map.get(100), is(sameInstance(list)));
+        assertThat(map.size(), is(1));
+        assertThat(map.capacity() > 100, is(true));
+    }
+
+    @Test
+    public void get_NonExistingKey_ReturnsNull() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+
+        List<String> result = map.get(1000);
+
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void put_Null_ThrowsIllegalArgumentException() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+
+        map.put(1, null);
+
+        //assert in annotation
+    }
+
+    @Test
+    public void getForWrite_Forked_ReturnsCopyAndForkStillHasOriginal() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        list.add("1");
+        map.put(0, list);
+
+        CopyOnWriteIntMap<List<String>> fork = map.fork();
+        List<String> result = map.getForWrite(0);
+        result.add("2");
+
+        assertThat(result, is(not(sameInstance(list))));
+        assertThat(map.get(0), contains("1", "2"));
+        assertThat(fork.get(0), is(sameInstance(list)));
+        assertThat(fork.get(0), contains("1"));
+    }
+
+    @Test
+    public void remove_AfterFork_ForkStillContainsIt() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+        map.put(0, new ArrayList<String>());
+        map.put(1, new ArrayList<String>());
+
+        CopyOnWriteIntMap<List<String>> fork = map.fork();
+        fork.remove(0);
+
+        assertThat(map.containsKey(0), is(true));
+        assertThat(map.size(), is(2));
+        assertThat(fork.containsKey(0), is(false));
+        assertThat(fork.size(), is(1));
+    }
+
+    @Test
+    public void setTrail_ModifyAndUndo_IsSameAsBefore() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        list.add("1");
+        map.put(0, list);
+        map.put(1, new ArrayList<String>());
+        Trail trail = new Trail();
+
+        map.setTrail(trail);
+        map.getForWrite(0).add("2");
+        map.remove(1);
+        map.put(20, new ArrayList<String>());
+        trail.undoTo(0);
+
+        assertThat(map.size(), is(2));
+        assertThat(map.containsKey(1), is(true));
+        assertThat(map.containsKey(20), is(false));
+        assertThat(map.get(0), is(sameInstance(list)));
+        assertThat(map.get(0), contains("1"));
+    }
+
+    @Test
+    public void trimToSize_HighestKeysRemoved_ShrinksAndKeepsRemainingEntries() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        map.put(3, list);
+        map.put(100, new ArrayList<String>());
+        map.remove(100);
+
+        map.trimToSize();
+
+        assertThat(map.capacity(), is(8));
+        assertThat(map.size(), is(1));
+        assertThat(map.get(3), is(sameInstance(list)));
+    }
+
+    @Test
+    public void setTrail_OwnedValueAndTrailRemovedAgain_IsNotCopiedBeforeWrite() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+        map.put(0, new ArrayList<String>());
+        map.fork();
+        List<String> ownCopy = map.getForWrite(0);
+        Trail trail = new Trail();
+
+        map.setTrail(trail);
+        map.setTrail(null);
+        List<String> result = map.getForWrite(0);
+
+        assertThat(result, is(sameInstance(ownCopy)));
+    }
+
+    @Test
+    public void setTrail_ForkedWhileTrailWasSet_IsCopiedBeforeWrite() {
+        CopyOnWriteIntMap<List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        map.put(0, list);
+        Trail trail = new Trail();
+
+        map.setTrail(trail);
+        CopyOnWriteIntMap<List<String>> fork = map.fork();
+        map.setTrail(null);
+        List<String> result = map.getForWrite(0);
+
+        assertThat(result, is(not(sameInstance(list))));
+        assertThat(fork.get(0), is(sameInstance(list)));
+    }
+
+    private CopyOnWriteIntMap<List<String>> createListMap() {
+        return new CopyOnWriteIntMap<>(new CopyOnWriteMap.IValueCopier<List<String>>()
+        {
+            @Override
+            public List<String> copy(List<String> value) {
+                return new ArrayList<>(value);
+            }
+        });
+    }
+}
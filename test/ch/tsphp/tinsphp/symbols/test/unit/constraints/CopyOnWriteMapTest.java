@@ -0,0 +1,224 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.unit.constraints;
+
+import ch.tsphp.tinsphp.symbols.constraints.CopyOnWriteMap;
+import ch.tsphp.tinsphp.symbols.constraints.Trail;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class CopyOnWriteMapTest
+{
+    @Test
+    public void getForWrite_NotForked_ReturnsSameValue() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        map.put("a", list);
+
+        List<String> result = map.getForWrite("a");
+
+        assertThat(result, is(sameInstance(list)));
+    }
+
+    @Test
+    public void getForWrite_Forked_ReturnsCopyAndForkStillHasOriginal() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        list.add("1");
+        map.put("a", list);
+
+        CopyOnWriteMap<String, List<String>> fork = map.fork();
+        List<String> result = map.getForWrite("a");
+        result.add("2");
+
+        assertThat(result, is(not(sameInstance(list))));
+        assertThat(map.get("a"), contains("1", "2"));
+        assertThat(fork.get("a"), is(sameInstance(list)));
+        assertThat(fork.get("a"), contains("1"));
+    }
+
+    @Test
+    public void getForWrite_ForkedAndCalledTwice_CopiesOnlyOnce() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        map.put("a", new ArrayList<String>());
+
+        CopyOnWriteMap<String, List<String>> fork = map.fork();
+        List<String> result1 = fork.getForWrite("a");
+        List<String> result2 = fork.getForWrite("a");
+
+        assertThat(result1, is(sameInstance(result2)));
+    }
+
+    @Test
+    public void getForWrite_NonExistingKey_ReturnsNull() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+
+        List<String> result = map.fork().getForWrite("a");
+
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void put_AfterFork_ForkDoesNotContainIt() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        map.put("a", new ArrayList<String>());
+
+        CopyOnWriteMap<String, List<String>> fork = map.fork();
+        map.put("b", new ArrayList<String>());
+
+        assertThat(map.keySet(), containsInAnyOrder("a", "b"));
+        assertThat(fork.keySet(), containsInAnyOrder("a"));
+    }
+
+    @Test
+    public void remove_AfterFork_ForkStillContainsIt() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        map.put("a", new ArrayList<String>());
+        map.put("b", new ArrayList<String>());
+
+        CopyOnWriteMap<String, List<String>> fork = map.fork();
+        fork.remove("a");
+
+        assertThat(map.keySet(), containsInAnyOrder("a", "b"));
+        assertThat(fork.keySet(), containsInAnyOrder("b"));
+    }
+
+    @Test
+    public void move_SharedValue_IsStillCopiedBeforeWrite() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        map.put("a", list);
+
+        CopyOnWriteMap<String, List<String>> fork = map.fork();
+        fork.move("a", "b");
+        List<String> result = fork.getForWrite("b");
+
+        assertThat(result, is(not(sameInstance(list))));
+        assertThat(fork.containsKey("a"), is(false));
+        assertThat(map.get("a"), is(sameInstance(list)));
+    }
+
+    @Test
+    public void getForWrite_OnSourceAfterFork_ReturnsCopyAndForkStillHasOriginal() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        map.put("a", list);
+
+        CopyOnWriteMap<String, List<String>> fork = map.fork();
+        List<String> result = map.getForWrite("a");
+
+        assertThat(result, is(not(sameInstance(list))));
+        assertThat(fork.get("a"), is(sameInstance(list)));
+    }
+
+    @Test
+    public void setTrail_ModifyAndUndo_IsSameAsBefore() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        list.add("1");
+        map.put("a", list);
+        map.put("b", new ArrayList<String>());
+        Trail trail = new Trail();
+
+        map.setTrail(trail);
+        map.getForWrite("a").add("2");
+        map.remove("b");
+        map.put("c", new ArrayList<String>());
+        map.move("a", "d");
+        trail.undoTo(0);
+
+        assertThat(map.keySet(), containsInAnyOrder("a", "b"));
+        assertThat(map.get("a"), is(sameInstance(list)));
+        assertThat(map.get("a"), contains("1"));
+    }
+
+    @Test
+    public void setTrail_OwnedValueAndTrailRemovedAgain_IsNotCopiedBeforeWrite() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        map.put("a", new ArrayList<String>());
+        map.fork();
+        List<String> ownCopy = map.getForWrite("a");
+        Trail trail = new Trail();
+
+        map.setTrail(trail);
+        map.setTrail(null);
+        List<String> result = map.getForWrite("a");
+
+        assertThat(result, is(sameInstance(ownCopy)));
+    }
+
+    @Test
+    public void setTrail_PutWhileTrailWasSetAndTrailRemovedAgain_IsNotCopiedBeforeWrite() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        map.fork();
+        List<String> list = new ArrayList<>();
+        Trail trail = new Trail();
+
+        map.setTrail(trail);
+        map.put("a", list);
+        map.setTrail(trail);
+        map.setTrail(null);
+        List<String> result = map.getForWrite("a");
+
+        assertThat(result, is(sameInstance(list)));
+    }
+
+    @Test
+    public void setTrail_ForkedWhileTrailWasSet_IsCopiedBeforeWrite() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        map.put("a", list);
+        Trail trail = new Trail();
+
+        map.setTrail(trail);
+        CopyOnWriteMap<String, List<String>> fork = map.fork();
+        map.setTrail(null);
+        List<String> result = map.getForWrite("a");
+
+        assertThat(result, is(not(sameInstance(list))));
+        assertThat(fork.get("a"), is(sameInstance(list)));
+    }
+
+    @Test
+    public void trimToSize_ManyEntriesRemoved_KeepsRemainingEntries() {
+        CopyOnWriteMap<String, List<String>> map = createListMap();
+        List<String> list = new ArrayList<>();
+        map.put("a", list);
+        for (int i = 0; i < 10; ++i) {
+            map.put("b" + i, new ArrayList<String>());
+        }
+        for (int i = 0; i < 10; ++i) {
+            map.remove("b" + i);
+        }
+
+        map.trimToSize();
+        List<String> result = map.getForWrite("a");
+
+        assertThat(map.keySet(), contains("a"));
+        assertThat(result, is(sameInstance(list)));
+    }
+
+    private CopyOnWriteMap<String, List<String>> createListMap() {
+        return new CopyOnWriteMap<>(new CopyOnWriteMap.IValueCopier<List<String>>()
+        {
+            @Override
+            public List<String> copy(List<String> value) {
+                return new ArrayList<>(value);
+            }
+        });
+    }
+}
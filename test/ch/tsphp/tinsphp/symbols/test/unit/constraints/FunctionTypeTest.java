@@ -132,6 +132,16 @@ public class FunctionTypeTest
         //assert in annotation
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void freeze_NotYetSimplified_ThrowsIllegalStateException() {
+        //no arrange necessary
+
+        FunctionType function = (FunctionType) createFunction();
+        function.freeze();
+
+        //assert in annotation
+    }
+
     private IFunctionType createFunction() {
         return createFunction("foo", mock(IBindingCollection.class), new ArrayList<IVariable>());
     }
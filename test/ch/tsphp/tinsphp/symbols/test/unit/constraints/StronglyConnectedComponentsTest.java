@@ -0,0 +1,83 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.unit.constraints;
+
+import ch.tsphp.tinsphp.symbols.constraints.CopyOnWriteIntMap;
+import ch.tsphp.tinsphp.symbols.constraints.StronglyConnectedComponents;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+
+public class StronglyConnectedComponentsTest
+{
+    @Test
+    public void findCycles_NoCycle_ReturnsEmptyList() {
+        CopyOnWriteIntMap<Set<Integer>> graph = new CopyOnWriteIntMap<>(null);
+        addEdge(graph, 0, 1);
+        addEdge(graph, 1, 2);
+
+        List<List<Integer>> result = StronglyConnectedComponents.findCycles(graph, 3);
+
+        assertThat(result.size(), is(0));
+    }
+
+    @Test
+    public void findCycles_SelfLoop_IsNotACycle() {
+        CopyOnWriteIntMap<Set<Integer>> graph = new CopyOnWriteIntMap<>(null);
+        addEdge(graph, 0, 0);
+
+        List<List<Integer>> result = StronglyConnectedComponents.findCycles(graph, 1);
+
+        assertThat(result.size(), is(0));
+    }
+
+    @Test
+    public void findCycles_TwoCyclesConnectedByEdge_ReturnsBoth() {
+        CopyOnWriteIntMap<Set<Integer>> graph = new CopyOnWriteIntMap<>(null);
+        addEdge(graph, 0, 1);
+        addEdge(graph, 1, 2);
+        addEdge(graph, 2, 0);
+        addEdge(graph, 2, 3);
+        addEdge(graph, 3, 4);
+        addEdge(graph, 4, 3);
+
+        List<List<Integer>> result = StronglyConnectedComponents.findCycles(graph, 5);
+
+        assertThat(result.size(), is(2));
+        assertThat(result.get(0), containsInAnyOrder(3, 4));
+        assertThat(result.get(1), containsInAnyOrder(0, 1, 2));
+    }
+
+    @Test
+    public void findCycles_LongCycle_DoesNotOverflowTheStack() {
+        CopyOnWriteIntMap<Set<Integer>> graph = new CopyOnWriteIntMap<>(null);
+        int length = 100000;
+        for (int i = 0; i < length; ++i) {
+            addEdge(graph, i, (i + 1) % length);
+        }
+
+        List<List<Integer>> result = StronglyConnectedComponents.findCycles(graph, length);
+
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).size(), is(length));
+    }
+
+    private void addEdge(CopyOnWriteIntMap<Set<Integer>> graph, int from, int to) {
+        Set<Integer> successors = graph.get(from);
+        if (successors == null) {
+            successors = new HashSet<>();
+            graph.put(from, successors);
+        }
+        successors.add(to);
+    }
+}
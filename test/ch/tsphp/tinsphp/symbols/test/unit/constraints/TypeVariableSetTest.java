@@ -0,0 +1,124 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.unit.constraints;
+
+import ch.tsphp.tinsphp.symbols.constraints.TypeVariableSet;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+public class TypeVariableSetTest
+{
+    @Test
+    public void add_SeveralWords_ContainsAllInAscendingOrder() {
+        TypeVariableSet set = new TypeVariableSet();
+
+        set.add(130);
+        set.add(1);
+        set.add(64);
+        boolean result = set.add(1);
+
+        assertThat(result, is(false));
+        assertThat(set.size(), is(3));
+        assertThat(set, contains(1, 64, 130));
+        assertThat(set.contains(63), is(false));
+        assertThat(set.contains(1000), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_Negative_ThrowsIllegalArgumentException() {
+        TypeVariableSet set = new TypeVariableSet();
+
+        set.add(-1);
+
+        //assert in annotation
+    }
+
+    @Test
+    public void addAll_OtherTypeVariableSet_IsUnionAndReturnsWhetherChanged() {
+        TypeVariableSet set = new TypeVariableSet();
+        set.add(1);
+        set.add(2);
+        TypeVariableSet other = new TypeVariableSet();
+        other.add(2);
+        other.add(200);
+
+        boolean result = set.addAll(other);
+        boolean result2 = set.addAll(other);
+
+        assertThat(result, is(true));
+        assertThat(result2, is(false));
+        assertThat(set.size(), is(3));
+        assertThat(set, contains(1, 2, 200));
+    }
+
+    @Test
+    public void intersects_CommonAndNoCommonTypeVariable_ReturnsTrueAndFalse() {
+        TypeVariableSet set = new TypeVariableSet();
+        set.add(5);
+        set.add(300);
+        TypeVariableSet common = new TypeVariableSet();
+        common.add(300);
+        TypeVariableSet notCommon = new TypeVariableSet();
+        notCommon.add(6);
+
+        boolean result = set.intersects(common);
+        boolean result2 = set.intersects(notCommon);
+
+        assertThat(result, is(true));
+        assertThat(result2, is(false));
+    }
+
+    @Test
+    public void iteratorRemove_RemovesCurrentAndContinues() {
+        TypeVariableSet set = new TypeVariableSet();
+        set.add(1);
+        set.add(2);
+        set.add(3);
+
+        Iterator<Integer> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == 2) {
+                iterator.remove();
+            }
+        }
+
+        assertThat(set.size(), is(2));
+        assertThat(set, contains(1, 3));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iterator_ModifiedDuringIteration_ThrowsConcurrentModificationException() {
+        TypeVariableSet set = new TypeVariableSet();
+        set.add(1);
+        set.add(2);
+
+        for (int typeVariable : set) {
+            set.add(typeVariable + 10);
+        }
+
+        //assert in annotation
+    }
+
+    @Test
+    public void copyConstructor_ModifyCopy_OriginalUnchanged() {
+        TypeVariableSet set = new TypeVariableSet();
+        set.add(1);
+
+        TypeVariableSet copy = new TypeVariableSet(set);
+        copy.add(2);
+        copy.remove(1);
+
+        assertThat(set, contains(1));
+        assertThat(copy, contains(2));
+    }
+}
@@ -169,6 +169,18 @@ public class ARecordTypeSymbolTest
         assertThat(result, containsInAnyOrder(parentTypeSymbol));
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void getParentTypeSymbols_AddToResult_ThrowsUnsupportedOperationException() {
+        ITypeSymbol parentTypeSymbol = mock(ITypeSymbol.class);
+        when(parentTypeSymbol.getName()).thenReturn("ParentClass");
+
+        IRecordTypeSymbol typeSymbol = createPolymorphicTypeSymbol(parentTypeSymbol);
+        Set<ITypeSymbol> result = typeSymbol.getParentTypeSymbols();
+        result.add(mock(ITypeSymbol.class));
+
+        //assert in annotation
+    }
+
     @Test
     public void addParentTypeSymbol_IfParentWasMixed_ReturnsSetWithPassedTypeSymbolOnly() {
         ITypeSymbol mixed = mock(ITypeSymbol.class);
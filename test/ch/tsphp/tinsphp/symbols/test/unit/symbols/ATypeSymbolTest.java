@@ -72,6 +72,30 @@ public class ATypeSymbolTest
         assertThat(result, is(parentTypeSymbols));
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void getParentTypeSymbols_AddToResult_ThrowsUnsupportedOperationException() {
+        ITypeSymbol parentTypeSymbol = mock(ITypeSymbol.class);
+
+        ATypeSymbol typeSymbol = createTypeSymbol(parentTypeSymbol);
+        Set<ITypeSymbol> result = typeSymbol.getParentTypeSymbols();
+        result.add(mock(ITypeSymbol.class));
+
+        //assert in annotation
+    }
+
+    @Test
+    public void getParentTypeSymbols_SetPassedToConstructorModifiedAfterwards_IsNotModified() {
+        ITypeSymbol parentTypeSymbol = mock(ITypeSymbol.class);
+        Set<ITypeSymbol> parentTypeSymbols = new HashSet<>();
+        parentTypeSymbols.add(parentTypeSymbol);
+
+        ATypeSymbol typeSymbol = createTypeSymbol(parentTypeSymbols);
+        parentTypeSymbols.add(mock(ITypeSymbol.class));
+        Set<ITypeSymbol> result = typeSymbol.getParentTypeSymbols();
+
+        assertThat(result, IsIterableContainingInAnyOrder.containsInAnyOrder(parentTypeSymbol));
+    }
+
     @Test
     public void isFalseable_NothingDefined_ReturnsFalse() {
         //no arrange necessary
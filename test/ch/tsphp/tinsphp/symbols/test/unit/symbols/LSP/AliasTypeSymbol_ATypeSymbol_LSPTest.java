@@ -24,6 +24,12 @@ public class AliasTypeSymbol_ATypeSymbol_LSPTest extends ATypeSymbolTest
         //test is therefore not necessary
     }
 
+    @Test
+    public void getParentTypeSymbols_SetPassedToConstructorModifiedAfterwards_IsNotModified() {
+        //different behaviour, AliasTypeSymbol does not support multiple parents.
+        //test is therefore not necessary
+    }
+
     @Override
     protected ATypeSymbol createTypeSymbol(ITSPHPAst definitionAst, String name, ITypeSymbol parentTypeSymbol) {
         return new AliasTypeSymbol(definitionAst, name, parentTypeSymbol);
@@ -26,6 +26,11 @@ public class ArrayTypeSymbol_ATypeSymbol_LSPTest extends ATypeSymbolTest
         // different behaviour - ArrayTypeSymbol does not support multiple parent types
     }
 
+    @Override
+    public void getParentTypeSymbols_SetPassedToConstructorModifiedAfterwards_IsNotModified() {
+        // different behaviour - ArrayTypeSymbol does not support multiple parent types
+    }
+
     @Override
     public void isFinal_Standard_ReturnsFalse() {
         // different behaviour - array types are final
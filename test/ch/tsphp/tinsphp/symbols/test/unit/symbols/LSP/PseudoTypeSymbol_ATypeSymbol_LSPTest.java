@@ -28,6 +28,11 @@ public class PseudoTypeSymbol_ATypeSymbol_LSPTest extends ATypeSymbolTest
         // different behaviour - PseudoTypeSymbol does not support multiple parent types
     }
 
+    @Override
+    public void getParentTypeSymbols_SetPassedToConstructorModifiedAfterwards_IsNotModified() {
+        // different behaviour - PseudoTypeSymbol does not support multiple parent types
+    }
+
     @Override
     protected ATypeSymbol createTypeSymbol(ITSPHPAst definitionAst, String name, ITypeSymbol parentTypeSymbol) {
         return new PseudoTypeSymbol(name, parentTypeSymbol, false);
@@ -26,6 +26,11 @@ public class ScalarTypeSymbol_ATypeSymbol_LSPTest extends ATypeSymbolTest
         // different behaviour - PseudoTypeSymbol does not support multiple parent types
     }
 
+    @Override
+    public void getParentTypeSymbols_SetPassedToConstructorModifiedAfterwards_IsNotModified() {
+        // different behaviour - PseudoTypeSymbol does not support multiple parent types
+    }
+
     @Override
     public void isFinal_Standard_ReturnsFalse() {
         // different behaviour - array types are final
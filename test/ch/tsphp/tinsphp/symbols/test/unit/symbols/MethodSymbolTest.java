@@ -19,6 +19,7 @@ import ch.tsphp.tinsphp.common.symbols.IMinimalVariableSymbol;
 import ch.tsphp.tinsphp.common.symbols.IVariableSymbol;
 import ch.tsphp.tinsphp.symbols.MethodSymbol;
 import ch.tsphp.tinsphp.symbols.ModifierSet;
+import ch.tsphp.tinsphp.symbols.utils.MemoryFootprint;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -251,6 +252,23 @@ public class MethodSymbolTest
         assertThat(result, is(name + "|" + modifier + "|" + returnTypeModifier));
     }
 
+    @Test
+    public void estimateMemoryFootprint_OneParameterAndBinding_ReportsEntriesAndConstraintCollection() {
+        IVariableSymbol variableSymbol = mock(IVariableSymbol.class);
+        IBindingCollection bindingCollection = mock(IBindingCollection.class);
+
+        MethodSymbol methodSymbol = (MethodSymbol) createMethodSymbol();
+        methodSymbol.addParameter(variableSymbol);
+        methodSymbol.addBindingCollection(bindingCollection);
+        MemoryFootprint result = methodSymbol.estimateMemoryFootprint();
+
+        assertThat(result.getEntryCounts().get("parameters"), is(1));
+        assertThat(result.getEntryCounts().get("overloads"), is(0));
+        assertThat(result.getChildren().size(), is(1));
+        assertThat(result.getChildren().get(0).getEntryCounts().get("bindings"), is(1));
+        assertThat(result.getEstimatedBytes() > result.getOwnBytes(), is(true));
+    }
+
 
     private IMethodSymbol createMethodSymbol() {
         return createMethodSymbol("foo", mock(IModifierSet.class), mock(IModifierSet.class));
@@ -78,6 +78,18 @@ public class SymbolFactoryTest
         assertThat(result, is(typeSymbol));
     }
 
+    @Test
+    public void setMixedTypeSymbol_Standard_PassesItToTypeHelper() {
+        ITypeSymbol typeSymbol = mock(ITypeSymbol.class);
+        ITypeHelper typeHelper = mock(ITypeHelper.class);
+
+        ISymbolFactory symbolFactory = createSymbolFactory(
+                mock(IScopeHelper.class), mock(IModifierHelper.class), typeHelper);
+        symbolFactory.setMixedTypeSymbol(typeSymbol);
+
+        verify(typeHelper).setMixedTypeSymbol(typeSymbol);
+    }
+
     @Test
     public void createScalarTypeSymbol_Standard_NameIsPassedName() {
         String name = "foo";
@@ -0,0 +1,96 @@
+/*
+ * This file is part of the TinsPHP project published under the Apache License 2.0
+ * For the full copyright and license information, please have a look at LICENSE in the
+ * root folder or visit the project's website http://tsphp.ch/wiki/display/TINS/License
+ */
+
+package ch.tsphp.tinsphp.symbols.test.unit.utils;
+
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.symbols.utils.RelationCache;
+import org.junit.Test;
+
+import static ch.tsphp.tinsphp.common.utils.ERelation.HAS_RELATION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.mockito.Mockito.mock;
+
+public class RelationCacheTest
+{
+    @Test
+    public void get_SameTypesButOtherFlags_ReturnsNull() {
+        ITypeSymbol fromType = mock(ITypeSymbol.class);
+        ITypeSymbol toType = mock(ITypeSymbol.class);
+        RelationCache<RelationCache.Entry> cache = new RelationCache<>(2);
+        cache.put(fromType, toType, 1, new RelationCache.Entry(HAS_RELATION, false));
+
+        RelationCache.Entry result = cache.get(fromType, toType, 0);
+
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void put_IsFull_EvictsLeastRecentlyUsed() {
+        ITypeSymbol type1 = mock(ITypeSymbol.class);
+        ITypeSymbol type2 = mock(ITypeSymbol.class);
+        ITypeSymbol type3 = mock(ITypeSymbol.class);
+        RelationCache<RelationCache.Entry> cache = new RelationCache<>(2);
+        cache.put(type1, type2, 0, new RelationCache.Entry(HAS_RELATION, false));
+        cache.put(type2, type3, 0, new RelationCache.Entry(HAS_RELATION, false));
+        cache.get(type1, type2, 0);
+
+        cache.put(type1, type3, 0, new RelationCache.Entry(HAS_RELATION, false));
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get(type1, type2, 0), is(notNullValue()));
+        assertThat(cache.get(type2, type3, 0), is(nullValue()));
+    }
+
+    @Test
+    public void put_SizeIsZero_DoesNotCache() {
+        ITypeSymbol fromType = mock(ITypeSymbol.class);
+        ITypeSymbol toType = mock(ITypeSymbol.class);
+        RelationCache<RelationCache.Entry> cache = new RelationCache<>(0);
+
+        cache.put(fromType, toType, 0, new RelationCache.Entry(HAS_RELATION, false));
+
+        assertThat(cache.get(fromType, toType, 0), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_NegativeSize_ThrowsIllegalArgumentException() {
+        //no arrange necessary
+
+        new RelationCache<RelationCache.Entry>(-1);
+
+        //assert in annotation
+    }
+
+    @Test
+    public void get_SeveralSegments_ReturnsCachedOutcomes() {
+        ITypeSymbol type1 = mock(ITypeSymbol.class);
+        ITypeSymbol type2 = mock(ITypeSymbol.class);
+        ITypeSymbol type3 = mock(ITypeSymbol.class);
+        RelationCache<RelationCache.Entry> cache = new RelationCache<>(64, 4);
+        cache.put(type1, type2, 0, new RelationCache.Entry(HAS_RELATION, false));
+        cache.put(type2, type3, 0, new RelationCache.Entry(HAS_RELATION, true));
+
+        RelationCache.Entry result = cache.get(type2, type3, 0);
+
+        assertThat(result.shallConsiderImplicitConversions, is(true));
+        assertThat(cache.get(type1, type2, 0), is(notNullValue()));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getNumberOfHits(), is(2L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_ConcurrencyLevelZero_ThrowsIllegalArgumentException() {
+        //no arrange necessary
+
+        new RelationCache<RelationCache.Entry>(2, 0);
+
+        //assert in annotation
+    }
+}
@@ -6,14 +6,26 @@
 
 package ch.tsphp.tinsphp.symbols.test.unit.utils;
 
+import ch.tsphp.common.symbols.ITypeSymbol;
+import ch.tsphp.tinsphp.common.core.IConversionsProvider;
 import ch.tsphp.tinsphp.common.utils.ERelation;
 import ch.tsphp.tinsphp.common.utils.ITypeHelper;
 import ch.tsphp.tinsphp.common.utils.TypeHelperDto;
 import ch.tsphp.tinsphp.symbols.test.integration.testutils.ATypeHelperTest;
+import ch.tsphp.tinsphp.symbols.utils.TypeHelper;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
 
 public class TypeHelperTest extends ATypeHelperTest
 {
@@ -204,6 +216,143 @@ public class TypeHelperTest extends ATypeHelperTest
         assertThat(result.relation, is(ERelation.HAS_RELATION));
     }
 
+    @Test
+    public void isFirstSameOrSubTypeOfSecond_IntAndNumTwice_SecondIsCached() {
+        //no arrange necessary
+
+        TypeHelper typeHelper = (TypeHelper) createTypeHelperAndInit();
+        typeHelper.isFirstSameOrSubTypeOfSecond(intType, numType, false);
+        TypeHelperDto result = typeHelper.isFirstSameOrSubTypeOfSecond(intType, numType, false);
+
+        assertThat(result.relation, is(ERelation.HAS_RELATION));
+        assertThat(typeHelper.getRelationCache().getNumberOfHits(), is(1L));
+        assertThat(typeHelper.getRelationCache().getNumberOfMisses(), is(1L));
+    }
+
+    @Test
+    public void getRelation_IntAndNumTwice_SecondIsCached() {
+        //no arrange necessary
+
+        TypeHelper typeHelper = (TypeHelper) createTypeHelperAndInit();
+        typeHelper.getRelation(intType, numType, false);
+        ERelation result = typeHelper.getRelation(intType, numType, false);
+
+        assertThat(result, is(ERelation.HAS_RELATION));
+        assertThat(typeHelper.getRelationCache().getNumberOfHits(), is(1L));
+        assertThat(typeHelper.getRelationCache().getNumberOfMisses(), is(1L));
+    }
+
+    @Test
+    public void getRelation_NumAndInt_HasNoRelation() {
+        //no arrange necessary
+
+        TypeHelper typeHelper = (TypeHelper) createTypeHelperAndInit();
+        ERelation result = typeHelper.getRelation(numType, intType, false);
+
+        assertThat(result, is(ERelation.HAS_NO_RELATION));
+    }
+
+    @Test
+    public void setConversionsProvider_RelationWasCached_InvalidatesCache() {
+        TypeHelper typeHelper = (TypeHelper) createTypeHelperAndInit();
+        typeHelper.isFirstSameOrSubTypeOfSecond(intType, numType, false);
+
+        typeHelper.setConversionsProvider(mock(IConversionsProvider.class));
+        int result = typeHelper.getRelationCache().size();
+
+        assertThat(result, is(0));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void setMixedTypeSymbol_BuiltByBuilderAndOtherMixedType_ThrowsUnsupportedOperationException() {
+        TypeHelper typeHelper = new TypeHelper.Builder()
+                .mixedTypeSymbol(mixedType)
+                .conversionsProvider(mock(IConversionsProvider.class))
+                .build();
+
+        typeHelper.setMixedTypeSymbol(mock(ITypeSymbol.class));
+
+        //assert in annotation
+    }
+
+    @Test
+    public void setMixedTypeSymbol_BuiltByBuilderAndSameMixedType_IsStillImmutable() {
+        TypeHelper typeHelper = new TypeHelper.Builder()
+                .mixedTypeSymbol(mixedType)
+                .conversionsProvider(mock(IConversionsProvider.class))
+                .build();
+
+        typeHelper.setMixedTypeSymbol(mixedType);
+
+        assertThat(typeHelper.isImmutable(), is(true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void setConversionsProvider_BuiltByBuilderAndOtherProvider_ThrowsUnsupportedOperationException() {
+        TypeHelper typeHelper = new TypeHelper.Builder()
+                .mixedTypeSymbol(mixedType)
+                .conversionsProvider(mock(IConversionsProvider.class))
+                .build();
+
+        typeHelper.setConversionsProvider(mock(IConversionsProvider.class));
+
+        //assert in annotation
+    }
+
+    @Test
+    public void setConversionsProvider_BuiltByBuilderAndSameProvider_IsStillImmutable() {
+        IConversionsProvider conversionsProvider = mock(IConversionsProvider.class);
+        TypeHelper typeHelper = new TypeHelper.Builder()
+                .mixedTypeSymbol(mixedType)
+                .conversionsProvider(conversionsProvider)
+                .build();
+
+        typeHelper.setConversionsProvider(conversionsProvider);
+
+        assertThat(typeHelper.isImmutable(), is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void build_MixedTypeSymbolNotDefined_ThrowsIllegalStateException() {
+        TypeHelper.Builder builder = new TypeHelper.Builder().conversionsProvider(mock(IConversionsProvider.class));
+
+        builder.build();
+
+        //assert in annotation
+    }
+
+    @Test
+    public void isFirstSameOrSubTypeOfSecond_BuiltByBuilderAndQueriedConcurrently_AllHaveRelation()
+            throws InterruptedException, ExecutionException {
+        final TypeHelper typeHelper = new TypeHelper.Builder()
+                .mixedTypeSymbol(mixedType)
+                .conversionsProvider(mock(IConversionsProvider.class))
+                .concurrencyLevel(4)
+                .build();
+        List<Callable<ERelation>> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            tasks.add(new Callable<ERelation>()
+            {
+                @Override
+                public ERelation call() {
+                    return typeHelper.isFirstSameOrSubTypeOfSecond(intType, numType, false).relation;
+                }
+            });
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<ERelation>> result;
+        try {
+            result = executorService.invokeAll(tasks);
+        } finally {
+            executorService.shutdown();
+        }
+
+        for (Future<ERelation> future : result) {
+            assertThat(future.get(), is(ERelation.HAS_RELATION));
+        }
+    }
+
     //----------------------------
 
 }